@@ -10,7 +10,7 @@ public interface IShell {
 	public ITool parse(String commandline);
 	
 	/**
-	 * Executes the tool, starts a new thread, and returns the thread handle.
+	 * Executes the tool as a task of the tool executor, and returns the task handle.
 	 * @param tool
 	 * @return
 	 */
@@ -0,0 +1,25 @@
+package sg.edu.nus.comp.cs4218;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A tool that reads its standard input from a stream and writes its standard
+ * output to a stream, so that neither has to fit in memory as one String.
+ * Channels can be passed in through java.nio.channels.Channels.
+ */
+public interface IStreamTool extends ITool {
+
+	/**
+	 * Executes the tool, reading stdin and writing stdout incrementally.
+	 * @param workingDir
+	 * @param stdin Input on stdin. NOT THE ARGUMENTS! Can be null.
+	 * @param stdout Receives the normal output of the tool
+	 * @param stderr Receives the error messages of the tool
+	 * @throws IOException when stdin, stdout or stderr cannot be accessed
+	 */
+	void execute(File workingDir, InputStream stdin, OutputStream stdout,
+			OutputStream stderr) throws IOException;
+}
@@ -0,0 +1,21 @@
+package sg.edu.nus.comp.cs4218;
+
+/**
+ * Creates the tool for a command name. Factories of additional tools are found
+ * through java.util.ServiceLoader: list the implementing classes in
+ * META-INF/services/sg.edu.nus.comp.cs4218.IToolFactory.
+ */
+public interface IToolFactory {
+
+	/**
+	 * @return the command name, in lowercase
+	 */
+	String getName();
+
+	/**
+	 * Creates a new tool for one execution
+	 * @param args Arguments the tool is going to be executed with
+	 * @return the tool
+	 */
+	ITool create(String[] args);
+}
@@ -8,6 +8,7 @@ import sg.edu.nus.comp.cs4218.ITool;
  * The grep tool must work on all characters in UTF-8 encoding. 
  * 
  * Command Format - grep [OPTIONS] PATTERN [FILE]
+ *                  grep [OPTIONS] {-e PATTERN | -f FILE}... [FILE]
  * PATTERN - This specifies a regular expression pattern that describes a set of strings
  * FILE - Name of the file, when no file is present (denoted by "-") use standard input
  * OPTIONS
@@ -15,12 +16,15 @@ import sg.edu.nus.comp.cs4218.ITool;
  *   -B NUM : Print NUM lines of leading context before matching lines
  *   -C NUM : Print NUM lines of output context
  *   -c : Suppress normal output. Instead print a count of matching lines for each input file
+ *   -e STRING : Use STRING as a pattern, may be given several times
+ *   -f STRING : Obtain patterns from the file STRING, one per line
  *   -o : Show only the part of a matching line that matches PATTERN
  *   -v : Select non-matching (instead of matching) lines
  *   -help : Brief information about supported options
  */
 public interface IGrepTool extends ITool {
 	String getOnlyMatchingLines(String pattern, String input);
+	String getLinesMatchingAny(String[] patterns, String input);
 
 	String getMatchingLinesWithTrailingContext(int optionA, String pattern, String input);
 	String getMatchingLinesWithLeadingContext(int optionB, String pattern, String input);
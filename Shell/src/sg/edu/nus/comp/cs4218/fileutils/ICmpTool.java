@@ -0,0 +1,14 @@
+package sg.edu.nus.comp.cs4218.fileutils;
+
+import java.io.File;
+import java.io.IOException;
+
+import sg.edu.nus.comp.cs4218.ITool;
+
+/**
+ * cmp compares two files byte by byte and reports the first difference
+ */
+public interface ICmpTool extends ITool {
+	long compare(File first, File second) throws IOException;
+	String getHelp();
+}
@@ -1,11 +1,32 @@
 package sg.edu.nus.comp.cs4218.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import sg.edu.nus.comp.cs4218.IStreamTool;
+
+public abstract class ATool implements IStreamTool {
+	/**
+	 * Encoding used whenever stdin or stdout is converted between bytes and String
+	 */
+	public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+	/**
+	 * Status code of a command stopped through its cancellation token, as for
+	 * a command terminated by Control-C
+	 */
+	public static final int STATUS_CANCELLED = 130;
 
-public abstract class ATool {
 	protected String[] args;
 	private int statusCode = 0;
-	
+	private CancellationToken cancellation = CancellationToken.NONE;
+
 	/**
 	 * Constructor
 	 * @param arguments Arguments the tool is going to be executed with.
@@ -13,7 +34,7 @@ public abstract class ATool {
 	public ATool(String[] arguments){
 		this.args = arguments;
 	}
-	
+
 	/**
 	 * Executes the tool with args provided in the constructor
 	 * TODO Use interface methods when implementing execute!
@@ -21,7 +42,80 @@ public abstract class ATool {
 	 * @return Output on stdout
 	 */
 	public abstract String execute(File workingDir, String stdin);
-	
+
+	/**
+	 * Executes the tool on streams. This default adapts the String based
+	 * execute: stdin is read completely, and the returned String is written to
+	 * stdout, or to stderr if the status code is not 0. Tools ported to
+	 * streaming override this method and implement
+	 * {@link #execute(File, String)} with {@link #executeBuffered(File, String)}.
+	 * @param stdin Input on stdin. NOT THE ARGUMENTS! Can be null.
+	 */
+	@Override
+	public void execute(File workingDir, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		String input = stdin == null ? null : FileUtils.readStreamContent(stdin);
+		String output = execute(workingDir, input);
+
+		if (output != null) {
+			OutputStream target = getStatusCode() == 0 ? stdout : stderr;
+			target.write(output.getBytes(CHARSET));
+		}
+	}
+
+	/**
+	 * Runs the streaming execute over in-memory buffers, for tools that have
+	 * been ported to streaming but still have to answer the String based
+	 * execute. stdout and stderr share one buffer, so error messages are
+	 * returned in the order they were written, like before.
+	 * @param stdin Input on stdin. NOT THE ARGUMENTS! Can be null.
+	 * @return Output on stdout
+	 */
+	protected String executeBuffered(File workingDir, String stdin) {
+		InputStream input = stdin == null ? null
+				: new ByteArrayInputStream(stdin.getBytes(CHARSET));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		try {
+			execute(workingDir, input, output, output);
+		} catch (IOException e) {
+			setStatusCode(1);
+			return e.getMessage();
+		}
+
+		return new String(output.toByteArray(), CHARSET);
+	}
+
+	/**
+	 * Set the token through which a running execution can be cancelled
+	 * @param token CancellationToken, never null
+	 */
+	public void setCancellationToken(CancellationToken token){
+		this.cancellation = token;
+	}
+
+	/**
+	 * Check whether the execution has been cancelled. Tools call this in their
+	 * per-line loops and stop as soon as it returns true.
+	 * @return true if cancelled, the status code is then set to STATUS_CANCELLED
+	 */
+	protected boolean isCancelled(){
+		if (cancellation.isCancelled()) {
+			setStatusCode(STATUS_CANCELLED);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * get the token through which the execution can be cancelled
+	 * @return CancellationToken
+	 */
+	protected CancellationToken getCancellationToken(){
+		return cancellation;
+	}
+
 	/**
 	 * After execution returns the status of the tool
 	 * @return Returns 0 if executed properly
@@ -29,7 +123,7 @@ public abstract class ATool {
 	public int getStatusCode(){
 		return statusCode;
 	}
-	
+
 	/**
 	 * Set the status code during or after execution of the tool
 	 * @param statusCode 0 if executed normally. Otherwise, see http://tldp.org/LDP/abs/html/exitcodes.html#EXITCODESREF
@@ -37,6 +131,6 @@ public abstract class ATool {
 	protected void setStatusCode(int statusCode){
 		this.statusCode = statusCode;
 	}
-	
+
 
 }
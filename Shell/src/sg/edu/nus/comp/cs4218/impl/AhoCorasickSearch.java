@@ -0,0 +1,195 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds any of a set of fixed strings in bytes with an Aho-Corasick
+ * automaton, in one pass over the text however many strings there are. The
+ * strings are encoded with {@link ATool#CHARSET}, like in
+ * {@link LiteralSearch}.
+ *
+ * The automaton is built into a table of transitions for every state and
+ * byte, so every byte of the text costs one lookup. Bytes that occur in none
+ * of the strings share one column of the table, which keeps the table small
+ * for strings over a small alphabet, e.g. IDs of digits and letters.
+ *
+ * An occurrence found is the leftmost one, and the longest of those starting
+ * there, as grep -o prints them. The string found is remembered until the
+ * next search, so a search must not be shared by threads.
+ */
+public class AhoCorasickSearch implements ByteSearch {
+
+	private final String[] literals;
+	private final int maxLength;
+
+	/* byte -> column of the table, 0 for bytes in none of the strings */
+	private final int[] classes = new int[256];
+	private final int columns;
+
+	/* state * columns + column -> next state */
+	private final int[] delta;
+
+	/* state -> longest string ending in the state and its index, or 0 and -1 */
+	private final int[] longest;
+	private final int[] literalAt;
+
+	private int lastLiteral = -1;
+	private int lastLength = 0;
+
+	/**
+	 * build the automaton of a set of strings
+	 *
+	 * @param literals non-empty Strings
+	 */
+	public AhoCorasickSearch(List<String> literals) {
+		if (literals.isEmpty()) {
+			throw new IllegalArgumentException("Error: No search strings");
+		}
+
+		this.literals = literals.toArray(new String[literals.size()]);
+
+		byte[][] patterns = new byte[this.literals.length][];
+		int columnCount = 1;
+		int total = 0;
+		int max = 0;
+
+		for (int i = 0; i < patterns.length; i++) {
+			if (this.literals[i].isEmpty()) {
+				throw new IllegalArgumentException("Error: Empty search string");
+			}
+
+			patterns[i] = this.literals[i].getBytes(ATool.CHARSET);
+			total += patterns[i].length;
+			max = Math.max(max, patterns[i].length);
+
+			for (byte b : patterns[i]) {
+				if (classes[b & 0xff] == 0) {
+					classes[b & 0xff] = columnCount++;
+				}
+			}
+		}
+
+		this.columns = columnCount;
+		this.maxLength = max;
+
+		// the trie, its states numbered in the order they are added
+		int[] trie = new int[(total + 1) * columns];
+		int[] terminal = new int[total + 1];
+		int states = 1;
+
+		Arrays.fill(terminal, -1);
+
+		for (int i = 0; i < patterns.length; i++) {
+			int state = 0;
+
+			for (byte b : patterns[i]) {
+				int cell = state * columns + classes[b & 0xff];
+
+				if (trie[cell] == 0) {
+					trie[cell] = states++;
+				}
+
+				state = trie[cell];
+			}
+
+			// of equal strings the first one is reported
+			if (terminal[state] < 0) {
+				terminal[state] = i;
+			}
+		}
+
+		this.delta = Arrays.copyOf(trie, states * columns);
+		this.longest = new int[states];
+		this.literalAt = new int[states];
+
+		int[] fail = new int[states];
+		int[] depth = new int[states];
+		int[] queue = new int[states];
+		int tail = 1;
+
+		Arrays.fill(literalAt, -1);
+
+		// breadth first from the root, so the failure state of a state is
+		// done before it
+		for (int head = 0; head < tail; head++) {
+			int state = queue[head];
+
+			if (terminal[state] >= 0) {
+				longest[state] = depth[state];
+				literalAt[state] = terminal[state];
+			} else {
+				longest[state] = longest[fail[state]];
+				literalAt[state] = literalAt[fail[state]];
+			}
+
+			for (int column = 0; column < columns; column++) {
+				int cell = state * columns + column;
+				int child = trie[cell];
+
+				if (child != 0) {
+					fail[child] = state == 0 ? 0 : delta[fail[state] * columns + column];
+					depth[child] = depth[state] + 1;
+					queue[tail++] = child;
+				} else {
+					delta[cell] = state == 0 ? 0 : delta[fail[state] * columns + column];
+				}
+			}
+		}
+	}
+
+	@Override
+	public int indexIn(byte[] buffer, int from, int to) {
+		int state = 0;
+		int best = -1;
+		int bestLength = 0;
+		int bestLiteral = -1;
+
+		for (int i = from; i < to; i++) {
+			state = delta[state * columns + classes[buffer[i] & 0xff]];
+
+			int length = longest[state];
+
+			if (length != 0) {
+				int start = i + 1 - length;
+
+				if (best < 0 || start < best || (start == best && length > bestLength)) {
+					best = start;
+					bestLength = length;
+					bestLiteral = literalAt[state];
+				}
+			}
+
+			// no occurrence ending later starts at or before the best one
+			if (best >= 0 && i + 1 >= best + maxLength) {
+				break;
+			}
+		}
+
+		lastLiteral = bestLiteral;
+		lastLength = bestLength;
+
+		return best;
+	}
+
+	/**
+	 * @return the string found by the last search, null if it found none
+	 */
+	public String getLastLiteral() {
+		return lastLiteral < 0 ? null : literals[lastLiteral];
+	}
+
+	/**
+	 * @return length in bytes of the string found by the last search
+	 */
+	public int getLastLength() {
+		return lastLength;
+	}
+
+	/**
+	 * @return number of strings searched for
+	 */
+	public int size() {
+		return literals.length;
+	}
+}
@@ -3,22 +3,24 @@ package sg.edu.nus.comp.cs4218.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.util.Set;
+
+/**
+ * Splits command lines into words and sorts the arguments of a tool into
+ * options and params.
+ *
+ * Both are done in single passes over the characters, without regular
+ * expressions. A quote or a trailing backslash is "unescaped" when it is
+ * preceded by an even number of backslashes. Like "." in a regular
+ * expression, quotes and trailing backslashes are not recognized in a word
+ * containing a line terminator.
+ */
 public class ArgList {
 
-	/* regular expressions to handle arguments */
-	private static final Pattern REGEX_SPACESTR = Pattern
-			.compile("^.*(?<!\\\\)(?:(?:\\\\\\\\)*\\\\)$");
-	private static final Pattern REGEX_QUOTESTR = Pattern
-			.compile("^.*?(?<!\\\\)(?:\\\\\\\\)*(\"|').*$");
-	private static final Pattern REGEX_QUOTE = Pattern
-			.compile("(?<!\\\\)(?:\\\\\\\\)*(\"|')");
-
 	/* comparator for options */
 	private final Comparator<String> compare = new Comparator<String>() {
 		@Override
@@ -39,11 +41,13 @@ public class ArgList {
 	}
 
 	/**
-	 * an argument option with name, description, type and value
+	 * an argument option with name, description, type and value. An option
+	 * given several times keeps all its values, the last one is its value.
 	 */
 	public class Option {
 		public String name;
 		public String value;
+		public List<String> values;
 		public String description;
 		public ArgType type;
 
@@ -51,11 +55,13 @@ public class ArgList {
 			this.name = name;
 			this.type = type;
 			this.value = null;
+			this.values = new ArrayList<String>();
 			this.description = desc;
 		}
 
 		public void setValue(String value) {
 			this.value = value;
+			this.values.add(value);
 		}
 
 		/**
@@ -67,7 +73,7 @@ public class ArgList {
 		 */
 		public boolean matchType(String value) {
 			if (type == ArgType.NUM) {
-				return value.matches("[0-9]+");
+				return isNumber(value);
 			} else if (type == ArgType.STRING) {
 				return !(value.startsWith("\"") || value.startsWith("'"));
 			} else {
@@ -91,11 +97,16 @@ public class ArgList {
 		}
 	}
 
-	private TreeMap<String, Option> acceptableOptions;
+	/* the lists keep the order, the sets answer contains checks */
+	private HashMap<String, Option> acceptableOptions;
 	private List<String> arguments;
+	private Set<String> argumentSet;
 	private List<String> options;
+	private Set<String> optionSet;
 	private List<String> params;
+	private Set<String> paramSet;
 	private List<String> invalidOptions;
+	private Set<String> invalidOptionSet;
 
 	public boolean optionsFirstCheck = true;
 	public boolean invalidOptionCheck = true;
@@ -104,11 +115,15 @@ public class ArgList {
 	 * initialize argument list
 	 */
 	public ArgList() {
-		acceptableOptions = new TreeMap<String, Option>(compare);
+		acceptableOptions = new HashMap<String, Option>();
 		arguments = new ArrayList<String>();
+		argumentSet = new HashSet<String>();
 		options = new ArrayList<String>();
+		optionSet = new HashSet<String>();
 		params = new ArrayList<String>();
+		paramSet = new HashSet<String>();
 		invalidOptions = new ArrayList<String>();
+		invalidOptionSet = new HashSet<String>();
 	}
 
 	/**
@@ -133,12 +148,21 @@ public class ArgList {
 	}
 
 	/**
-	 * get the acceptable options in array
+	 * get the acceptable options in array, shortest names first
 	 * 
 	 * @return acceptable options
 	 */
 	public Option[] getAcceptableOptions() {
-		return acceptableOptions.values().toArray(new Option[0]);
+		Option[] sorted = acceptableOptions.values().toArray(new Option[0]);
+
+		Arrays.sort(sorted, new Comparator<Option>() {
+			@Override
+			public int compare(Option o1, Option o2) {
+				return compare.compare(o1.name, o2.name);
+			}
+		});
+
+		return sorted;
 	}
 
 	/**
@@ -158,7 +182,7 @@ public class ArgList {
 	 * @return boolean
 	 */
 	public boolean hasArgument(String arg) {
-		return arguments.contains(arg);
+		return argumentSet.contains(arg);
 	}
 
 	/**
@@ -198,7 +222,7 @@ public class ArgList {
 	 * @return boolean
 	 */
 	public boolean hasOption(String option) {
-		return options.contains(option);
+		return optionSet.contains(option);
 	}
 
 	/**
@@ -223,6 +247,19 @@ public class ArgList {
 		return acceptableOptions.get(option).value;
 	}
 
+	/**
+	 * get all the values of an option given several times, in order
+	 * 
+	 * @param option name
+	 * 
+	 * @return String[], empty if the option is not given
+	 */
+	public String[] getOptionValues(String option) {
+		List<String> values = acceptableOptions.get(option).values;
+
+		return values.toArray(new String[values.size()]);
+	}
+
 	/**
 	 * get options in a list
 	 * 
@@ -248,7 +285,7 @@ public class ArgList {
 	 * @return boolean
 	 */
 	public boolean hasParam(String param) {
-		return params.contains(param);
+		return paramSet.contains(param);
 	}
 
 	/**
@@ -310,11 +347,13 @@ public class ArgList {
 			} else if (isAnOption(arg)) {
 				arg = arg.substring(1); // remove the - in front
 				parseOptionStr(arg, argIter);
-			} else if (REGEX_QUOTESTR.matcher(arg).matches()) {
+			} else if (hasUnescapedQuote(arg)) {
 				parseQuotedStr(arg, argIter);
 			} else {
-				params.add(removeBackslash(arg));
-				arguments.add(removeBackslash(arg));
+				String cleanArg = removeBackslash(arg);
+
+				addParam(cleanArg);
+				addArgument(cleanArg);
 			}
 		}
 	}
@@ -331,7 +370,7 @@ public class ArgList {
 		}
 		
 		String optStr = removeBackslash(option);
-		arguments.add("-" + optStr);
+		addArgument("-" + optStr);
 
 		// invalid option?
 		Option opt = acceptableOptions.get(optStr);
@@ -341,12 +380,12 @@ public class ArgList {
 				throw new IllegalArgumentException("Error: Illegal option -" + optStr);
 			}
 
-			addWithoutDuplicate(invalidOptions, optStr);
+			addWithoutDuplicate(invalidOptions, invalidOptionSet, optStr);
 			return;
 		}
 
 		// valid option
-		addWithoutDuplicate(options, optStr);
+		addWithoutDuplicate(options, optionSet, optStr);
 
 		if (opt.type != ArgType.RAW) {
 			if (!iter.hasNext()) {
@@ -361,8 +400,10 @@ public class ArgList {
 				throw new IllegalArgumentException("Error: Illegal value: " + val);
 			}
 
-			opt.setValue(removeBackslash(val));
-			arguments.add(removeBackslash(val));
+			String cleanVal = removeBackslash(val);
+
+			opt.setValue(cleanVal);
+			addArgument(cleanVal);
 		}
 	}
 
@@ -373,36 +414,106 @@ public class ArgList {
 	 * @param argIter
 	 */
 	private void parseQuotedStr(String arg, Iterator<String> argIter) {
-		if (!isQuoteMatcherCompleted(REGEX_QUOTE.matcher(arg))) {
+		QuoteScanner quotes = new QuoteScanner();
+		quotes.scan(arg);
+
+		if (!quotes.isCompleted()) {
 			throw new IllegalArgumentException("Error: Incomplete quotation");
 		}
 		
 		String cleanArg = removeQuoteMarks(removeBackslash(arg));
 
-		params.add(cleanArg);
-		arguments.add(cleanArg);
+		addParam(cleanArg);
+		addArgument(cleanArg);
+	}
+
+	private void addParam(String param) {
+		params.add(param);
+		paramSet.add(param);
+	}
+
+	private void addArgument(String arg) {
+		arguments.add(arg);
+		argumentSet.add(arg);
 	}
 
 	/**
-	 * determine whether it is an options (start with -)
+	 * determine whether it is an options: - followed by letters and digits
 	 * 
 	 * @param arg
 	 * 
 	 * @return true if it is an option
 	 */
-	private boolean isAnOption(String arg) {
-		return arg.matches("^-(?<!(\\\\)+\\\\)[0-9a-zA-Z]+$");
+	private static boolean isAnOption(String arg) {
+		int length = arg.length();
+
+		if (length < 2 || arg.charAt(0) != '-') {
+			return false;
+		}
+
+		for (int i = 1; i < length; i++) {
+			char c = arg.charAt(i);
+
+			if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * determine whether a value is a non-negative integer of digits 0-9
+	 * 
+	 * @param value
+	 * 
+	 * @return boolean
+	 */
+	private static boolean isNumber(String value) {
+		int length = value.length();
+
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+
+		return length > 0;
 	}
 
 	/**
-	 * remove the backslashes in a string
+	 * remove the backslashes in a string: a backslash followed by any
+	 * character except a line terminator is replaced by that character
 	 * 
 	 * @param arg
 	 * 
 	 * @return String
 	 */
-	private String removeBackslash(String arg) {
-		return arg.replaceAll("\\\\(.)", "$1");
+	private static String removeBackslash(String arg) {
+		int first = arg.indexOf('\\');
+
+		if (first < 0) {
+			return arg;
+		}
+
+		int length = arg.length();
+		StringBuilder result = new StringBuilder(length);
+		result.append(arg, 0, first);
+
+		for (int i = first; i < length; i++) {
+			char c = arg.charAt(i);
+
+			if (c == '\\' && i + 1 < length && !isLineTerminator(arg.charAt(i + 1))) {
+				i++;
+				c = arg.charAt(i);
+			}
+
+			result.append(c);
+		}
+
+		return result.toString();
 	}
 
 	/**
@@ -412,18 +523,54 @@ public class ArgList {
 	 * 
 	 * @return String
 	 */
-	private String removeQuoteMarks(String arg) {
-		return arg.replaceAll("\"|'", "");
+	private static String removeQuoteMarks(String arg) {
+		int length = arg.length();
+		StringBuilder result = new StringBuilder(length);
+
+		for (int i = 0; i < length; i++) {
+			char c = arg.charAt(i);
+
+			if (c != '"' && c != '\'') {
+				result.append(c);
+			}
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * clean one word of a command line the way it becomes a param: backslash
+	 * escapes and quotation marks are removed
+	 * 
+	 * @param word
+	 * 
+	 * @return String
+	 * @throws IllegalArgumentException if a quotation is not closed
+	 */
+	public static String unquote(String word) throws IllegalArgumentException {
+		if (!hasUnescapedQuote(word)) {
+			return removeBackslash(word);
+		}
+
+		QuoteScanner quotes = new QuoteScanner();
+		quotes.scan(word);
+
+		if (!quotes.isCompleted()) {
+			throw new IllegalArgumentException("Error: Incomplete quotation");
+		}
+
+		return removeQuoteMarks(removeBackslash(word));
 	}
 
 	/**
 	 * add val to list only if it does not in the list
 	 * 
 	 * @param list
+	 * @param set the values in list
 	 * @param val
 	 */
-	private void addWithoutDuplicate(List<String> list, String val) {
-		if (!list.contains(val)) {
+	private static void addWithoutDuplicate(List<String> list, Set<String> set, String val) {
+		if (set.add(val)) {
 			list.add(val);
 		}
 	}
@@ -435,77 +582,272 @@ public class ArgList {
 	 *            the input line
 	 * @param params
 	 *            arguments in line other than the command
-	 * @return command name as String
+	 * @return command name as String, "pipe" if one of the words is "|"
 	 */
 	public static String split(String line, ArrayList<String> params)
 			throws IllegalArgumentException {
-		String[] result = line.split("\\s+"); // commands are in empty spaces
+		splitWords(line, params);
 
-		for (int i = 0; i < result.length; i++) {
-			String t = result[i];
+		return commandOf(params);
+	}
+
+	/**
+	 * split input line into words
+	 * 
+	 * Words are separated by whitespace. A word ending with an unescaped
+	 * backslash is joined with the next word by a single space (or gets a
+	 * trailing space if it is the last word). A word with an unescaped quote
+	 * is then joined with the following words until the first kind of quote
+	 * in it is closed. Whitespace at the start of the line gives an empty
+	 * first word.
+	 * 
+	 * @param line
+	 *            the input line
+	 * @param words
+	 *            receives the words of the line
+	 */
+	public static void splitWords(String line, List<String> words) {
+		Lexer lexer = new Lexer(line);
+
+		while (lexer.next()) {
+			StringBuilder token = new StringBuilder(lexer.length());
+			boolean terminated = lexer.append(token);
 
 			// if it has odd number of \ before space, merge next word
-			while (REGEX_SPACESTR.matcher(t).matches()) {
-				if (i + 1 < result.length) {
-					i += 1;
-					t += " " + result[i];
+			while (!terminated && endsWithEscape(token)) {
+				if (lexer.next()) {
+					token.append(' ');
+					terminated |= lexer.append(token);
 				} else {
-					t += " ";
+					token.append(' ');
 					break;
 				}
 			}
 
 			// if it has open quotation mark (even with even number of \),
 			// merge to close mark
-			if (REGEX_QUOTESTR.matcher(t).matches()) {
-				while (i + 1 < result.length) {
-					if (isQuoteMatcherCompleted(REGEX_QUOTE.matcher(t))) {
-						break;
-					}
+			QuoteScanner quotes = new QuoteScanner();
+			quotes.scan(token);
 
-					i += 1;
-					t += " " + result[i];
+			if (quotes.isFound() && !terminated) {
+				while (!quotes.isCompleted() && lexer.next()) {
+					int start = token.length();
+
+					token.append(' ');
+					lexer.append(token);
+					quotes.scan(token, start);
 				}
 			}
 
-			params.add(t);
+			words.add(token.toString());
 		}
+	}
 
-		if (params.isEmpty()) {
+	/**
+	 * take the command name out of the words of a line
+	 * 
+	 * @param words
+	 *            words of the line, the params remain
+	 * @return command name as String, "pipe" if one of the words is "|", in
+	 *         which case all words remain
+	 */
+	public static String commandOf(List<String> words) {
+		if (words.isEmpty()) {
 			return "";
-		} else if (params.contains("|")) {
+		} else if (words.contains("|")) {
 			return "pipe";
 		} else {
-			return params.remove(0);
+			return words.remove(0);
 		}
 	}
 
 	/**
-	 * determine there are even number of quotation marks in matcher
+	 * determine whether a string ends with an odd number of backslashes
 	 * 
-	 * @param matcher
+	 * @param s
 	 * 
-	 * @return true if yes
+	 * @return boolean
 	 */
-	private static boolean isQuoteMatcherCompleted(Matcher matcher) {
-		// get start mark
-		matcher.find();
-		// begin quote mark
-		final String beginMark = matcher.group();
-		// find the rest
-		boolean completed = false;
+	private static boolean endsWithEscape(CharSequence s) {
+		int count = 0;
 
-		while (matcher.find()) {
-			if (beginMark.equals(matcher.group())) {
-				if (completed) {
-					completed = false;
-				} else {
-					completed = true;
+		for (int i = s.length() - 1; i >= 0 && s.charAt(i) == '\\'; i--) {
+			count++;
+		}
+
+		return count % 2 == 1;
+	}
+
+	/**
+	 * determine whether a string has a quotation mark preceded by an even
+	 * number of backslashes, and no line terminator
+	 * 
+	 * @param s
+	 * 
+	 * @return boolean
+	 */
+	private static boolean hasUnescapedQuote(String s) {
+		int length = s.length();
+
+		for (int i = 0; i < length; i++) {
+			if (isLineTerminator(s.charAt(i))) {
+				return false;
+			}
+		}
+
+		QuoteScanner quotes = new QuoteScanner();
+		quotes.scan(s);
+
+		return quotes.isFound();
+	}
+
+	/**
+	 * the characters "." does not match in a regular expression
+	 */
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
+	/**
+	 * the characters matched by \s in a regular expression
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * finds the unescaped quotation marks, i.e. preceded by an even number of
+	 * backslashes, in a string that may grow. The first one found, with its
+	 * backslashes, is the begin mark; the quotation is completed after an odd
+	 * number of further marks equal to it
+	 */
+	private static class QuoteScanner {
+		private boolean found = false;
+		private int beginBackslashes;
+		private char beginQuote;
+		private boolean completed = false;
+
+		public void scan(CharSequence s) {
+			scan(s, 0);
+		}
+
+		/**
+		 * scan the characters from start on; the character before start must
+		 * not be a backslash
+		 */
+		public void scan(CharSequence s, int start) {
+			int backslashes = 0;
+			int length = s.length();
+
+			for (int i = start; i < length; i++) {
+				char c = s.charAt(i);
+
+				if (c == '\\') {
+					backslashes++;
+					continue;
 				}
+
+				if ((c == '"' || c == '\'') && backslashes % 2 == 0) {
+					if (!found) {
+						found = true;
+						beginBackslashes = backslashes;
+						beginQuote = c;
+					} else if (backslashes == beginBackslashes && c == beginQuote) {
+						completed = !completed;
+					}
+				}
+
+				backslashes = 0;
+			}
+		}
+
+		public boolean isFound() {
+			return found;
+		}
+
+		public boolean isCompleted() {
+			return completed;
+		}
+	}
+
+	/**
+	 * walks over the words of a line, the spans between whitespace
+	 */
+	private static class Lexer {
+		private final String line;
+		private final int length;
+		private int pos = 0;
+		private int start = 0;
+		private int end = 0;
+		private boolean leadingEmpty;
+
+		public Lexer(String line) {
+			this.line = line;
+			this.length = line.length();
+			// an empty line is one empty word, leading whitespace gives one
+			this.leadingEmpty = length == 0 || isWhitespace(line.charAt(0));
+
+			if (length > 0 && leadingEmpty) {
+				skipWhitespace();
+				// a line of only whitespace has no words at all
+				leadingEmpty = pos < length;
+			}
+		}
+
+		private void skipWhitespace() {
+			while (pos < length && isWhitespace(line.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		/**
+		 * move to the next word
+		 * 
+		 * @return false if there are no more words
+		 */
+		public boolean next() {
+			if (leadingEmpty) {
+				leadingEmpty = false;
+				start = pos;
+				end = pos;
+				return true;
+			}
+
+			skipWhitespace();
+
+			if (pos >= length) {
+				return false;
 			}
+
+			start = pos;
+
+			while (pos < length && !isWhitespace(line.charAt(pos))) {
+				pos++;
+			}
+
+			end = pos;
+			return true;
 		}
 
-		return completed;
+		public int length() {
+			return end - start;
+		}
+
+		/**
+		 * append the current word
+		 * 
+		 * @return true if the word contains a line terminator
+		 */
+		public boolean append(StringBuilder target) {
+			boolean terminated = false;
+
+			for (int i = start; i < end; i++) {
+				terminated |= isLineTerminator(line.charAt(i));
+			}
+
+			target.append(line, start, end);
+			return terminated;
+		}
 	}
 
-}
\ No newline at end of file
+}
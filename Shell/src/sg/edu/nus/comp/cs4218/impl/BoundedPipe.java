@@ -0,0 +1,215 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * A fixed size byte buffer connecting two threads, such as two stages of a
+ * pipe. The writer blocks while the buffer is full and the reader blocks while
+ * it is empty, so a fast producer can never run ahead of its consumer by more
+ * than the capacity.
+ *
+ * Closing the output stream signals end of input to the reader. Closing the
+ * input stream tells the writer that nobody is listening any more, and every
+ * following write fails with an IOException, so the producer can stop early.
+ */
+public class BoundedPipe {
+
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	private final byte[] buffer;
+	private int head = 0;
+	private int count = 0;
+	private boolean writerClosed = false;
+	private boolean readerClosed = false;
+
+	private final InputStream input = new PipeInputStream();
+	private final OutputStream output = new PipeOutputStream();
+
+	/**
+	 * initialize a pipe with the default capacity
+	 */
+	public BoundedPipe() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize a pipe
+	 *
+	 * @param capacity number of bytes buffered before the writer blocks
+	 */
+	public BoundedPipe(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Error: Invalid pipe capacity " + capacity);
+		}
+
+		buffer = new byte[capacity];
+	}
+
+	/**
+	 * get the reading end of the pipe
+	 *
+	 * @return InputStream
+	 */
+	public InputStream getInputStream() {
+		return input;
+	}
+
+	/**
+	 * get the writing end of the pipe
+	 *
+	 * @return OutputStream
+	 */
+	public OutputStream getOutputStream() {
+		return output;
+	}
+
+	/**
+	 * copy bytes into the buffer, waiting for free space when it is full
+	 */
+	private synchronized void write(byte[] b, int off, int len) throws IOException {
+		int offset = off;
+		int remaining = len;
+
+		while (remaining > 0) {
+			while (count == buffer.length && !readerClosed && !writerClosed) {
+				await();
+			}
+
+			if (writerClosed) {
+				throw new IOException("Error: Stream closed");
+			} else if (readerClosed) {
+				throw new IOException("Error: Pipe closed");
+			}
+
+			int tail = (head + count) % buffer.length;
+			int chunk = Math.min(remaining, Math.min(buffer.length - count,
+					buffer.length - tail));
+
+			System.arraycopy(b, offset, buffer, tail, chunk);
+			count += chunk;
+			offset += chunk;
+			remaining -= chunk;
+
+			notifyAll();
+		}
+	}
+
+	/**
+	 * copy bytes out of the buffer, waiting for data when it is empty
+	 *
+	 * @return number of bytes read, or -1 at end of input
+	 */
+	private synchronized int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		while (count == 0 && !writerClosed && !readerClosed) {
+			await();
+		}
+
+		if (readerClosed) {
+			throw new IOException("Error: Stream closed");
+		} else if (count == 0) {
+			return -1;
+		}
+
+		int chunk = Math.min(len, Math.min(count, buffer.length - head));
+
+		System.arraycopy(buffer, head, b, off, chunk);
+		head = (head + chunk) % buffer.length;
+		count -= chunk;
+
+		notifyAll();
+
+		return chunk;
+	}
+
+	/**
+	 * number of bytes that can be read without blocking
+	 */
+	private synchronized int available() {
+		return readerClosed ? 0 : count;
+	}
+
+	/**
+	 * mark the end of input
+	 */
+	private synchronized void closeWriter() {
+		writerClosed = true;
+		notifyAll();
+	}
+
+	/**
+	 * stop reading and drop whatever is buffered
+	 */
+	private synchronized void closeReader() {
+		readerClosed = true;
+		count = 0;
+		notifyAll();
+	}
+
+	/**
+	 * wait for the other end, turning an interrupt into an IOException so
+	 * callers only have to deal with one kind of failure
+	 */
+	private void await() throws InterruptedIOException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Error: Pipe interrupted");
+		}
+	}
+
+	/**
+	 * the reading end
+	 */
+	private class PipeInputStream extends InputStream {
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			int read = BoundedPipe.this.read(single, 0, 1);
+
+			return read == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return BoundedPipe.this.read(b, off, len);
+		}
+
+		@Override
+		public int available() {
+			return BoundedPipe.this.available();
+		}
+
+		@Override
+		public void close() {
+			closeReader();
+		}
+	}
+
+	/**
+	 * the writing end
+	 */
+	private class PipeOutputStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			BoundedPipe.this.write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			BoundedPipe.this.write(b, off, len);
+		}
+
+		@Override
+		public void close() {
+			closeWriter();
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+/**
+ * A search for a pattern in a range of bytes, so text can be searched in
+ * the buffer it was read into, without decoding it first.
+ */
+public interface ByteSearch {
+
+	/**
+	 * find the first occurrence in buffer[from, to)
+	 *
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 *
+	 * @return offset of the first byte of the occurrence, -1 if there is none
+	 */
+	int indexIn(byte[] buffer, int from, int to);
+}
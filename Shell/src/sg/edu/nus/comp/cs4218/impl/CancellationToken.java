@@ -0,0 +1,51 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+/**
+ * A flag shared between the shell and a running tool. The shell cancels the
+ * token, for example on "Ctrl-Z", and the tool checks it in its loops and
+ * stops at the next line, leaving files and streams in a clean state.
+ */
+public class CancellationToken {
+
+	/**
+	 * a token that is never cancelled, used by tools executed directly
+	 */
+	public static final CancellationToken NONE = new CancellationToken() {
+		@Override
+		public void cancel() {
+			// nobody owns this token, so nobody may cancel it
+		}
+	};
+
+	private volatile boolean cancelled = false;
+	private volatile long cancelTime = 0;
+
+	/**
+	 * request the tool to stop
+	 */
+	public void cancel() {
+		if (!cancelled) {
+			cancelTime = System.nanoTime();
+			cancelled = true;
+		}
+	}
+
+	/**
+	 * check whether the tool was requested to stop
+	 *
+	 * @return boolean
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * get the time cancel() was first called, to measure how long the tool
+	 * takes to stop
+	 *
+	 * @return System.nanoTime() of the cancellation, 0 if not cancelled
+	 */
+	public long getCancelTime() {
+		return cancelTime;
+	}
+}
@@ -0,0 +1,111 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.IToolFactory;
+import sg.edu.nus.comp.cs4218.impl.parser.CommandLineParser;
+import sg.edu.nus.comp.cs4218.impl.parser.CommandLineTool;
+import sg.edu.nus.comp.cs4218.impl.parser.Node;
+
+/**
+ * A command line split into its command and arguments, with the factory of
+ * the command already looked up. A line with ";", "&&", "||" or a
+ * redirection is parsed into a tree instead, which a {@link CommandLineTool}
+ * executes. Plans are immutable, so one plan can be cached and executed any
+ * number of times; every execution gets a new tool.
+ */
+public final class CommandPlan {
+
+	private final String command;
+	private final String[] arguments;
+	private final IToolFactory factory;
+	private final Node root;
+
+	/**
+	 * initialize a plan
+	 *
+	 * @param command command name as typed
+	 * @param arguments arguments of the command, copied
+	 * @param factory factory of the command, null if the command does not exist
+	 */
+	public CommandPlan(String command, List<String> arguments, IToolFactory factory) {
+		this.command = command;
+		this.arguments = arguments.toArray(new String[arguments.size()]);
+		this.factory = factory;
+		this.root = null;
+	}
+
+	/**
+	 * initialize a plan of a parsed command line
+	 *
+	 * @param commandLine the line as typed
+	 * @param root the parsed line
+	 */
+	public CommandPlan(String commandLine, Node root) {
+		this.command = commandLine;
+		this.arguments = new String[0];
+		this.factory = null;
+		this.root = root;
+	}
+
+	/**
+	 * split a command line and look up its command
+	 *
+	 * @param commandLine
+	 *
+	 * @return CommandPlan
+	 * @throws IllegalArgumentException if the line cannot be split or parsed
+	 */
+	public static CommandPlan parse(String commandLine) throws IllegalArgumentException {
+		ArrayList<String> params = new ArrayList<String>();
+		ArgList.splitWords(commandLine, params);
+
+		if (CommandLineParser.hasOperator(params)) {
+			return new CommandPlan(commandLine, CommandLineParser.parse(params));
+		}
+
+		String cmd = ArgList.commandOf(params);
+
+		return new CommandPlan(cmd, params, ToolRegistry.get().getFactory(cmd));
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return a copy of the arguments
+	 */
+	public String[] getArguments() {
+		return arguments.clone();
+	}
+
+	/**
+	 * @return false if the command does not exist
+	 */
+	public boolean isFound() {
+		return factory != null || root != null;
+	}
+
+	/**
+	 * @return the parsed line, null if the line is a single command
+	 */
+	public Node getRoot() {
+		return root;
+	}
+
+	/**
+	 * create a new tool for one execution of the command
+	 *
+	 * @return ITool, null if the command does not exist
+	 */
+	public ITool createTool() {
+		if (root != null) {
+			return new CommandLineTool(root);
+		}
+
+		return factory == null ? null : factory.create(arguments.clone());
+	}
+}
@@ -0,0 +1,268 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Finds the first byte at which two files differ. Both files are read in
+ * large chunks into direct buffers, and each pair of chunks is compared in
+ * bulk; only a chunk pair that differs is searched for the exact byte, eight
+ * bytes at a time. Files larger than {@link #PARALLEL_THRESHOLD} can be split
+ * into regions compared at the same time on the {@link ToolExecutor}, which
+ * helps on storage that serves several reads at once.
+ */
+public final class FileComparison {
+
+	/**
+	 * result of a comparison of two files with the same content
+	 */
+	public static final long IDENTICAL = -1;
+
+	/**
+	 * files at least this large are compared in parallel regions
+	 */
+	public static final long PARALLEL_THRESHOLD = 256L * 1024 * 1024;
+
+	private static final int CHUNK_SIZE = 1024 * 1024;
+	private static final long MIN_REGION_SIZE = 64L * 1024 * 1024;
+
+	private FileComparison() {
+	}
+
+	/**
+	 * find the first difference of two files, in parallel regions if they
+	 * are large
+	 *
+	 * @see #findFirstDifference(File, File, boolean, CancellationToken)
+	 */
+	public static long findFirstDifference(File first, File second) throws IOException {
+		return findFirstDifference(first, second, true, CancellationToken.NONE);
+	}
+
+	/**
+	 * find the first difference of two files
+	 *
+	 * @param first
+	 * @param second
+	 * @param parallel whether files over PARALLEL_THRESHOLD may be compared in
+	 *            parallel regions
+	 * @param token stops the comparison when cancelled
+	 *
+	 * @return offset of the first differing byte, the size of the shorter
+	 *         file if it is a prefix of the other, or IDENTICAL
+	 * @throws IOException when either file cannot be read, or the comparison
+	 *             was cancelled
+	 */
+	public static long findFirstDifference(File first, File second,
+			boolean parallel, CancellationToken token) throws IOException {
+		FileChannel a = FileChannel.open(first.toPath(), StandardOpenOption.READ);
+
+		try {
+			FileChannel b = FileChannel.open(second.toPath(), StandardOpenOption.READ);
+
+			try {
+				long common = Math.min(a.size(), b.size());
+				long difference = common >= PARALLEL_THRESHOLD && parallel
+						? compareParallel(a, b, common, token)
+						: compareRegion(a, b, 0, common, token);
+
+				if (difference == IDENTICAL && a.size() != b.size()) {
+					difference = common;
+				}
+
+				return difference;
+			} finally {
+				b.close();
+			}
+		} finally {
+			a.close();
+		}
+	}
+
+	/**
+	 * count the line feeds before an offset of a file
+	 *
+	 * @param file
+	 * @param end offset, bytes before it are counted
+	 *
+	 * @return number of '\n' bytes in [0, end)
+	 */
+	public static long countLines(File file, long end) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+			long lines = 0;
+			long position = 0;
+
+			while (position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(CHUNK_SIZE, end - position));
+
+				int read = fill(channel, buffer, position);
+
+				if (read == 0) {
+					break;
+				}
+
+				for (int i = 0; i < read; i++) {
+					if (buffer.get(i) == '\n') {
+						lines++;
+					}
+				}
+
+				position += read;
+			}
+
+			return lines;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * compare equal parts of the common length at the same time; the first
+	 * region with a difference decides, later regions are cancelled
+	 */
+	private static long compareParallel(final FileChannel a, final FileChannel b,
+			long length, final CancellationToken token) throws IOException {
+		int regions = (int) Math.max(1, Math.min(
+				Runtime.getRuntime().availableProcessors(), length / MIN_REGION_SIZE));
+		long regionSize = (length + regions - 1) / regions;
+		List<FutureTask<Long>> results = new ArrayList<FutureTask<Long>>(regions);
+
+		for (long start = 0; start < length; start += regionSize) {
+			final long from = start;
+			final long to = Math.min(length, start + regionSize);
+
+			FutureTask<Long> region = new FutureTask<Long>(new Callable<Long>() {
+				@Override
+				public Long call() throws IOException {
+					return compareRegion(a, b, from, to, token);
+				}
+			});
+
+			results.add(region);
+			ToolExecutor.get().submit(region);
+		}
+
+		try {
+			for (Future<Long> result : results) {
+				long difference = result.get();
+
+				if (difference != IDENTICAL) {
+					return difference;
+				}
+			}
+
+			return IDENTICAL;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Error: Comparison interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw new IOException("Error: " + e.getCause().getMessage());
+		} finally {
+			for (Future<Long> result : results) {
+				result.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * compare the bytes [from, to) of both files, with positional reads so
+	 * regions can be compared concurrently on the same channels
+	 */
+	private static long compareRegion(FileChannel a, FileChannel b, long from,
+			long to, CancellationToken token) throws IOException {
+		ByteBuffer bufferA = ByteBuffer.allocateDirect(CHUNK_SIZE);
+		ByteBuffer bufferB = ByteBuffer.allocateDirect(CHUNK_SIZE);
+		long position = from;
+
+		while (position < to) {
+			if (token.isCancelled()) {
+				throw new IOException("Error: Comparison cancelled");
+			}
+
+			int length = (int) Math.min(CHUNK_SIZE, to - position);
+
+			bufferA.clear();
+			bufferA.limit(length);
+			bufferB.clear();
+			bufferB.limit(length);
+
+			// a file that shrank while being compared ends early
+			int read = Math.min(fill(a, bufferA, position), fill(b, bufferB, position));
+
+			if (read == 0) {
+				return position;
+			}
+
+			bufferA.position(0).limit(read);
+			bufferB.position(0).limit(read);
+
+			if (!bufferA.equals(bufferB)) {
+				return position + mismatch(bufferA, bufferB, read);
+			}
+
+			position += read;
+		}
+
+		return IDENTICAL;
+	}
+
+	/**
+	 * find the first differing byte of two buffers known to differ
+	 */
+	private static int mismatch(ByteBuffer a, ByteBuffer b, int length) {
+		int i = 0;
+
+		for (; i + 8 <= length; i += 8) {
+			if (a.getLong(i) != b.getLong(i)) {
+				break;
+			}
+		}
+
+		for (; i < length; i++) {
+			if (a.get(i) != b.get(i)) {
+				return i;
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * read from position until the buffer is full or the file ends
+	 *
+	 * @return number of bytes read
+	 */
+	private static int fill(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		int total = 0;
+
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + total);
+
+			if (read < 0) {
+				break;
+			}
+
+			total += read;
+		}
+
+		return total;
+	}
+}
@@ -0,0 +1,394 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the content of recently read files, so tools run again and again
+ * on the same files during a session do not read and decode them every time.
+ * A file is kept as the String of {@link #getContent(File)}, the lines of
+ * {@link #getLines(File)} or the raw bytes of {@link #getBytes(File)}, each
+ * form read the first time it is asked for; the bytes serve the tools
+ * reading files line by line through {@link LineSource#open(File)}.
+ *
+ * Entries are keyed on the canonical path and are only used while the size
+ * and the modification time of the file are unchanged, so a file written in
+ * the meantime is read again. The cache is bounded by the approximate number
+ * of bytes its Strings and arrays take on the heap; the least recently used files are
+ * dropped first, and a file larger than a quarter of the bound is never
+ * cached.
+ *
+ * The bound of the shared cache is set in bytes with the system property
+ * "shell.filecache.size" (default 64 MB, 0 disables caching).
+ */
+public class FileContentCache {
+
+	public static final String SIZE_PROPERTY = "shell.filecache.size";
+	public static final long DEFAULT_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * approximate heap bytes of a String besides its chars
+	 */
+	private static final int STRING_OVERHEAD = 48;
+
+	private static FileContentCache instance = null;
+
+	private final long capacity;
+	private final LinkedHashMap<String, Entry> entries;
+	private long weight = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long invalidations = 0;
+
+	/**
+	 * initialize a cache
+	 *
+	 * @param capacity maximum number of bytes kept, 0 to keep none
+	 */
+	public FileContentCache(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Error: Invalid cache size " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	}
+
+	/**
+	 * get the shared cache, creating it from the system property on first use
+	 *
+	 * @return FileContentCache
+	 */
+	public synchronized static FileContentCache get() {
+		if (instance == null) {
+			instance = new FileContentCache(Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE));
+		}
+
+		return instance;
+	}
+
+	/**
+	 * get the content of a file, reading it on a miss
+	 *
+	 * @param file an existing file, not a directory
+	 *
+	 * @return the content of the file, store in one String
+	 * @throws IOException when reading encounters any problem
+	 */
+	public String getContent(File file) throws IOException {
+		Entry entry = lookup(file, false);
+
+		return entry == null ? FileUtils.readFileContentHelper(file) : contentOf(entry, file);
+	}
+
+	/**
+	 * get the bytes of a file if it is small enough to be cached, reading it
+	 * on a miss. The array is shared and must not be modified.
+	 *
+	 * @param file an existing file, not a directory
+	 *
+	 * @return the bytes of the file, null if the file is not to be cached
+	 * @throws IOException when reading encounters any problem
+	 */
+	public byte[] getBytes(File file) throws IOException {
+		Entry entry = lookup(file, true);
+
+		if (entry == null) {
+			return null;
+		}
+
+		byte[] bytes = entry.bytes;
+
+		if (bytes == null) {
+			bytes = Files.readAllBytes(file.toPath());
+
+			synchronized (this) {
+				if (entry.bytes == null && entries.get(entry.key) == entry) {
+					entry.bytes = bytes;
+					grow(entry, bytesWeight(bytes));
+				}
+			}
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * get the lines of a file, reading it on a miss
+	 *
+	 * @param file an existing file, not a directory
+	 *
+	 * @return the lines of the file, a new array on every call
+	 * @throws IOException when reading encounters any problem
+	 */
+	public String[] getLines(File file) throws IOException {
+		Entry entry = lookup(file, false);
+
+		if (entry == null) {
+			return FileUtils.readFileLinesHelper(file);
+		}
+
+		String[] lines = entry.lines;
+
+		if (lines == null) {
+			lines = splitLines(contentOf(entry, file));
+
+			synchronized (this) {
+				if (entry.lines == null && entries.get(entry.key) == entry) {
+					entry.lines = lines;
+					grow(entry, lineWeight(lines));
+				}
+			}
+		}
+
+		return lines.clone();
+	}
+
+	/**
+	 * get the content of an entry, reading it if the entry only has the bytes
+	 */
+	private String contentOf(Entry entry, File file) throws IOException {
+		String content = entry.content;
+
+		if (content == null) {
+			content = FileUtils.readFileContentHelper(file);
+
+			synchronized (this) {
+				if (entry.content == null && entries.get(entry.key) == entry) {
+					entry.content = content;
+					grow(entry, contentWeight(content));
+				}
+			}
+		}
+
+		return content;
+	}
+
+	/**
+	 * find the valid entry of a file, reading the file into a new entry on a
+	 * miss
+	 *
+	 * @param bytes whether a new entry is read as bytes rather than a String
+	 *
+	 * @return Entry, null if the file is not to be cached
+	 */
+	private Entry lookup(File file, boolean bytes) throws IOException {
+		if (capacity == 0) {
+			return null;
+		}
+
+		String key = file.getCanonicalPath();
+		BasicFileAttributes attributes = Files.readAttributes(file.toPath(),
+				BasicFileAttributes.class);
+		long size = attributes.size();
+		FileTime modified = attributes.lastModifiedTime();
+
+		synchronized (this) {
+			Entry entry = entries.get(key);
+
+			if (entry != null) {
+				if (entry.size == size && entry.modified.equals(modified)) {
+					hits++;
+					return entry;
+				}
+
+				// the file changed since it was read
+				remove(key);
+				invalidations++;
+			}
+
+			misses++;
+		}
+
+		if (size * 2 > getMaxEntryWeight()) {
+			return null;
+		}
+
+		// read outside the lock, a concurrent miss on the same file is harmless
+		Entry entry = new Entry(key, size, modified);
+
+		if (bytes) {
+			entry.bytes = Files.readAllBytes(file.toPath());
+			entry.weight = bytesWeight(entry.bytes);
+		} else {
+			entry.content = FileUtils.readFileContentHelper(file);
+			entry.weight = contentWeight(entry.content);
+		}
+
+		synchronized (this) {
+			remove(key);
+			entries.put(key, entry);
+			weight += entry.weight;
+			evict();
+		}
+
+		return entry;
+	}
+
+	/**
+	 * drop the entry of a file
+	 *
+	 * @param file
+	 */
+	public void invalidate(File file) throws IOException {
+		String key = file.getCanonicalPath();
+
+		synchronized (this) {
+			if (remove(key)) {
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * drop all entries
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * add another form of a file to its entry
+	 */
+	private void grow(Entry entry, long added) {
+		entry.weight += added;
+		weight += added;
+		evict();
+	}
+
+	/**
+	 * drop the least recently used entries until the cache fits its bound
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+
+		while (weight > capacity && eldest.hasNext()) {
+			weight -= eldest.next().getValue().weight;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	private boolean remove(String key) {
+		Entry entry = entries.remove(key);
+
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+
+		return entry != null;
+	}
+
+	private static String[] splitLines(String content) throws IOException {
+		BufferedReader br = new BufferedReader(new StringReader(content));
+		ArrayList<String> lines = new ArrayList<String>();
+
+		String line;
+		while ((line = br.readLine()) != null) {
+			lines.add(line);
+		}
+
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	private static long contentWeight(String content) {
+		return 2L * content.length() + STRING_OVERHEAD;
+	}
+
+	private static long bytesWeight(byte[] bytes) {
+		return bytes.length + STRING_OVERHEAD;
+	}
+
+	private static long lineWeight(String[] lines) {
+		long total = 0;
+
+		for (String line : lines) {
+			total += 2L * line.length() + STRING_OVERHEAD;
+		}
+
+		return total;
+	}
+
+	/**
+	 * @return the largest approximate size in bytes of a file kept
+	 */
+	public long getMaxEntryWeight() {
+		return capacity / 4;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return approximate number of bytes kept
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return hits / (hits + misses), 0 before the first lookup
+	 */
+	public synchronized double getHitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("files=%d bytes=%d/%d hits=%d misses=%d hit rate=%.1f%% "
+				+ "evictions=%d invalidations=%d", entries.size(), weight, capacity,
+				hits, misses, getHitRate() * 100, evictions, invalidations);
+	}
+
+	/**
+	 * the content of one file as it was when read, in the forms asked for so
+	 * far
+	 */
+	private static class Entry {
+		private final String key;
+		private final long size;
+		private final FileTime modified;
+		private String content = null;
+		private String[] lines = null;
+		private byte[] bytes = null;
+		private long weight = 0;
+
+		public Entry(String key, long size, FileTime modified) {
+			this.key = key;
+			this.size = size;
+			this.modified = modified;
+		}
+	}
+}
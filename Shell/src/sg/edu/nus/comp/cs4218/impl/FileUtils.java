@@ -1,18 +1,26 @@
 package sg.edu.nus.comp.cs4218.impl;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.FileSystemException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class FileUtils {
+	/**
+	 * Size of the buffer used when copying streams.
+	 */
+	private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * This function is used to read in an entire file given the file is a valid
 	 * file and stored the content in a String.
@@ -24,13 +32,14 @@ public class FileUtils {
 	 * @throws IOException
 	 * 		when reading encounters any problem.
 	 */
-	private static String readFileContentHelper(File file) throws IOException {
+	static String readFileContentHelper(File file) throws IOException {
 		StringBuilder sb = new StringBuilder();
 		BufferedReader br = new BufferedReader(new FileReader(file));
+		char[] buffer = new char[STREAM_BUFFER_SIZE];
 
-		int ch;
-		while ((ch = br.read()) != -1) {
-			sb.append((char) ch);
+		int read;
+		while ((read = br.read(buffer)) != -1) {
+			sb.append(buffer, 0, read);
 		}
 
 		br.close();
@@ -41,7 +50,8 @@ public class FileUtils {
 	/**
 	 * This function is used to read in an entire file and store it in a String.
 	 * If the file does not exist or the file is a directory instead of a
-	 * readable file, corresponding error messages will be returned. 
+	 * readable file, corresponding error messages will be returned. The
+	 * content of files read recently comes from the {@link FileContentCache}.
 	 * 
 	 * @param file
 	 * 		is the target file that is going to be read.
@@ -59,7 +69,7 @@ public class FileUtils {
 			throw new FileSystemException("Error: " + file.getName() + " is a directory");
 		}
 
-		return readFileContentHelper(file);
+		return FileContentCache.get().getContent(file);
 	}
 
 	/**
@@ -73,7 +83,7 @@ public class FileUtils {
 	 * @throws IOException
 	 * 		when reading encounters any problem.
 	 */
-	private static String[] readFileLinesHelper(File file) throws IOException {
+	static String[] readFileLinesHelper(File file) throws IOException {
 		ArrayList<String> lines = new ArrayList<String>();
 		BufferedReader br = new BufferedReader(new FileReader(file));
 
@@ -108,11 +118,82 @@ public class FileUtils {
 			throw new FileSystemException("Error: " + file.getName() + " is a directory");
 		}
 
-		return readFileLinesHelper(file);
+		return FileContentCache.get().getLines(file);
 	}
 	
 	/**
-	 * This function is used to tell if two files are identical.
+	 * This function is used to read a whole stream and store the content in a
+	 * String. The stream is decoded with {@link ATool#CHARSET}.
+	 * 
+	 * @param input
+	 * 		is the stream that is going to be read.
+	 * @return
+	 * 		the content of the stream, store in one String.
+	 * @throws IOException
+	 * 		when reading encounters any problem.
+	 */
+	public static String readStreamContent(InputStream input) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		copyStream(input, content);
+
+		return new String(content.toByteArray(), ATool.CHARSET);
+	}
+
+	/**
+	 * This function is used to copy everything left in a stream to another
+	 * stream, one buffer at a time. Neither stream is closed.
+	 * 
+	 * @param input
+	 * 		is the stream that is going to be read.
+	 * @param output
+	 * 		is the stream that receives the content.
+	 * @return
+	 * 		the number of bytes copied.
+	 * @throws IOException
+	 * 		when reading or writing encounters any problem.
+	 */
+	public static long copyStream(InputStream input, OutputStream output) throws IOException {
+		byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+		long total = 0;
+
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+			total += read;
+		}
+
+		return total;
+	}
+
+	/**
+	 * This function is used to open a file for streaming. If the file does not
+	 * exist or the file is a directory instead of a readable file,
+	 * corresponding error messages will be returned, the same way as
+	 * {@link #readFileContent(File)} does.
+	 * 
+	 * @param file
+	 * 		is the target file that is going to be read.
+	 * @return
+	 * 		a stream over the content of the file. The caller closes it.
+	 * @throws IOException
+	 * 		when the file cannot be opened.
+	 * @throws RuntimeException
+	 * 		when file does not exist or the file is a directory.
+	 */
+	public static InputStream openFileStream(File file) throws IOException, RuntimeException {
+		if (file == null || !file.exists()){
+			throw new FileNotFoundException("Error: No such file or directory");
+		} else if (file.isDirectory()) {
+			throw new FileSystemException("Error: " + file.getName() + " is a directory");
+		}
+
+		return new FileInputStream(file);
+	}
+
+	/**
+	 * This function is used to tell if two files are identical. Files of
+	 * different sizes are told apart without reading them; otherwise the
+	 * content is compared in bulk by {@link FileComparison}.
 	 * 
 	 * @param origin
 	 * 		is the origin file under comparison.
@@ -124,37 +205,15 @@ public class FileUtils {
 	 * 		when either of the file is not readable.
 	 */
 	public static boolean diffTwoFiles(File origin, File other) throws IOException {
-		boolean compareResult = true; 
-		
 		if (!origin.exists() || !other.exists()) {
 			throw new FileNotFoundException();
 		}
 		
-		BufferedInputStream originInput = new BufferedInputStream(new FileInputStream(origin));
-		BufferedInputStream otherInput = new BufferedInputStream(new FileInputStream(other));
-		
-		boolean finish = false;
-		
-		int originRead = -1;
-		int otherRead = -1;
-		
-		while (!finish) {
-			originRead = originInput.read();
-			otherRead = otherInput.read();
-			
-			if (originRead == -1 && otherRead == -1) {
-				finish = true;
-			}
-			
-			if (originRead != otherRead) {
-				compareResult = false;
-			}
+		if (origin.length() != other.length()) {
+			return false;
 		}
 		
-		originInput.close();
-		otherInput.close();
-				
-		return compareResult;
+		return FileComparison.findFirstDifference(origin, other) == FileComparison.IDENTICAL;
 	}
 	
 	/**
@@ -174,9 +233,11 @@ public class FileUtils {
 		}
 		
 		BufferedWriter output = new BufferedWriter(new FileWriter(file));
+		char[] block = new char[Math.min(length, STREAM_BUFFER_SIZE)];
+		Arrays.fill(block, '0');
 		
-		for (int i = 0; i < length; i ++) {
-			output.write(48);
+		for (int written = 0; written < length; written += block.length) {
+			output.write(block, 0, Math.min(block.length, length - written));
 		}
 		
 		output.close();
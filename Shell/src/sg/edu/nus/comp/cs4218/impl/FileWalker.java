@@ -0,0 +1,299 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Walks a directory tree and returns the paths of its regular files,
+ * relative to the root. The order is always the same: the entries of a
+ * directory sorted by name, and the files under a directory right after it,
+ * as "ls -R" lists them.
+ *
+ * Listing a directory and finding out which of its entries are directories
+ * takes a system call per entry, so the walk lists the next directories on
+ * the {@link ToolExecutor} while the files found so far are being used. At
+ * most {@link #LOOKAHEAD} directories of each directory being walked are
+ * listed ahead, which keeps the memory of a walk over a large tree small.
+ *
+ * Symbolic links are not followed, so a walk never loops. A directory that
+ * cannot be read is skipped and its path is kept in {@link #getErrors()}.
+ */
+public class FileWalker implements Iterator<String> {
+
+	public static final int LOOKAHEAD = 16;
+
+	private final File root;
+	private final List<PathMatcher> includes = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> excludes = new ArrayList<PathMatcher>();
+	private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+	private final Deque<Frame> stack = new ArrayDeque<Frame>();
+	private String next = null;
+
+	/**
+	 * walk all the files under a directory
+	 *
+	 * @param root
+	 */
+	public FileWalker(File root) {
+		this(root, Collections.<String> emptyList(), Collections.<String> emptyList());
+	}
+
+	/**
+	 * walk the files under a directory whose names match the include globs,
+	 * if any, and skip the files and directories whose names match an
+	 * exclude glob
+	 *
+	 * @param root
+	 * @param includes globs, e.g. "*.java", matched against file names
+	 * @param excludes globs matched against file and directory names
+	 * @throws IllegalArgumentException if a glob is not valid
+	 */
+	public FileWalker(File root, List<String> includes, List<String> excludes) {
+		FileSystem fileSystem = FileSystems.getDefault();
+
+		for (String glob : includes) {
+			this.includes.add(fileSystem.getPathMatcher("glob:" + glob));
+		}
+
+		for (String glob : excludes) {
+			this.excludes.add(fileSystem.getPathMatcher("glob:" + glob));
+		}
+
+		this.root = root;
+
+		Frame top = list("");
+		top.listAhead();
+		stack.push(top);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = advance();
+		}
+
+		return next != null;
+	}
+
+	/**
+	 * @return path of the next file relative to the root, with
+	 *         File.separator between names
+	 */
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		String path = next;
+		next = null;
+
+		return path;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return paths of the directories that could not be read
+	 */
+	public List<String> getErrors() {
+		synchronized (errors) {
+			return new ArrayList<String>(errors);
+		}
+	}
+
+	/**
+	 * find the next file, going into and out of directories
+	 *
+	 * @return path, null after the last file
+	 */
+	private String advance() {
+		while (!stack.isEmpty()) {
+			Frame top = stack.peek();
+
+			if (top.index == top.names.length) {
+				stack.pop();
+				continue;
+			}
+
+			int i = top.index++;
+
+			if (!top.directories[i]) {
+				return top.path + top.names[i];
+			}
+
+			top.listAhead();
+
+			FutureTask<Frame> child = top.children[i];
+			top.children[i] = null;
+			top.listed--;
+
+			Frame frame = await(child);
+			frame.listAhead();
+			stack.push(frame);
+		}
+
+		return null;
+	}
+
+	private static Frame await(FutureTask<Frame> child) {
+		try {
+			return child.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Error: Walk interrupted");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error: " + e.getCause().getMessage());
+		}
+	}
+
+	/**
+	 * list a directory, sorting its entries and finding out which are
+	 * directories
+	 *
+	 * @param path relative to the root, "" or ending with File.separator
+	 *
+	 * @return Frame, without entries if the directory cannot be read
+	 */
+	private Frame list(String path) {
+		List<String> names = new ArrayList<String>();
+		Path directory = new File(root, path).toPath();
+
+		try {
+			DirectoryStream<Path> entries = Files.newDirectoryStream(directory);
+
+			try {
+				for (Path entry : entries) {
+					names.add(entry.getFileName().toString());
+				}
+			} finally {
+				entries.close();
+			}
+		} catch (IOException e) {
+			errors.add(new File(root, path).getPath());
+			names.clear();
+		} catch (RuntimeException e) {
+			// an error while iterating is wrapped in DirectoryIteratorException
+			errors.add(new File(root, path).getPath());
+			names.clear();
+		}
+
+		Collections.sort(names);
+
+		List<String> kept = new ArrayList<String>(names.size());
+		List<Boolean> directories = new ArrayList<Boolean>(names.size());
+
+		for (String name : names) {
+			Path entry = directory.resolve(name);
+			Path fileName = entry.getFileName();
+			BasicFileAttributes attributes;
+
+			try {
+				attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+						LinkOption.NOFOLLOW_LINKS);
+			} catch (IOException e) {
+				// removed since it was listed
+				continue;
+			}
+
+			if (matchesAny(excludes, fileName)) {
+				continue;
+			}
+
+			if (attributes.isDirectory()) {
+				kept.add(name);
+				directories.add(true);
+			} else if (attributes.isRegularFile()
+					&& (includes.isEmpty() || matchesAny(includes, fileName))) {
+				kept.add(name);
+				directories.add(false);
+			}
+		}
+
+		return new Frame(path, kept, directories);
+	}
+
+	private static boolean matchesAny(List<PathMatcher> matchers, Path name) {
+		for (PathMatcher matcher : matchers) {
+			if (matcher.matches(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * the sorted entries of a directory being walked
+	 */
+	private class Frame {
+		private final String path;
+		private final String[] names;
+		private final boolean[] directories;
+		private final FutureTask<Frame>[] children;
+		private int index = 0;
+
+		/* entries before this have been looked at for directories to list */
+		private int scanned = 0;
+
+		/* directories listed ahead and not walked yet */
+		private int listed = 0;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public Frame(String path, List<String> names, List<Boolean> directories) {
+			this.path = path;
+			this.names = names.toArray(new String[names.size()]);
+			this.directories = new boolean[names.size()];
+			this.children = new FutureTask[names.size()];
+
+			for (int i = 0; i < this.directories.length; i++) {
+				this.directories[i] = directories.get(i);
+			}
+		}
+
+		/**
+		 * start listing the next directories, up to LOOKAHEAD of them. Only
+		 * the directories being walked list ahead, not those listed ahead.
+		 */
+		public void listAhead() {
+			while (listed < LOOKAHEAD && scanned < names.length) {
+				if (directories[scanned]) {
+					final String child = path + names[scanned] + File.separator;
+
+					children[scanned] = new FutureTask<Frame>(new Callable<Frame>() {
+						@Override
+						public Frame call() {
+							return list(child);
+						}
+					});
+
+					ToolExecutor.get().submit(children[scanned]);
+					listed++;
+				}
+
+				scanned++;
+			}
+		}
+	}
+}
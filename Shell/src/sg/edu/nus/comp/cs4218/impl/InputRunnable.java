@@ -1,20 +1,60 @@
 package sg.edu.nus.comp.cs4218.impl;
 
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Reads the user input line by line into a bounded FIFO. When the FIFO is
+ * full, reading blocks until the shell takes lines out, so no line is ever
+ * lost however fast the input arrives. "Ctrl-Z" does not wait in the FIFO, it
+ * is delivered to the shell right away.
+ */
 public class InputRunnable implements Runnable {
 	
+	public static final int DEFAULT_CAPACITY = 1024;
+	
 	private Thread thread;
 	private Scanner scanner;
-	private String input;
+	private BlockingQueue<String> lines;
+	private BlockingQueue<ShellEvent> events;
+	private AtomicBoolean pending = new AtomicBoolean(false);
+	private volatile boolean ended = false;
 
 	/**
 	 * initialize an input runnable
 	 */
 	public InputRunnable() {
-		thread = new Thread(this);
-		scanner = new Scanner(System.in);
-		input = null;
+		this(System.in, null);
+	}
+
+	/**
+	 * initialize an input runnable that notifies an event queue about new lines
+	 * 
+	 * @param in the stream lines are read from
+	 * @param events the queue receiving the events, can be null
+	 */
+	public InputRunnable(InputStream in, BlockingQueue<ShellEvent> events) {
+		this(in, events, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize an input runnable
+	 * 
+	 * @param in the stream lines are read from
+	 * @param events the queue receiving the events, can be null
+	 * @param capacity number of lines buffered before reading blocks
+	 */
+	public InputRunnable(InputStream in, BlockingQueue<ShellEvent> events, int capacity) {
+		thread = new Thread(this, "input");
+		thread.setDaemon(true);
+		scanner = new Scanner(in);
+		lines = new ArrayBlockingQueue<String>(capacity);
+		this.events = events;
 	}
 
 	/**
@@ -22,8 +62,36 @@ public class InputRunnable implements Runnable {
 	 */
 	@Override
 	public void run() {
-		while (true) {
-			set(scanner.nextLine());
+		try {
+			while (true) {
+				String line = scanner.nextLine();
+				
+				if (line.equalsIgnoreCase("Ctrl-Z") && events != null) {
+					events.add(ShellEvent.interrupt());
+				} else {
+					lines.put(line);
+					signal();
+				}
+			}
+		} catch (NoSuchElementException e) {
+			// stdin was closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		ended = true;
+		
+		if (events != null) {
+			events.add(ShellEvent.endOfInput());
+		}
+	}
+	
+	/**
+	 * post one INPUT event for any number of lines added until the next drain
+	 */
+	private void signal() {
+		if (events != null && pending.compareAndSet(false, true)) {
+			events.add(ShellEvent.input());
 		}
 	}
 	
@@ -35,23 +103,45 @@ public class InputRunnable implements Runnable {
 	}
 	
 	/**
-	 * set the last input line
+	 * get the oldest input line without waiting
+	 * 
+	 * @return oldest line, null if there is none
+	 */
+	public String get() {
+		return lines.poll();
+	}
+	
+	/**
+	 * wait for the oldest input line
+	 * 
+	 * @return oldest line
+	 */
+	public String take() throws InterruptedException {
+		return lines.take();
+	}
+	
+	/**
+	 * move queued lines, oldest first, into a collection without waiting
+	 * 
+	 * @param target collection receiving the lines
+	 * @param max maximum number of lines to move
 	 * 
-	 * @param line
+	 * @return number of lines moved
 	 */
-	private synchronized void set(String line) {
-		input = line;
+	public int drain(Collection<String> target, int max) {
+		// reset before draining, a line added afterwards posts a new event
+		pending.set(false);
+		
+		return lines.drainTo(target, max);
 	}
 	
 	/**
-	 * get the last input line
+	 * check whether all the input has been read and taken
 	 * 
-	 * @return last line
+	 * @return boolean
 	 */
-	public synchronized String get() {
-		String in = input;
-		input = null;
-		return in;
+	public boolean isExhausted() {
+		return ended && lines.isEmpty();
 	}
 	
 }
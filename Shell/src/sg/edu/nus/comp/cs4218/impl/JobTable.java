@@ -0,0 +1,154 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The commands the shell runs in the background, started with a trailing "&".
+ * Every job gets a number, one more than the highest number in use, and keeps
+ * it until it finishes or is killed. Jobs are referred to as "%n".
+ */
+public class JobTable {
+
+	/**
+	 * a command running in the background
+	 */
+	public static class Job {
+		private final int id;
+		private final String commandLine;
+		private final ToolRunnable runnable;
+
+		public Job(int id, String commandLine, ToolRunnable runnable) {
+			this.id = id;
+			this.commandLine = commandLine;
+			this.runnable = runnable;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public String getCommandLine() {
+			return commandLine;
+		}
+
+		public ToolRunnable getRunnable() {
+			return runnable;
+		}
+
+		/**
+		 * describe the job as "[n] state command"
+		 *
+		 * @param state e.g. "Running" or "Done"
+		 *
+		 * @return String
+		 */
+		public String describe(String state) {
+			return String.format("[%d] %-10s %s", id, state, commandLine);
+		}
+	}
+
+	private final TreeMap<Integer, Job> jobs = new TreeMap<Integer, Job>();
+
+	/**
+	 * add a job
+	 *
+	 * @param commandLine command line the job was started with, without "&"
+	 * @param runnable execution of the command
+	 *
+	 * @return the new job
+	 */
+	public synchronized Job add(String commandLine, ToolRunnable runnable) {
+		int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
+		Job job = new Job(id, commandLine, runnable);
+
+		jobs.put(id, job);
+
+		return job;
+	}
+
+	/**
+	 * get a job by number
+	 *
+	 * @param id
+	 *
+	 * @return Job, null if there is no such job
+	 */
+	public synchronized Job get(int id) {
+		return jobs.get(id);
+	}
+
+	/**
+	 * get the most recently started job
+	 *
+	 * @return Job, null if there are no jobs
+	 */
+	public synchronized Job last() {
+		return jobs.isEmpty() ? null : jobs.lastEntry().getValue();
+	}
+
+	/**
+	 * find the job of an execution
+	 *
+	 * @param runnable
+	 *
+	 * @return Job, null if the execution is not a job
+	 */
+	public synchronized Job find(ToolRunnable runnable) {
+		for (Job job : jobs.values()) {
+			if (job.getRunnable() == runnable) {
+				return job;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * remove a job
+	 *
+	 * @param id
+	 *
+	 * @return the removed job, null if there is no such job
+	 */
+	public synchronized Job remove(int id) {
+		return jobs.remove(id);
+	}
+
+	/**
+	 * get all jobs ordered by number
+	 *
+	 * @return List of jobs
+	 */
+	public synchronized List<Job> list() {
+		return new ArrayList<Job>(jobs.values());
+	}
+
+	/**
+	 * get the number of jobs
+	 *
+	 * @return int
+	 */
+	public synchronized int size() {
+		return jobs.size();
+	}
+
+	/**
+	 * parse a job reference
+	 *
+	 * @param spec "%n" or "n"
+	 *
+	 * @return job number
+	 * @throws IllegalArgumentException if spec is not a job reference
+	 */
+	public static int parseJobId(String spec) throws IllegalArgumentException {
+		String number = spec.startsWith("%") ? spec.substring(1) : spec;
+
+		try {
+			return Integer.parseInt(number);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(spec + ": no such job");
+		}
+	}
+}
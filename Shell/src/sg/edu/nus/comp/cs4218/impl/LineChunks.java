@@ -0,0 +1,176 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a file into chunks of whole lines, so the chunks can be read by
+ * {@link LineSource}s at the same time and give the same lines as reading
+ * the whole file. Every chunk but the first starts right after a "\n"; a
+ * file that has no "\n" near a cut is not cut there.
+ *
+ * A chunk can be read together with some lines before it, e.g. to know the
+ * context around its first lines, see {@link #lookback(FileChannel, long, int)}.
+ */
+public final class LineChunks {
+
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private LineChunks() {
+	}
+
+	/**
+	 * cut a file into chunks of about the same size
+	 *
+	 * @param channel
+	 * @param chunkSize bytes of a chunk before it is cut at the next "\n"
+	 *
+	 * @return offsets of the starts of the chunks followed by the size of the
+	 *         file, so chunk i is [bounds[i], bounds[i + 1])
+	 * @throws IOException when the file cannot be read
+	 */
+	public static long[] split(FileChannel channel, long chunkSize) throws IOException {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Error: Illegal chunk size " + chunkSize);
+		}
+
+		long size = channel.size();
+		List<Long> starts = new ArrayList<Long>();
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+		long start = 0;
+
+		starts.add(start);
+
+		while (size - start > chunkSize) {
+			long cut = nextLineStart(channel, block, start + chunkSize - 1, size);
+
+			if (cut >= size) {
+				break;
+			}
+
+			starts.add(cut);
+			start = cut;
+		}
+
+		long[] bounds = new long[starts.size() + 1];
+
+		for (int i = 0; i < starts.size(); i++) {
+			bounds[i] = starts.get(i);
+		}
+
+		bounds[starts.size()] = size;
+
+		return bounds;
+	}
+
+	/**
+	 * find the offset after the first "\n" at or after an offset
+	 *
+	 * @return the offset, size if there is no "\n"
+	 */
+	private static long nextLineStart(FileChannel channel, ByteBuffer block, long from,
+			long size) throws IOException {
+		long position = from;
+
+		while (position < size) {
+			int read = read(channel, block, position, size);
+
+			if (read == 0) {
+				break;
+			}
+
+			for (int i = 0; i < read; i++) {
+				if (block.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+
+			position += read;
+		}
+
+		return size;
+	}
+
+	/**
+	 * find where the lines before an offset start, counting "\n", "\r\n" and
+	 * "\r" as terminators like {@link LineSource}
+	 *
+	 * @param channel
+	 * @param start offset of the start of a line
+	 * @param lines number of lines before start
+	 *
+	 * @return offset of the first of those lines, 0 if start has fewer lines
+	 *         before it
+	 * @throws IOException when the file cannot be read
+	 */
+	public static long lookback(FileChannel channel, long start, int lines)
+			throws IOException {
+		if (lines <= 0 || start == 0) {
+			return start;
+		}
+
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+		long size = channel.size();
+		int terminators = 0;
+
+		// a "\r" only ends a line when no "\n" follows it
+		byte after = 0;
+
+		if (start < size) {
+			read(channel, block, start, start + 1);
+			after = block.get(0);
+		}
+
+		long end = start;
+
+		while (end > 0) {
+			long from = Math.max(0, end - BLOCK_SIZE);
+			int read = read(channel, block, from, end);
+
+			for (int i = read - 1; i >= 0; i--) {
+				byte b = block.get(i);
+
+				if (b == '\n' || (b == '\r' && after != '\n')) {
+					// the first terminator ends the line right before start
+					if (++terminators == lines + 1) {
+						return from + i + 1;
+					}
+				}
+
+				after = b;
+			}
+
+			end = from;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * read [from, to) of a file into the front of a block, as far as it fits
+	 *
+	 * @return number of bytes read
+	 */
+	private static int read(FileChannel channel, ByteBuffer block, long from, long to)
+			throws IOException {
+		block.clear();
+		block.limit((int) Math.min(block.capacity(), to - from));
+
+		int total = 0;
+
+		while (block.hasRemaining()) {
+			int read = channel.read(block, from + total);
+
+			if (read < 0) {
+				break;
+			}
+
+			total += read;
+		}
+
+		return total;
+	}
+}
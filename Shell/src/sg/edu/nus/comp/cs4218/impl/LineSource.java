@@ -0,0 +1,563 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads text line by line as slices of a byte buffer, the common way for
+ * the text tools to split their input.
+ *
+ * A line is the bytes from {@link #start()} to {@link #end()} of
+ * {@link #buffer()}, without its terminator; the slice is only valid until
+ * the next call of {@link #next()}. Lines end with "\n", "\r\n" or "\r",
+ * the same lines BufferedReader.readLine and {@link MappedFile} return. A
+ * line is decoded with {@link ATool#CHARSET} only when {@link #decode()} is
+ * called; a pure ASCII line can instead be read through {@link #chars()},
+ * a view of the buffer that is reused for every line, so reading ASCII text
+ * allocates nothing per line.
+ *
+ * The buffer grows to hold the longest line; a stream is read in blocks of
+ * {@link #DEFAULT_BUFFER_SIZE}.
+ */
+public class LineSource implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * bytes at the start of the input looked at by {@link #isBinary()}
+	 */
+	public static final int BINARY_CHECK_SIZE = 8 * 1024;
+
+	private final InputStream input;
+	private byte[] buffer;
+	private int limit;
+	private boolean eof;
+
+	/* offset in the input of buffer[0] */
+	private long base = 0;
+
+	private int position = 0;
+	private int start = 0;
+	private int end = 0;
+	private boolean ascii = true;
+	private boolean terminated = false;
+	private boolean skipLineFeed = false;
+	private long lineNumber = 0;
+
+	private final AsciiView view = new AsciiView();
+
+	/**
+	 * read lines from a stream
+	 *
+	 * @param input closed by {@link #close()}
+	 */
+	public LineSource(InputStream input) {
+		this(input, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * read lines from a stream
+	 *
+	 * @param input closed by {@link #close()}
+	 * @param bufferSize initial size of the buffer in bytes
+	 */
+	public LineSource(InputStream input, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Error: Illegal buffer size " + bufferSize);
+		}
+
+		this.input = input;
+		this.buffer = new byte[bufferSize];
+		this.limit = 0;
+		this.eof = false;
+	}
+
+	/**
+	 * read lines from a part of an array, which is not copied
+	 *
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 */
+	public LineSource(byte[] bytes, int offset, int length) {
+		this.input = null;
+		this.buffer = bytes;
+		this.base = -offset;
+		this.position = offset;
+		this.limit = offset + length;
+		this.eof = true;
+	}
+
+	/**
+	 * read the lines of a String, e.g. stdin
+	 *
+	 * @param text
+	 *
+	 * @return LineSource
+	 */
+	public static LineSource of(String text) {
+		byte[] bytes = text == null ? new byte[0] : text.getBytes(ATool.CHARSET);
+
+		return new LineSource(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * open a file for reading line by line. A file small enough for the
+	 * {@link FileContentCache} is read from the bytes kept there, a larger
+	 * one is streamed. If the file does not exist or the file is a
+	 * directory, the same errors as {@link FileUtils#openFileStream(File)}
+	 * are thrown.
+	 *
+	 * @param file
+	 *
+	 * @return LineSource, to be closed by the caller
+	 * @throws IOException when the file cannot be opened
+	 * @throws RuntimeException when the file does not exist or is a directory
+	 */
+	public static LineSource open(File file) throws IOException, RuntimeException {
+		InputStream input = FileUtils.openFileStream(file);
+		byte[] bytes;
+
+		try {
+			bytes = FileContentCache.get().getBytes(file);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+
+		if (bytes == null) {
+			return new LineSource(input);
+		}
+
+		input.close();
+		return new LineSource(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * read the lines of a part of a file, e.g. a chunk of {@link LineChunks}.
+	 * The channel is read with positional reads, so several parts can be read
+	 * at the same time, and is not closed by {@link #close()}.
+	 *
+	 * @param channel
+	 * @param from offset of the first byte
+	 * @param to offset after the last byte
+	 *
+	 * @return LineSource
+	 */
+	public static LineSource open(FileChannel channel, long from, long to) {
+		return new LineSource(new RegionInputStream(channel, from, to));
+	}
+
+	/**
+	 * check whether the input looks like binary data rather than text: its
+	 * first {@link #BINARY_CHECK_SIZE} bytes have a NUL byte, which text in
+	 * UTF-8 never has. Reads the first block of the input if no line has
+	 * been read yet.
+	 *
+	 * @return boolean
+	 * @throws IOException when the stream cannot be read
+	 */
+	public boolean isBinary() throws IOException {
+		if (limit == position && base == 0) {
+			fill();
+		}
+
+		int end = Math.min(limit, position + BINARY_CHECK_SIZE);
+
+		for (int i = position; i < end; i++) {
+			if (buffer[i] == 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * move to the next line
+	 *
+	 * @return false at the end of the input
+	 * @throws IOException when the stream cannot be read
+	 */
+	public boolean next() throws IOException {
+		skipPendingLineFeed();
+
+		if (position == limit && !fill()) {
+			return false;
+		}
+
+		int i = position;
+		int bits = 0;
+
+		while (true) {
+			// the scan for the terminator also tells whether the line is ASCII
+			while (i < limit) {
+				byte b = buffer[i];
+
+				if (b == '\n' || b == '\r') {
+					break;
+				}
+
+				bits |= b;
+				i++;
+			}
+
+			if (i < limit || eof) {
+				break;
+			}
+
+			// the line continues after the buffer
+			int scanned = i - position;
+			fill();
+			i = position + scanned;
+		}
+
+		start = position;
+		end = i;
+		ascii = bits >= 0;
+		terminated = i < limit;
+		lineNumber++;
+
+		if (terminated) {
+			skipLineFeed = buffer[i] == '\r';
+			position = i + 1;
+		} else {
+			position = i;
+		}
+
+		return true;
+	}
+
+	/**
+	 * move to the next line containing an occurrence of a search. The bytes
+	 * read are searched as a whole, and only the line around an occurrence
+	 * is split off; the lines skipped are still counted.
+	 *
+	 * @param search must not match "\n" or "\r"
+	 * @param token stops the search at the next refill of the buffer
+	 *
+	 * @return false at the end of the input, or when cancelled
+	 * @throws IOException when the stream cannot be read
+	 */
+	public boolean nextContaining(ByteSearch search, CancellationToken token)
+			throws IOException {
+		while (true) {
+			skipPendingLineFeed();
+
+			if (position == limit && !fill()) {
+				return false;
+			}
+
+			int hit = search.indexIn(buffer, position, limit);
+
+			if (hit >= 0) {
+				skipTo(lineStartBefore(hit));
+				return next();
+			}
+
+			if (eof) {
+				skipTo(limit);
+				return false;
+			}
+
+			// the last line may continue after the buffer, search it again
+			skipTo(lineStartBefore(limit));
+
+			if (token.isCancelled()) {
+				return false;
+			}
+
+			fill();
+		}
+	}
+
+	/**
+	 * skip "\n" after a line ended by "\r"
+	 */
+	private void skipPendingLineFeed() throws IOException {
+		if (skipLineFeed) {
+			if (position == limit) {
+				fill();
+			}
+
+			if (position < limit && buffer[position] == '\n') {
+				position++;
+			}
+
+			skipLineFeed = false;
+		}
+	}
+
+	/**
+	 * find the start of the line holding an offset, at or after position
+	 */
+	private int lineStartBefore(int offset) {
+		for (int i = offset - 1; i >= position; i--) {
+			if (buffer[i] == '\n' || buffer[i] == '\r') {
+				return i + 1;
+			}
+		}
+
+		return position;
+	}
+
+	/**
+	 * skip the whole lines in [position, to), counting them
+	 */
+	private void skipTo(int to) {
+		for (int i = position; i < to; i++) {
+			byte b = buffer[i];
+
+			if (b == '\n' || (b == '\r' && (i + 1 >= limit || buffer[i + 1] != '\n'))) {
+				lineNumber++;
+			}
+		}
+
+		if (to > position && buffer[to - 1] == '\r') {
+			skipLineFeed = true;
+		}
+
+		position = to;
+	}
+
+	/**
+	 * read more of the stream, after moving the unread bytes to the front of
+	 * the buffer and growing the buffer if it is full
+	 *
+	 * @return whether there are unread bytes
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return position < limit;
+		}
+
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			base += position;
+			limit -= position;
+			position = 0;
+		}
+
+		if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+
+		int read = input.read(buffer, limit, buffer.length - limit);
+
+		if (read < 0) {
+			eof = true;
+		} else {
+			limit += read;
+		}
+
+		return position < limit;
+	}
+
+	/**
+	 * @return the buffer holding the current line
+	 */
+	public byte[] buffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return offset of the current line in the buffer
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return offset after the current line, before its terminator
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * @return length of the current line in bytes
+	 */
+	public int length() {
+		return end - start;
+	}
+
+	/**
+	 * @return whether the current line only has ASCII bytes
+	 */
+	public boolean isAscii() {
+		return ascii;
+	}
+
+	/**
+	 * @return whether the current line ends with a terminator, false only for
+	 *         a last line without one
+	 */
+	public boolean isTerminated() {
+		return terminated;
+	}
+
+	/**
+	 * @return offset of the current line from the start of the input, in
+	 *         bytes
+	 */
+	public long getOffset() {
+		return base + start;
+	}
+
+	/**
+	 * @return number of the current line, 1 for the first line
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * decode the current line
+	 *
+	 * @return String
+	 */
+	public String decode() {
+		return new String(buffer, start, end - start, ATool.CHARSET);
+	}
+
+	/**
+	 * get the characters of the current line, without copying them if the
+	 * line is ASCII. The view returned for an ASCII line is reused and only
+	 * valid until the next call of {@link #next()}.
+	 *
+	 * @return CharSequence
+	 */
+	public CharSequence chars() {
+		if (ascii) {
+			view.set(buffer, start, end - start);
+			return view;
+		}
+
+		return decode();
+	}
+
+	/**
+	 * write the bytes of the current line, without its terminator
+	 *
+	 * @param out
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, start, end - start);
+	}
+
+	/**
+	 * compare the bytes of the current line with those of another line
+	 *
+	 * @return true if both lines have the same bytes
+	 */
+	public boolean lineEquals(byte[] other, int offset, int length) {
+		if (length != end - start) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (buffer[start + i] != other[offset + i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * close the stream, if any
+	 */
+	@Override
+	public void close() throws IOException {
+		if (input != null) {
+			input.close();
+		}
+	}
+
+	/**
+	 * characters of ASCII bytes, one byte per char
+	 */
+	private static class AsciiView implements CharSequence {
+		private byte[] bytes;
+		private int offset;
+		private int length;
+
+		public void set(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+
+			return (char) bytes[offset + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > length || from > to) {
+				throw new IndexOutOfBoundsException(from + ", " + to);
+			}
+
+			return new String(bytes, offset + from, to - from, ATool.CHARSET);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, offset, length, ATool.CHARSET);
+		}
+	}
+
+	/**
+	 * a part of a file read with positional reads
+	 */
+	private static class RegionInputStream extends InputStream {
+		private final FileChannel channel;
+		private long position;
+		private final long end;
+
+		public RegionInputStream(FileChannel channel, long from, long to) {
+			this.channel = channel;
+			this.position = from;
+			this.end = to;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+
+			return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+
+			int length = (int) Math.min(len, end - position);
+			int read = channel.read(ByteBuffer.wrap(b, off, length), position);
+
+			if (read > 0) {
+				position += read;
+			}
+
+			return read;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.util.Arrays;
+
+/**
+ * Finds a fixed string in bytes with the Boyer-Moore-Horspool algorithm.
+ * The string is encoded with {@link ATool#CHARSET}, so it is found in UTF-8
+ * text wherever its characters are.
+ *
+ * The last byte of the window is compared first, and a mismatch moves the
+ * window by the distance of that byte from the end of the string; for a
+ * string of several bytes most of the text is skipped without being looked
+ * at. A single byte is found with a plain scan.
+ */
+public class LiteralSearch implements ByteSearch {
+
+	private final String literal;
+	private final byte[] pattern;
+	private final int[] shift = new int[256];
+
+	/**
+	 * prepare a search
+	 *
+	 * @param literal a non-empty String
+	 */
+	public LiteralSearch(String literal) {
+		if (literal.isEmpty()) {
+			throw new IllegalArgumentException("Error: Empty search string");
+		}
+
+		this.literal = literal;
+		this.pattern = literal.getBytes(ATool.CHARSET);
+
+		int last = pattern.length - 1;
+
+		Arrays.fill(shift, pattern.length);
+
+		for (int i = 0; i < last; i++) {
+			shift[pattern[i] & 0xff] = last - i;
+		}
+	}
+
+	@Override
+	public int indexIn(byte[] buffer, int from, int to) {
+		int last = pattern.length - 1;
+		byte lastByte = pattern[last];
+
+		if (last == 0) {
+			for (int i = from; i < to; i++) {
+				if (buffer[i] == lastByte) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		int i = from + last;
+
+		while (i < to) {
+			byte b = buffer[i];
+
+			if (b == lastByte && matchesAt(buffer, i - last)) {
+				return i - last;
+			}
+
+			i += shift[b & 0xff];
+		}
+
+		return -1;
+	}
+
+	private boolean matchesAt(byte[] buffer, int start) {
+		for (int j = pattern.length - 2; j >= 0; j--) {
+			if (buffer[start + j] != pattern[j]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the string searched for
+	 */
+	public String getLiteral() {
+		return literal;
+	}
+
+	/**
+	 * @return length of the string in bytes
+	 */
+	public int length() {
+		return pattern.length;
+	}
+}
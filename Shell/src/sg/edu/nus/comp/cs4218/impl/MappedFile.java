@@ -0,0 +1,230 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A file memory-mapped for reading line by line. The content stays in the
+ * page cache instead of on the heap; only the start offset of every line is
+ * kept, in an int array, and a line is decoded into a String only when it
+ * is asked for. The index is built lazily, as far as the lines asked for,
+ * so a tool reading from the front never scans further than it needs.
+ *
+ * Lines end with "\n", "\r" or "\r\n" and are decoded with
+ * {@link ATool#CHARSET}, the same lines BufferedReader.readLine returns.
+ *
+ * The file is one mapping and the line offsets are ints, so files are
+ * limited to 2 GiB ({@link Integer#MAX_VALUE} bytes); {@link #open(File)}
+ * rejects a larger file with "Error: &lt;name&gt; is too large". paste and
+ * comm, which read through this class, build their whole output in one
+ * String, so they could not handle such files anyway; tools that must
+ * handle larger files stream them through {@link LineSource}.
+ */
+public class MappedFile implements Closeable {
+
+	private static final int INITIAL_INDEX_SIZE = 1024;
+
+	private ByteBuffer content;
+	private final int size;
+	private int[] starts = new int[INITIAL_INDEX_SIZE];
+	private int indexed = 0;
+	private int scanned = 0;
+	private boolean complete = false;
+
+	private int cachedIndex = -1;
+	private String cachedLine;
+
+	/**
+	 * read lines from a buffer, from its position to its limit
+	 *
+	 * @param content
+	 */
+	public MappedFile(ByteBuffer content) {
+		this.content = content.slice();
+		this.size = this.content.limit();
+	}
+
+	/**
+	 * map a file. If the file does not exist or the file is a directory,
+	 * the same errors as {@link FileUtils#openFileStream(File)} are thrown.
+	 *
+	 * @param file
+	 *
+	 * @return MappedFile, to be closed by the caller
+	 * @throws IOException when the file cannot be mapped
+	 * @throws RuntimeException when the file does not exist or is a directory
+	 */
+	public static MappedFile open(File file) throws IOException, RuntimeException {
+		FileUtils.openFileStream(file).close();
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+		try {
+			FileChannel channel = raf.getChannel();
+
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Error: " + file.getName() + " is too large");
+			}
+
+			// the mapping stays valid after the channel is closed
+			return new MappedFile(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * read the lines of a String, e.g. stdin, the same way as those of a file
+	 *
+	 * @param text
+	 *
+	 * @return MappedFile
+	 */
+	public static MappedFile wrap(String text) {
+		return new MappedFile(ByteBuffer.wrap(text.getBytes(ATool.CHARSET)));
+	}
+
+	/**
+	 * @return size of the content in bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * check whether there is a line with the given index, indexing the file
+	 * only up to that line
+	 *
+	 * @param index 0 for the first line
+	 *
+	 * @return boolean
+	 */
+	public boolean hasLine(int index) {
+		return index >= 0 && index < indexTo(index + 1);
+	}
+
+	/**
+	 * get the number of lines, indexing the whole file
+	 *
+	 * @return int
+	 */
+	public int getLineCount() {
+		return indexTo(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * decode one line, without its line terminator
+	 *
+	 * @param index 0 for the first line
+	 *
+	 * @return String
+	 * @throws IndexOutOfBoundsException if there is no such line
+	 */
+	public String getLine(int index) {
+		if (index == cachedIndex) {
+			return cachedLine;
+		}
+
+		if (!hasLine(index)) {
+			throw new IndexOutOfBoundsException("line " + index + " of " + indexed);
+		}
+
+		int start = starts[index];
+		// the last line indexed so far ends where the scan stopped
+		int end = index + 1 < indexed ? starts[index + 1] : scanned;
+
+		// strip the terminator, none for a last line without one
+		if (end > start && content.get(end - 1) == '\n') {
+			end--;
+		}
+
+		if (end > start && content.get(end - 1) == '\r') {
+			end--;
+		}
+
+		byte[] bytes = new byte[end - start];
+		ByteBuffer line = content.duplicate();
+		line.position(start);
+		line.get(bytes);
+
+		cachedIndex = index;
+		cachedLine = new String(bytes, ATool.CHARSET);
+
+		return cachedLine;
+	}
+
+	/**
+	 * decode every line
+	 *
+	 * @return String[]
+	 */
+	public String[] getLines() {
+		String[] lines = new String[getLineCount()];
+
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = getLine(i);
+		}
+
+		return lines;
+	}
+
+	/**
+	 * release the content, lines can no longer be read
+	 */
+	@Override
+	public void close() {
+		content = ByteBuffer.allocate(0);
+		cachedIndex = -1;
+		cachedLine = null;
+	}
+
+	/**
+	 * scan the content until count lines are indexed or the end is reached
+	 *
+	 * @return number of lines indexed
+	 */
+	private int indexTo(int count) {
+		while (indexed < count && !complete) {
+			if (scanned >= size) {
+				complete = true;
+				break;
+			}
+
+			addStart(scanned);
+			scanned = findNextStart(scanned);
+		}
+
+		return indexed;
+	}
+
+	/**
+	 * find the start of the line after the one starting at from
+	 */
+	private int findNextStart(int from) {
+		for (int i = from; i < size; i++) {
+			byte b = content.get(i);
+
+			if (b == '\n') {
+				return i + 1;
+			} else if (b == '\r') {
+				return i + 1 < size && content.get(i + 1) == '\n' ? i + 2 : i + 1;
+			}
+		}
+
+		return size;
+	}
+
+	private void addStart(int start) {
+		if (indexed == starts.length) {
+			starts = Arrays.copyOf(starts, starts.length * 2);
+		}
+
+		starts[indexed++] = start;
+	}
+}
@@ -0,0 +1,217 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The stream between a running tool and the terminal. Output is collected in
+ * one reusable buffer and passed on as the tool produces it, instead of after
+ * the tool is done, so results of long commands start showing immediately.
+ *
+ * With the LINE policy the buffer is passed on whenever a new line has been
+ * written, which suits a terminal. With the BLOCK policy it is passed on only
+ * when full or when flushed, which suits files and pipes. The default policy
+ * is LINE and can be changed with the system property "shell.output.flush"
+ * (line or block).
+ *
+ * The sink remembers when the first byte was passed on, so the time to first
+ * byte of a command can be measured. Closing the sink flushes it but leaves
+ * the target open.
+ */
+public class OutputSink extends OutputStream {
+
+	/**
+	 * System property choosing the default flush policy
+	 */
+	public static final String POLICY_PROPERTY = "shell.output.flush";
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * when the buffer is passed on to the target
+	 */
+	public enum FlushPolicy {
+		/** after every write containing a new line */
+		LINE,
+		/** when the buffer is full, or on flush() */
+		BLOCK
+	}
+
+	private final OutputStream target;
+	private final FlushPolicy policy;
+	private final byte[] buffer;
+	private int count = 0;
+	private long bytesWritten = 0;
+	private long startTime;
+	private long firstByteTime = -1;
+	private boolean discarding = false;
+
+	/**
+	 * initialize a sink with the default buffer size
+	 *
+	 * @param target the stream receiving the output
+	 * @param policy FlushPolicy
+	 */
+	public OutputSink(OutputStream target, FlushPolicy policy) {
+		this(target, policy, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * initialize a sink
+	 *
+	 * @param target the stream receiving the output
+	 * @param policy FlushPolicy
+	 * @param bufferSize size of the buffer in bytes
+	 */
+	public OutputSink(OutputStream target, FlushPolicy policy, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Error: Illegal buffer size " + bufferSize);
+		}
+
+		this.target = target;
+		this.policy = policy;
+		this.buffer = new byte[bufferSize];
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * get the policy set by the system property, LINE if not set or not valid
+	 *
+	 * @return FlushPolicy
+	 */
+	public static FlushPolicy getDefaultPolicy() {
+		String value = System.getProperty(POLICY_PROPERTY);
+
+		if (value != null && value.trim().equalsIgnoreCase("block")) {
+			return FlushPolicy.BLOCK;
+		}
+
+		return FlushPolicy.LINE;
+	}
+
+	@Override
+	public synchronized void write(int b) throws IOException {
+		if (discarding) {
+			return;
+		}
+
+		if (count == buffer.length) {
+			drain();
+		}
+
+		buffer[count++] = (byte) b;
+
+		if (policy == FlushPolicy.LINE && b == '\n') {
+			flush();
+		}
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		if (discarding) {
+			return;
+		}
+
+		if (len >= buffer.length) {
+			// too large to be worth copying
+			drain();
+			pass(b, off, len);
+		} else {
+			if (len > buffer.length - count) {
+				drain();
+			}
+
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
+
+		if (policy == FlushPolicy.LINE && hasNewLine(b, off, len)) {
+			flush();
+		}
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		drain();
+		target.flush();
+	}
+
+	/**
+	 * flush the sink, the target stays open
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	/**
+	 * drop the buffered output and everything written from now on, e.g.
+	 * after the command was stopped
+	 */
+	public synchronized void discard() {
+		discarding = true;
+		count = 0;
+	}
+
+	/**
+	 * start measuring the time to first byte again, from now
+	 */
+	public synchronized void resetTiming() {
+		startTime = System.nanoTime();
+		firstByteTime = -1;
+	}
+
+	/**
+	 * get the time from the creation of the sink, or from
+	 * {@link #resetTiming()}, until the first byte was passed to the target
+	 *
+	 * @return nanoseconds, -1 if nothing has been passed on yet
+	 */
+	public synchronized long getTimeToFirstByte() {
+		return firstByteTime < 0 ? -1 : firstByteTime - startTime;
+	}
+
+	/**
+	 * @return number of bytes passed to the target so far
+	 */
+	public synchronized long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public FlushPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * pass the buffered bytes to the target
+	 */
+	private void drain() throws IOException {
+		if (count > 0) {
+			pass(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private void pass(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return;
+		}
+
+		if (firstByteTime < 0) {
+			firstByteTime = System.nanoTime();
+		}
+
+		target.write(b, off, len);
+		bytesWritten += len;
+	}
+
+	private static boolean hasNewLine(byte[] b, int off, int len) {
+		for (int i = off + len - 1; i >= off; i--) {
+			if (b[i] == '\n') {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,121 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the {@link CommandPlan}s of the most recently used command lines,
+ * so that running the same line again skips splitting it and looking up its
+ * tool. The least recently used plan is dropped when the cache is full.
+ *
+ * The size of the shared cache is set with the system property
+ * "shell.parsecache.size" (default 256, 0 disables caching).
+ */
+public class ParseCache {
+
+	public static final String SIZE_PROPERTY = "shell.parsecache.size";
+	public static final int DEFAULT_SIZE = 256;
+
+	private static ParseCache instance = null;
+
+	private final int capacity;
+	private final LinkedHashMap<String, CommandPlan> plans;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * initialize a cache
+	 *
+	 * @param capacity maximum number of plans kept, 0 to keep none
+	 */
+	public ParseCache(final int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Error: Invalid cache size " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.plans = new LinkedHashMap<String, CommandPlan>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CommandPlan> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * get the shared cache, creating it from the system property on first use
+	 *
+	 * @return ParseCache
+	 */
+	public synchronized static ParseCache get() {
+		if (instance == null) {
+			instance = new ParseCache(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE));
+		}
+
+		return instance;
+	}
+
+	/**
+	 * get the plan of a command line, parsing it on a miss
+	 *
+	 * @param commandLine trimmed command line
+	 *
+	 * @return CommandPlan
+	 * @throws IllegalArgumentException if the line cannot be split; such lines
+	 * are not cached
+	 */
+	public CommandPlan lookup(String commandLine) throws IllegalArgumentException {
+		synchronized (this) {
+			CommandPlan plan = plans.get(commandLine);
+
+			if (plan != null) {
+				hits++;
+				return plan;
+			}
+
+			misses++;
+		}
+
+		// parse outside the lock, a concurrent miss on the same line is harmless
+		CommandPlan plan = CommandPlan.parse(commandLine);
+
+		synchronized (this) {
+			if (capacity > 0) {
+				plans.put(commandLine, plan);
+			}
+		}
+
+		return plan;
+	}
+
+	/**
+	 * drop all plans, e.g. after tools were registered
+	 */
+	public synchronized void clear() {
+		plans.clear();
+	}
+
+	public synchronized int size() {
+		return plans.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("size=%d/%d hits=%d misses=%d", plans.size(), capacity,
+				hits, misses);
+	}
+}
@@ -0,0 +1,264 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import sg.edu.nus.comp.cs4218.IStreamTool;
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.CDTool;
+import sg.edu.nus.comp.cs4218.impl.parser.CommandLineTool;
+
+/**
+ * Runs a file of commands without a prompt, e.g. "Shell --script file". Every
+ * line is parsed once, through the {@link ParseCache} so repeated lines are
+ * not parsed again, and executed on the calling thread right after the
+ * previous one, and the output is streamed to stdout as the tools write it.
+ * Empty lines are skipped. The runner has its own working directory, which
+ * starts as the shell's and is changed by "cd" lines.
+ * 
+ * The status code of every executed line is kept, see
+ * {@link #getStatusCodes()}. {@link #report(PrintStream)} prints the lines
+ * that failed and the total wall time.
+ */
+public class ScriptRunner {
+
+	/**
+	 * status of a line whose command does not exist
+	 */
+	public static final int STATUS_NOT_FOUND = 127;
+
+	/**
+	 * status of a line that could not be split into arguments
+	 */
+	public static final int STATUS_PARSE_ERROR = 2;
+
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes(ATool.CHARSET);
+
+	private final OutputStream stdout;
+	private final OutputStream stderr;
+	private File workingDir = Directory.get();
+
+	private int[] lineNumbers = new int[256];
+	private int[] statusCodes = new int[256];
+	private int count = 0;
+	private long wallTime = 0;
+
+	/**
+	 * initialize a script runner
+	 * 
+	 * @param stdout receives the output of the commands, buffered
+	 * @param stderr receives the error messages of the commands
+	 */
+	public ScriptRunner(OutputStream stdout, OutputStream stderr) {
+		this.stdout = new OutputSink(stdout, OutputSink.FlushPolicy.BLOCK);
+		this.stderr = stderr;
+	}
+
+	/**
+	 * run every line of a script file
+	 * 
+	 * @param script
+	 * 
+	 * @return status code of the last executed line, 0 if there was none
+	 */
+	public int run(File script) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(script), ATool.CHARSET));
+
+		try {
+			return run(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * run every line read from a reader
+	 * 
+	 * @param reader
+	 * 
+	 * @return status code of the last executed line, 0 if there was none
+	 */
+	public int run(BufferedReader reader) throws IOException {
+		long start = System.nanoTime();
+		int status = 0;
+		int lineNumber = 0;
+		String line;
+
+		try {
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+
+				if (!line.trim().isEmpty()) {
+					status = runLine(line.trim());
+					record(lineNumber, status);
+				}
+			}
+		} finally {
+			stdout.flush();
+			wallTime = System.nanoTime() - start;
+		}
+
+		return status;
+	}
+
+	/**
+	 * run one line, flushing its output before returning
+	 * 
+	 * @param line
+	 * 
+	 * @return status code of the line
+	 */
+	public int execute(String line) throws IOException {
+		int status = 0;
+		
+		try {
+			if (!line.trim().isEmpty()) {
+				status = runLine(line.trim());
+			}
+		} finally {
+			stdout.flush();
+		}
+		
+		return status;
+	}
+
+	/**
+	 * parse and execute one line
+	 * 
+	 * @return status code of the line
+	 */
+	private int runLine(String line) throws IOException {
+		ITool tool;
+
+		try {
+			CommandPlan plan = ParseCache.get().lookup(line);
+
+			if (!plan.isFound()) {
+				error("Command not found: " + plan.getCommand());
+				return STATUS_NOT_FOUND;
+			}
+
+			tool = plan.createTool();
+		} catch (IllegalArgumentException e) {
+			error(e.getMessage());
+			return STATUS_PARSE_ERROR;
+		}
+
+		if (tool instanceof CDTool) {
+			// the output of cd is the new working directory
+			String output = tool.execute(workingDir, "");
+
+			if (tool.getStatusCode() == 0) {
+				workingDir = new File(output);
+			} else {
+				error(output);
+			}
+		} else if (tool instanceof IStreamTool) {
+			// an empty stdin, like the "" the interactive shell passes
+			((IStreamTool) tool).execute(workingDir,
+					new ByteArrayInputStream(new byte[0]), stdout, stderr);
+			// end the output with a new line, as the interactive shell does
+			(tool.getStatusCode() == 0 ? stdout : stderr).write(NEWLINE);
+
+			// a cd inside the command line
+			if (tool instanceof CommandLineTool) {
+				workingDir = ((CommandLineTool) tool).getWorkingDirectory();
+			}
+		} else {
+			String output = tool.execute(workingDir, "");
+
+			if (tool.getStatusCode() == 0) {
+				stdout.write(output.getBytes(ATool.CHARSET));
+				stdout.write(NEWLINE);
+			} else {
+				error(output);
+			}
+		}
+
+		return tool.getStatusCode();
+	}
+
+	/**
+	 * write an error message after the output written so far
+	 */
+	private void error(String message) throws IOException {
+		stdout.flush();
+		stderr.write(message.getBytes(ATool.CHARSET));
+		stderr.write(NEWLINE);
+	}
+
+	private void record(int lineNumber, int status) {
+		if (count == statusCodes.length) {
+			lineNumbers = Arrays.copyOf(lineNumbers, count * 2);
+			statusCodes = Arrays.copyOf(statusCodes, count * 2);
+		}
+
+		lineNumbers[count] = lineNumber;
+		statusCodes[count] = status;
+		count++;
+	}
+
+	/**
+	 * get the working directory the next line runs in
+	 * 
+	 * @return File
+	 */
+	public File getWorkingDirectory() {
+		return workingDir;
+	}
+
+	/**
+	 * get the status codes of the executed lines, in order
+	 * 
+	 * @return int[]
+	 */
+	public int[] getStatusCodes() {
+		return Arrays.copyOf(statusCodes, count);
+	}
+
+	/**
+	 * get the line numbers, starting at 1, of the executed lines in the same
+	 * order as {@link #getStatusCodes()}
+	 * 
+	 * @return int[]
+	 */
+	public int[] getLineNumbers() {
+		return Arrays.copyOf(lineNumbers, count);
+	}
+
+	/**
+	 * get the time taken by the last run
+	 * 
+	 * @return wall time in nanoseconds
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * print the status code of every failed line and a summary
+	 * 
+	 * @param out
+	 */
+	public void report(PrintStream out) {
+		int failed = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (statusCodes[i] != 0) {
+				out.println("line " + lineNumbers[i] + ": status " + statusCodes[i]);
+				failed++;
+			}
+		}
+
+		out.println(String.format("%d commands, %d failed, %.3f s", count, failed,
+				wallTime / 1e9));
+	}
+}
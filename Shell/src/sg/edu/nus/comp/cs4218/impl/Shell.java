@@ -1,21 +1,53 @@
 package sg.edu.nus.comp.cs4218.impl;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import sg.edu.nus.comp.cs4218.IShell;
 import sg.edu.nus.comp.cs4218.ITool;
 
 /**
  * The Shell is used to interpret and execute user's
- * commands. Commands typed in the console will be discarded if the shell is
- * running another command. "Ctrl-Z" will only be entertained when there is
- * a command running at background. In this case, the command will be
- * terminated, i.e. output of the command will not be available.
+ * commands. Commands typed in the console while the shell is running another
+ * command are queued and executed in order. "Ctrl-Z" skips the queue and will
+ * only be entertained when there is a command running at background. In this
+ * case, the command will be terminated, i.e. output of the command will not be
+ * available.
+ * 
+ * A command line ending with "&" runs in the background and the prompt comes
+ * back right away, so independent commands run in parallel. Background jobs
+ * are managed with the built-in commands:
+ * jobs          - list the running jobs
+ * fg [%n]       - bring job n, or the last job, to the foreground
+ * wait [%n ...] - wait for the given jobs, or all jobs, to finish
+ * kill %n ...   - terminate the given jobs
+ * 
+ * Input lines and finished commands are delivered as {@link ShellEvent}s
+ * through one blocking queue, so an idle shell does not use any CPU and the
+ * prompt is printed as soon as a command finishes.
  */
 public class Shell implements IShell {
 
 	private static ToolRunnable runnable;
 	
+	/**
+	 * maximum number of queued lines taken from the input at once
+	 */
+	public static final int BATCH_SIZE = 64;
+	
+	private final BlockingQueue<ShellEvent> events = new LinkedBlockingQueue<ShellEvent>();
+	private final Deque<String> batch = new ArrayDeque<String>();
+	private InputRunnable input;
+	private final JobTable jobs = new JobTable();
+	private final Set<ToolRunnable> waiting = new HashSet<ToolRunnable>();
+	
 	public Shell() {
 	}
 	
@@ -23,26 +55,54 @@ public class Shell implements IShell {
 	public ITool parse(String commandline) {
 		if (commandline.trim().isEmpty()) { return null; }
 
-		ArrayList<String> params = new ArrayList<String>();
-		String cmd = ArgList.split(commandline.trim(), params);
+		CommandPlan plan;
 		
-		ITool tool = CommandInterpreter.cmdToITool(cmd, params.toArray(new String[0]));
+		try {
+			plan = ParseCache.get().lookup(commandline.trim());
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage()); // NOPMD
+			return null;
+		}
 		
-		if (tool == null) {
-			System.err.println("Command not found: " + cmd); // NOPMD
+		if (!plan.isFound()) {
+			System.err.println("Command not found: " + plan.getCommand()); // NOPMD
 		}
 		
-		return tool;
+		return plan.createTool();
 	}
 
 	@Override
 	public Runnable execute(ITool tool) {
-		runnable = new ToolRunnable(tool, "");
+		runnable = new ToolRunnable(tool, "", events);
 		runnable.start();
 		
 		return runnable;
 	}
 
+	/**
+	 * execute a tool in the background and add it to the job table
+	 * 
+	 * @param tool
+	 * @param commandLine command line of the tool, without the "&"
+	 * 
+	 * @return the new job
+	 */
+	public JobTable.Job executeInBackground(ITool tool, String commandLine) {
+		ToolRunnable job = new ToolRunnable(tool, "", events);
+		job.start();
+		
+		return jobs.add(commandLine, job);
+	}
+	
+	/**
+	 * get the background jobs of the shell
+	 * 
+	 * @return JobTable
+	 */
+	public JobTable getJobs() {
+		return jobs;
+	}
+
 	@Override
 	public void stop(Runnable toolExecution) {
 		runnable.stop();
@@ -51,47 +111,235 @@ public class Shell implements IShell {
 	
 	/**
 	 * Do Forever
-     * 1. Wait for a user input
+     * 1. Wait for the next event: a user input or a finished command
      * 2. Parse the user input. Separate the command and its arguments
-     * 3. Create a new thread to execute the command
-     * 4. Execute the command and its arguments on the newly created thread.
+     * 3. Submit a new task to the ToolExecutor to execute the command
+     * 4. Execute the command and its arguments in the submitted task.
 	 *	  Exit with the status code of the executed command
-     * 5. In the shell, wait for the thread to complete execution
+     * 5. The task posts an event to the shell when it completes execution
      * 6. Report the exit status of the command to the user
+	 * Returns when the input ends and no command or job is running.
+	 * 
+	 * @param in the stream user input is read from
 	 */
-	public static void main(String[] args){	
-		Shell shell = new Shell();
-		InputRunnable input = new InputRunnable();
+	public void run(InputStream in) throws InterruptedException {
+		input = new InputRunnable(in, events);
 		input.start();
 
-		System.out.print("[" + Directory.get().toString() + "] $ "); // NOPMD
+		prompt();
 		
-		while (true) {
-			String commandLine = input.get();
+		while (isBusy() || jobs.size() > 0 || !batch.isEmpty() || !input.isExhausted()) {
+			ShellEvent event = events.take();
 			
-			if (commandLine == null && runnable != null) {
-				if (runnable.isFinished()) {
-					runnable = null;
-					System.out.print("[" + Directory.get().toString() + "] $ "); // NOPMD
+			switch (event.getType()) {
+			case FINISHED:
+				finished(event.getRunnable());
+				break;
+			case INPUT:
+				runNext();
+				break;
+			case INTERRUPT:
+				if (runnable != null) {
+					stop(null);
+				} else if (!waiting.isEmpty()) {
+					// stop waiting, the jobs keep running
+					waiting.clear();
+				} else {
+					break;
 				}
+				
+				prompt();
+				runNext();
+				break;
+			default:
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * react to a finished command: the foreground command, a job waited for
+	 * or a background job. A stopped command may still report after the
+	 * prompt came back, it is ignored
+	 * 
+	 * @param done
+	 */
+	private void finished(ToolRunnable done) {
+		JobTable.Job job = jobs.find(done);
+		
+		if (job != null) {
+			jobs.remove(job.getId());
+			System.out.println(job.describe("Done")); // NOPMD
+		}
+		
+		if (done == runnable) {
+			runnable = null;
+		} else if (!waiting.remove(done) && job == null) {
+			return;
+		}
+		
+		if (!isBusy()) {
+			prompt();
+			runNext();
+		}
+	}
+	
+	/**
+	 * check whether the shell waits for a foreground command or for jobs
+	 * 
+	 * @return boolean
+	 */
+	private boolean isBusy() {
+		return runnable != null || !waiting.isEmpty();
+	}
+	
+	/**
+	 * unless the shell is busy, execute the next queued command line. Lines
+	 * are taken from the input in batches of up to BATCH_SIZE
+	 */
+	private void runNext() {
+		while (!isBusy()) {
+			if (batch.isEmpty() && input.drain(batch, BATCH_SIZE) == 0) {
+				return;
 			}
 			
-			if (commandLine != null) {
-				if (runnable == null) {
-					ITool tool = shell.parse(commandLine);
-
-					if (tool != null) {
-						shell.execute(tool);
-					} else {
-						System.out.print("[" + Directory.get().toString() + "] $ "); // NOPMD
-					}
+			String commandLine = batch.poll().trim();
+			
+			if (runBuiltin(commandLine)) {
+				if (!isBusy()) {
+					prompt();
+				}
+			} else if (commandLine.endsWith("&") && !commandLine.endsWith("\\&")
+					&& !commandLine.endsWith("&&")) {
+				String foreground = commandLine.substring(0, commandLine.length() - 1).trim();
+				ITool tool = parse(foreground);
+				
+				if (tool != null) {
+					System.out.println("[" + executeInBackground(tool, foreground).getId() + "]"); // NOPMD
+				}
+				
+				prompt();
+			} else {
+				ITool tool = parse(commandLine);
+	
+				if (tool != null) {
+					execute(tool);
 				} else {
-					if (commandLine.equalsIgnoreCase("Ctrl-Z")) {
-						shell.stop(null);
-						System.out.print("[" + Directory.get().toString() + "] $ "); // NOPMD
+					prompt();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * run a job control command: jobs, fg, wait or kill
+	 * 
+	 * @param commandLine
+	 * 
+	 * @return false if the line is not a job control command
+	 */
+	private boolean runBuiltin(String commandLine) {
+		String[] words = commandLine.split("\\s+");
+		String cmd = words[0];
+		
+		if (!cmd.equals("jobs") && !cmd.equals("fg") && !cmd.equals("wait")
+				&& !cmd.equals("kill")) {
+			return false;
+		}
+		
+		try {
+			if (cmd.equals("jobs")) {
+				for (JobTable.Job job : jobs.list()) {
+					System.out.println(job.describe("Running")); // NOPMD
+				}
+			} else if (cmd.equals("fg")) {
+				JobTable.Job job = words.length > 1 ? findJob(words[1]) : jobs.last();
+				
+				if (job == null) {
+					throw new IllegalArgumentException("no current job");
+				}
+				
+				jobs.remove(job.getId());
+				System.out.println(job.getCommandLine()); // NOPMD
+				runnable = job.getRunnable();
+			} else if (cmd.equals("wait")) {
+				if (words.length == 1) {
+					for (JobTable.Job job : jobs.list()) {
+						waiting.add(job.getRunnable());
 					}
 				}
+				
+				for (int i = 1; i < words.length; i++) {
+					waiting.add(findJob(words[i]).getRunnable());
+				}
+			} else {
+				if (words.length == 1) {
+					throw new IllegalArgumentException("usage: kill %n ...");
+				}
+				
+				for (int i = 1; i < words.length; i++) {
+					JobTable.Job job = findJob(words[i]);
+					
+					jobs.remove(job.getId());
+					job.getRunnable().stop();
+					System.out.println(job.describe("Terminated")); // NOPMD
+				}
 			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(cmd + ": " + e.getMessage()); // NOPMD
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * look up a job reference
+	 * 
+	 * @param spec "%n" or "n"
+	 * 
+	 * @return Job
+	 * @throws IllegalArgumentException if there is no such job
+	 */
+	private JobTable.Job findJob(String spec) throws IllegalArgumentException {
+		JobTable.Job job = jobs.get(JobTable.parseJobId(spec));
+		
+		if (job == null) {
+			throw new IllegalArgumentException(spec + ": no such job");
+		}
+		
+		return job;
+	}
+	
+	private static void prompt() {
+		System.out.print("[" + Directory.get().toString() + "] $ "); // NOPMD
+	}
+	
+	/**
+	 * "Shell" starts the interactive shell, "Shell --script file" runs the
+	 * commands in the file without a prompt, reports the failed lines and the
+	 * wall time on stderr and exits with the status of the last command.
+	 * "Shell --server [port]" serves {@link ShellClient}s that know its token
+	 * until killed.
+	 */
+	public static void main(String[] args) throws InterruptedException, IOException {
+		if (args.length == 2 && args[0].equals("--script")) {
+			ScriptRunner script = new ScriptRunner(System.out, System.err);
+			int status = script.run(new File(args[1]));
+			
+			script.report(System.err);
+			System.exit(status);
+		} else if (args.length >= 1 && args.length <= 2 && args[0].equals("--server")) {
+			ShellServer server = new ShellServer(args.length == 2
+					? Integer.parseInt(args[1]) : ShellServer.DEFAULT_PORT);
+			
+			server.getTokenFile().deleteOnExit();
+			System.err.println("Token for clients in " + server.getTokenFile()); // NOPMD
+			server.run();
+		} else if (args.length == 0) {
+			new Shell().run(System.in);
+		} else {
+			System.err.println("Usage: Shell [--script file | --server [port]]"); // NOPMD
+			System.exit(2);
 		}
 	}
 }
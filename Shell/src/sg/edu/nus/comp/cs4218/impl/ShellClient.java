@@ -0,0 +1,152 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+
+/**
+ * A thin client of {@link ShellServer}: sends command lines and copies the
+ * output of each command to stdout and stderr as it arrives.
+ * 
+ * ShellClient [-p port] [-t token file] [command line]
+ * 
+ * The token file is the one the server wrote, by default
+ * {@link ShellServer#getDefaultTokenFile(int)}.
+ * 
+ * Without a command line, every line of stdin is sent, in one session. Exits
+ * with the status code of the last command.
+ */
+public class ShellClient {
+
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	/**
+	 * connect to a server on this machine, reading its token from
+	 * {@link ShellServer#getDefaultTokenFile(int)}
+	 * 
+	 * @param port
+	 */
+	public ShellClient(int port) throws IOException {
+		this(port, ShellServer.getDefaultTokenFile(port));
+	}
+
+	/**
+	 * connect to a server on this machine
+	 * 
+	 * @param port
+	 * @param tokenFile the file the server wrote its token to
+	 */
+	public ShellClient(int port, File tokenFile) throws IOException {
+		String token = new String(Files.readAllBytes(tokenFile.toPath()), ATool.CHARSET);
+
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+		ShellServer.writeString(out, token);
+	}
+
+	/**
+	 * run a command line in the session and wait for it to finish
+	 * 
+	 * @param line
+	 * @param stdout receives the output of the command
+	 * @param stderr receives the error messages of the command
+	 * 
+	 * @return status code of the command
+	 */
+	public int execute(String line, OutputStream stdout, OutputStream stderr)
+			throws IOException {
+		ShellServer.writeString(out, line);
+		out.flush();
+
+		byte[] buffer = new byte[8192];
+
+		while (true) {
+			byte type = in.readByte();
+			int length = in.readInt();
+
+			if (type == ShellServer.END) {
+				stdout.flush();
+				stderr.flush();
+				return length;
+			}
+
+			OutputStream target = type == ShellServer.STDOUT ? stdout : stderr;
+
+			while (length > 0) {
+				int read = in.read(buffer, 0, Math.min(buffer.length, length));
+
+				if (read < 0) {
+					throw new IOException("Error: Connection closed");
+				}
+
+				target.write(buffer, 0, read);
+				length -= read;
+			}
+		}
+	}
+
+	/**
+	 * end the session
+	 */
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = ShellServer.DEFAULT_PORT;
+		File tokenFile = null;
+		int first = 0;
+
+		if (args.length >= first + 2 && args[first].equals("-p")) {
+			port = Integer.parseInt(args[first + 1]);
+			first += 2;
+		}
+
+		if (args.length >= first + 2 && args[first].equals("-t")) {
+			tokenFile = new File(args[first + 1]);
+			first += 2;
+		}
+
+		ShellClient client = new ShellClient(port, tokenFile != null ? tokenFile
+				: ShellServer.getDefaultTokenFile(port));
+		int status = 0;
+
+		try {
+			if (first < args.length) {
+				StringBuilder line = new StringBuilder();
+
+				for (int i = first; i < args.length; i++) {
+					line.append(i > first ? " " : "").append(args[i]);
+				}
+
+				status = client.execute(line.toString(), System.out, System.err);
+			} else {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(
+						System.in, ATool.CHARSET));
+				String line;
+
+				while ((line = reader.readLine()) != null) {
+					status = client.execute(line, System.out, System.err);
+				}
+			}
+		} finally {
+			client.close();
+		}
+
+		System.exit(status);
+	}
+}
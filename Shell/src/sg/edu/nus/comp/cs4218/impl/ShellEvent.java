@@ -0,0 +1,70 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+/**
+ * Something the shell has to react to: new lines typed by the user, "Ctrl-Z",
+ * the end of the user input, or a command that finished. All of them go
+ * through one queue, so the shell blocks on that queue instead of polling.
+ */
+public class ShellEvent {
+
+	/**
+	 * enumerate of shell event types
+	 */
+	public enum Type {
+		INPUT, INTERRUPT, END_OF_INPUT, FINISHED
+	}
+
+	private final Type type;
+	private final ToolRunnable runnable;
+
+	private ShellEvent(Type type, ToolRunnable runnable) {
+		this.type = type;
+		this.runnable = runnable;
+	}
+
+	/**
+	 * create an event for lines waiting in the {@link InputRunnable}
+	 *
+	 * @return ShellEvent
+	 */
+	public static ShellEvent input() {
+		return new ShellEvent(Type.INPUT, null);
+	}
+
+	/**
+	 * create an event for "Ctrl-Z" typed by the user
+	 *
+	 * @return ShellEvent
+	 */
+	public static ShellEvent interrupt() {
+		return new ShellEvent(Type.INTERRUPT, null);
+	}
+
+	/**
+	 * create an event for the end of the user input
+	 *
+	 * @return ShellEvent
+	 */
+	public static ShellEvent endOfInput() {
+		return new ShellEvent(Type.END_OF_INPUT, null);
+	}
+
+	/**
+	 * create an event for a command that finished
+	 *
+	 * @param runnable the execution of the command
+	 *
+	 * @return ShellEvent
+	 */
+	public static ShellEvent finished(ToolRunnable runnable) {
+		return new ShellEvent(Type.FINISHED, runnable);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public ToolRunnable getRunnable() {
+		return runnable;
+	}
+}
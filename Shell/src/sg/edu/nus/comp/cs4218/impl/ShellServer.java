@@ -0,0 +1,318 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Keeps a warm JVM with all the tools loaded and runs command lines sent by
+ * {@link ShellClient}s over loopback TCP, so a command does not pay JVM
+ * startup, class loading and JIT warm-up every time.
+ * 
+ * Every connection is a session with its own working directory, starting as
+ * the server's. A session runs one command line at a time, on the shared
+ * {@link ToolExecutor}.
+ * 
+ * Trust model: a session runs commands as the user who started the server,
+ * so only that user may open one. Listening on loopback keeps other hosts
+ * out, but not the other users of this host. At startup the server writes a
+ * random token to a file only its owner can read (0600, see
+ * {@link #getTokenFile()}), and a session only starts once the client has
+ * sent that token. Whoever can read the token file can run commands.
+ * 
+ * Protocol, all integers big-endian:
+ * session  = handshake, (request, response)*
+ * handshake = int length, UTF-8 token
+ * request  = int length, UTF-8 command line
+ * response = frame*, end
+ * frame    = byte STDOUT or STDERR, int length, bytes
+ * end      = byte END, int status code
+ * 
+ * A string longer than {@link #MAX_STRING_LENGTH} bytes, or a wrong token,
+ * closes the session.
+ */
+public class ShellServer implements Runnable {
+
+	public static final int DEFAULT_PORT = 4218;
+
+	public static final byte END = 0;
+	public static final byte STDOUT = 1;
+	public static final byte STDERR = 2;
+
+	/**
+	 * longest token or command line a client may send, in bytes
+	 */
+	public static final int MAX_STRING_LENGTH = 1024 * 1024;
+
+	private static final int TOKEN_BYTES = 32;
+
+	private final ServerSocket serverSocket;
+	private final File tokenFile;
+	private final byte[] token;
+
+	/**
+	 * listen on a loopback port, writing the token to
+	 * {@link #getDefaultTokenFile(int)}
+	 * 
+	 * @param port 0 picks a free port
+	 */
+	public ShellServer(int port) throws IOException {
+		this(port, null);
+	}
+
+	/**
+	 * listen on a loopback port
+	 * 
+	 * @param port 0 picks a free port
+	 * @param tokenFile where the token is written, replacing the file; null
+	 *            for {@link #getDefaultTokenFile(int)}
+	 */
+	public ShellServer(int port, File tokenFile) throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+
+		byte[] random = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(random);
+
+		StringBuilder hex = new StringBuilder();
+
+		for (byte b : random) {
+			hex.append(String.format("%02x", b & 0xff));
+		}
+
+		this.token = hex.toString().getBytes(ATool.CHARSET);
+		this.tokenFile = tokenFile != null ? tokenFile : getDefaultTokenFile(getPort());
+
+		try {
+			writeToken(this.tokenFile, token);
+		} catch (IOException e) {
+			serverSocket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * get the file the token of a server on a port is written to by default
+	 * 
+	 * @param port
+	 * 
+	 * @return a file in the home directory of the user
+	 */
+	public static File getDefaultTokenFile(int port) {
+		return new File(System.getProperty("user.home"), ".cs4218-shell-" + port + ".token");
+	}
+
+	/**
+	 * get the file holding the token clients have to send
+	 * 
+	 * @return File
+	 */
+	public File getTokenFile() {
+		return tokenFile;
+	}
+
+	/**
+	 * create the token file readable and writable by its owner only. The
+	 * permissions are set as the file is created, so the token is never
+	 * readable by others.
+	 */
+	private static void writeToken(File file, byte[] token) throws IOException {
+		Path path = file.toPath();
+
+		Files.deleteIfExists(path);
+
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			Files.createFile(path, PosixFilePermissions.asFileAttribute(
+					PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createFile(path);
+
+			if (!(file.setReadable(false, false) && file.setReadable(true, true)
+					&& file.setWritable(false, false) && file.setWritable(true, true))) {
+				Files.delete(path);
+				throw new IOException("Error: Cannot restrict access to " + file);
+			}
+		}
+
+		Files.write(path, token);
+	}
+
+	/**
+	 * get the port the server listens on
+	 * 
+	 * @return int
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * accept connections on a new thread
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "shell-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * accept connections until the server is closed
+	 */
+	@Override
+	public void run() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+
+				ToolExecutor.get().submit(new Runnable() {
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (IOException e) {
+				// closed, or a failed connection; the loop condition decides
+			}
+		}
+	}
+
+	/**
+	 * stop accepting connections and remove the token file
+	 */
+	public void close() throws IOException {
+		serverSocket.close();
+		Files.deleteIfExists(tokenFile.toPath());
+	}
+
+	/**
+	 * run the command lines of one session until the client disconnects
+	 * 
+	 * @param socket
+	 */
+	private void serve(Socket socket) {
+		try {
+			socket.setTcpNoDelay(true);
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					socket.getOutputStream()));
+
+			// compared in constant time, so the time taken tells nothing
+			if (!MessageDigest.isEqual(token, readString(in).getBytes(ATool.CHARSET))) {
+				return;
+			}
+
+			ScriptRunner session = new ScriptRunner(new FrameOutputStream(out, STDOUT),
+					new FrameOutputStream(out, STDERR));
+
+			while (true) {
+				String line = readString(in);
+				int status = session.execute(line);
+
+				synchronized (out) {
+					out.writeByte(END);
+					out.writeInt(status);
+					out.flush();
+				}
+			}
+		} catch (EOFException e) {
+			// the client disconnected
+		} catch (IOException e) {
+			System.err.println("Error: session failed: " + e.getMessage()); // NOPMD
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// nothing left to release
+			}
+		}
+	}
+
+	/**
+	 * read a length prefixed UTF-8 string
+	 * 
+	 * @param in
+	 * 
+	 * @return String
+	 * @throws IOException when the length is negative or above
+	 *             {@link #MAX_STRING_LENGTH}
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+
+		if (length < 0 || length > MAX_STRING_LENGTH) {
+			throw new IOException("Error: Invalid string length " + length);
+		}
+
+		byte[] bytes = new byte[length];
+
+		in.readFully(bytes);
+
+		return new String(bytes, ATool.CHARSET);
+	}
+
+	/**
+	 * write a length prefixed UTF-8 string
+	 * 
+	 * @param out
+	 * @param string
+	 */
+	static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(ATool.CHARSET);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * wraps everything written into frames of one channel
+	 */
+	private static class FrameOutputStream extends OutputStream {
+		private final DataOutputStream out;
+		private final byte channel;
+
+		public FrameOutputStream(DataOutputStream out, byte channel) {
+			this.out = out;
+			this.channel = channel;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+
+			synchronized (out) {
+				out.writeByte(channel);
+				out.writeInt(len);
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (out) {
+				out.flush();
+			}
+		}
+	}
+}
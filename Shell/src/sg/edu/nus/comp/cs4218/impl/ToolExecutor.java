@@ -0,0 +1,220 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs commands and pipe stages on a shared executor instead of creating a
+ * new thread for every one of them, and keeps statistics about the tasks it
+ * ran: how many are running, how many are waiting for a thread and how long
+ * they waited on average.
+ *
+ * The executor is chosen with the system property "shell.executor":
+ * "virtual" (default) uses one virtual thread per task where the JVM supports
+ * it and falls back to "platform", a cached pool of daemon threads.
+ */
+public class ToolExecutor {
+
+	public static final String EXECUTOR_PROPERTY = "shell.executor";
+	public static final String VIRTUAL = "virtual";
+	public static final String PLATFORM = "platform";
+
+	private static ToolExecutor instance = null;
+
+	private final ExecutorService executor;
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong started = new AtomicLong();
+	private final AtomicLong totalTimeToStart = new AtomicLong();
+
+	/**
+	 * initialize a tool executor on top of an executor service
+	 *
+	 * @param executor ExecutorService
+	 */
+	public ToolExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * get the shared executor, creating it from the system property on first
+	 * use
+	 *
+	 * @return ToolExecutor
+	 */
+	public synchronized static ToolExecutor get() {
+		if (instance == null) {
+			instance = new ToolExecutor(createExecutorService(
+					System.getProperty(EXECUTOR_PROPERTY, VIRTUAL)));
+		}
+
+		return instance;
+	}
+
+	/**
+	 * replace the shared executor
+	 *
+	 * @param executor ToolExecutor
+	 */
+	public synchronized static void set(ToolExecutor executor) {
+		instance = executor;
+	}
+
+	/**
+	 * create the executor service for a kind of thread
+	 *
+	 * @param kind "virtual" or "platform"
+	 *
+	 * @return ExecutorService
+	 */
+	public static ExecutorService createExecutorService(String kind) {
+		if (kind.equalsIgnoreCase(VIRTUAL)) {
+			try {
+				// looked up reflectively, older JVMs do not have virtual threads
+				Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) factory.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				return createExecutorService(PLATFORM);
+			}
+		} else if (kind.equalsIgnoreCase(PLATFORM)) {
+			return Executors.newCachedThreadPool(new DaemonThreadFactory());
+		} else {
+			throw new IllegalArgumentException("Error: Unknown executor " + kind);
+		}
+	}
+
+	/**
+	 * run a task on the executor
+	 *
+	 * @param task Runnable
+	 *
+	 * @return Future to wait for or to cancel the task
+	 */
+	public Future<?> submit(Runnable task) {
+		TrackedTask tracked = new TrackedTask(task);
+
+		queued.incrementAndGet();
+		executor.execute(tracked);
+
+		return tracked;
+	}
+
+	/**
+	 * get the number of tasks currently running
+	 *
+	 * @return int
+	 */
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * get the number of tasks submitted but not started yet
+	 *
+	 * @return int
+	 */
+	public int getQueueDepth() {
+		return queued.get();
+	}
+
+	/**
+	 * get the number of tasks that have started so far
+	 *
+	 * @return long
+	 */
+	public long getStartedCount() {
+		return started.get();
+	}
+
+	/**
+	 * get the mean time between submitting a task and the task starting
+	 *
+	 * @return mean time to start in nanoseconds, 0 if nothing started yet
+	 */
+	public long getMeanTimeToStart() {
+		long count = started.get();
+
+		return count == 0 ? 0 : totalTimeToStart.get() / count;
+	}
+
+	/**
+	 * stop accepting tasks
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("active=%d queued=%d started=%d meanTimeToStart=%dus",
+				getActiveCount(), getQueueDepth(), getStartedCount(),
+				getMeanTimeToStart() / 1000);
+	}
+
+	/**
+	 * a task that updates the statistics when it starts, finishes or is
+	 * cancelled before starting
+	 */
+	private class TrackedTask extends FutureTask<Object> {
+		private final long submitted = System.nanoTime();
+		private final AtomicBoolean dequeued = new AtomicBoolean(false);
+
+		public TrackedTask(Runnable task) {
+			super(task, null);
+		}
+
+		@Override
+		public void run() {
+			if (!leaveQueue()) {
+				return;
+			}
+
+			started.incrementAndGet();
+			totalTimeToStart.addAndGet(System.nanoTime() - submitted);
+			active.incrementAndGet();
+
+			try {
+				super.run();
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		@Override
+		protected void done() {
+			// cancelled while still waiting for a thread
+			leaveQueue();
+		}
+
+		private boolean leaveQueue() {
+			if (dequeued.compareAndSet(false, true)) {
+				queued.decrementAndGet();
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * threads that do not keep the JVM alive once the shell exits
+	 */
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "tool-" + count.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
+}
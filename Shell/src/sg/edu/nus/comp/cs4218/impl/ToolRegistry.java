@@ -0,0 +1,178 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.IToolFactory;
+
+/**
+ * Maps command names to tool factories with a hash lookup. The built-in
+ * tools are registered by class name and a tool class is only loaded when its
+ * command is first used, so starting the shell does not load every tool.
+ * Additional factories are discovered through ServiceLoader the first time a
+ * command is not found among the registered ones.
+ */
+public class ToolRegistry {
+
+	private static final String FILEUTILS = "sg.edu.nus.comp.cs4218.impl.fileutils.";
+	private static final String EXTENDED1 = "sg.edu.nus.comp.cs4218.impl.extended1.";
+	private static final String EXTENDED2 = "sg.edu.nus.comp.cs4218.impl.extended2.";
+
+	private static ToolRegistry instance = null;
+
+	private final Map<String, IToolFactory> factories = new HashMap<String, IToolFactory>();
+	private boolean servicesLoaded = false;
+
+	/**
+	 * get the shared registry with the built-in tools
+	 *
+	 * @return ToolRegistry
+	 */
+	public synchronized static ToolRegistry get() {
+		if (instance == null) {
+			instance = new ToolRegistry();
+			instance.registerBuiltins();
+		}
+
+		return instance;
+	}
+
+	private void registerBuiltins() {
+		register("cat", FILEUTILS + "CATTool");
+		register("cd", FILEUTILS + "CDTool");
+		register("cmp", FILEUTILS + "CMPTool");
+		register("copy", FILEUTILS + "COPYTool");
+		register("delete", FILEUTILS + "DELETETool");
+		register("echo", FILEUTILS + "ECHOTool");
+		register("ls", FILEUTILS + "LSTool");
+		register("move", FILEUTILS + "MOVETool");
+		register("pwd", FILEUTILS + "PWDTool");
+		register("grep", EXTENDED1 + "GREPTool");
+		register("pipe", EXTENDED1 + "PIPINGTool");
+		register("comm", EXTENDED2 + "COMMTool");
+		register("cut", EXTENDED2 + "CUTTool");
+		register("paste", EXTENDED2 + "PASTETool");
+		register("sort", EXTENDED2 + "SORTTool");
+		register("uniq", EXTENDED2 + "UNIQTool");
+		register("wc", EXTENDED2 + "WCTool");
+	}
+
+	/**
+	 * register a factory, replacing any factory of the same name
+	 *
+	 * @param factory
+	 */
+	public synchronized void register(IToolFactory factory) {
+		factories.put(factory.getName().toLowerCase(), factory);
+	}
+
+	/**
+	 * register a tool class that is loaded on first use
+	 *
+	 * @param name command name
+	 * @param className name of a class implementing ITool
+	 */
+	public void register(String name, String className) {
+		register(new LazyToolFactory(name, className));
+	}
+
+	/**
+	 * get the factory of a command
+	 *
+	 * @param cmd command name, in any case
+	 *
+	 * @return IToolFactory, null if the command does not exist
+	 */
+	public synchronized IToolFactory getFactory(String cmd) {
+		String name = cmd.toLowerCase();
+		IToolFactory factory = factories.get(name);
+
+		if (factory == null && !servicesLoaded) {
+			servicesLoaded = true;
+
+			for (IToolFactory service : ServiceLoader.load(IToolFactory.class)) {
+				if (!factories.containsKey(service.getName().toLowerCase())) {
+					register(service);
+				}
+			}
+
+			factory = factories.get(name);
+		}
+
+		return factory;
+	}
+
+	/**
+	 * create the tool of a command
+	 *
+	 * @param cmd command name, in any case
+	 * @param args arguments of the tool
+	 *
+	 * @return ITool, null if the command does not exist
+	 */
+	public ITool create(String cmd, String[] args) {
+		IToolFactory factory = getFactory(cmd);
+
+		return factory == null ? null : factory.create(args);
+	}
+
+	/**
+	 * a factory that loads its tool class on the first create and keeps the
+	 * constructor for later ones. Tools take their arguments as String[], or
+	 * nothing if they do not have any
+	 */
+	private static class LazyToolFactory implements IToolFactory {
+		private final String name;
+		private final String className;
+		private Constructor<?> constructor = null;
+		private boolean takesArguments;
+
+		public LazyToolFactory(String name, String className) {
+			this.name = name;
+			this.className = className;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public ITool create(String[] args) {
+			try {
+				Constructor<?> ctor = getConstructor();
+
+				return (ITool) (takesArguments ? ctor.newInstance((Object) args)
+						: ctor.newInstance());
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+
+				throw new IllegalStateException("Error: Cannot create " + name, e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Error: Cannot create " + name, e);
+			}
+		}
+
+		private synchronized Constructor<?> getConstructor() throws ReflectiveOperationException {
+			if (constructor == null) {
+				Class<?> tool = Class.forName(className);
+
+				try {
+					constructor = tool.getConstructor(String[].class);
+					takesArguments = true;
+				} catch (NoSuchMethodException e) {
+					constructor = tool.getConstructor();
+					takesArguments = false;
+				}
+			}
+
+			return constructor;
+		}
+	}
+}
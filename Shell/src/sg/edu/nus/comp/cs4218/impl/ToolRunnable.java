@@ -1,28 +1,120 @@
 package sg.edu.nus.comp.cs4218.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+
+import sg.edu.nus.comp.cs4218.IStreamTool;
 import sg.edu.nus.comp.cs4218.ITool;
 import sg.edu.nus.comp.cs4218.impl.fileutils.CDTool;
+import sg.edu.nus.comp.cs4218.impl.parser.CommandLineTool;
 
+/**
+ * Runs a tool for the shell. A tool working on streams writes to
+ * {@link OutputSink}s in front of System.out and System.err, so its output
+ * shows while it runs; the output of any other tool is printed when it is
+ * done.
+ */
 public class ToolRunnable implements Runnable {
 	
-	private Thread thread;
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes(ATool.CHARSET);
+
+	private Future<?> future;
+	private CancellationToken cancellation;
 	private ITool tool;
 	private String stdin;
-	private boolean stopped;
-	private boolean finished;
+	private volatile boolean stopped;
+	private volatile boolean finished;
+	private BlockingQueue<ShellEvent> events;
+	private volatile OutputSink stdoutSink;
+	private volatile OutputSink stderrSink;
 
 	public ToolRunnable(ITool tool, String stdin) {
-		this.thread = new Thread(this);
+		this(tool, stdin, null);
+	}
+
+	/**
+	 * initialize a tool runnable that posts a FINISHED event when the tool is
+	 * done, so the shell does not have to poll {@link #isFinished()}
+	 * 
+	 * @param events the queue receiving the event, can be null
+	 */
+	public ToolRunnable(ITool tool, String stdin, BlockingQueue<ShellEvent> events) {
 		this.tool = tool;
+		this.events = events;
+		this.cancellation = new CancellationToken();
 		this.stdin = stdin;
+		
+		if (tool instanceof ATool) {
+			((ATool) tool).setCancellationToken(cancellation);
+		}
+
 		this.stopped = false;
 		this.finished = false;
 	}
 
 	@Override
 	public void run() {
-		String stdout = tool.execute(Directory.get(), stdin);
+		try {
+			if (tool instanceof IStreamTool && !(tool instanceof CDTool)) {
+				stream((IStreamTool) tool);
+			} else {
+				publish(tool.execute(Directory.get(), stdin));
+			}
+		} finally {
+			finished = true;
+			
+			if (events != null) {
+				events.add(ShellEvent.finished(this));
+			}
+		}
+	}
+	
+	/**
+	 * execute the tool on streams, ending its output with a new line like
+	 * {@link #publish(String)} does
+	 * 
+	 * @param streamTool
+	 */
+	private void stream(IStreamTool streamTool) {
+		OutputSink out = new OutputSink(System.out, OutputSink.getDefaultPolicy());
+		OutputSink err = new OutputSink(System.err, OutputSink.FlushPolicy.LINE);
+		
+		stderrSink = err;
+		stdoutSink = out;
 		
+		if (stopped) {
+			out.discard();
+			err.discard();
+		}
+
+		try {
+			try {
+				streamTool.execute(Directory.get(), stdin == null ? null
+						: new ByteArrayInputStream(stdin.getBytes(ATool.CHARSET)),
+						out, err);
+				(tool.getStatusCode() == 0 ? out : err).write(NEWLINE);
+			} finally {
+				out.flush();
+				err.flush();
+			}
+		} catch (IOException e) {
+			System.err.println(e.getMessage()); // NOPMD
+		}
+
+		// a cd inside the command line
+		if (!stopped && tool instanceof CommandLineTool) {
+			Directory.set(((CommandLineTool) tool).getWorkingDirectory());
+		}
+	}
+
+	/**
+	 * print the output of the tool, unless the tool was stopped
+	 * 
+	 * @param stdout
+	 */
+	private void publish(String stdout) {
 		if (!stopped) {
 			if (tool.getClass().equals(CDTool.class)) {
 				if (tool.getStatusCode() == 0) {
@@ -38,20 +130,48 @@ public class ToolRunnable implements Runnable {
 				}
 			}
 		}
-		
-		finished = true;
 	}
 	
-	public void start() {
-		thread.start();
+	/**
+	 * run the tool on the shared {@link ToolExecutor}
+	 */
+	public synchronized void start() {
+		future = ToolExecutor.get().submit(this);
 	}
 	
+	/**
+	 * discard the output and ask the tool to stop. The tool notices the
+	 * cancelled token in its loops; the interrupt wakes it up if it is
+	 * blocked, e.g. on a pipe
+	 */
 	public synchronized void stop() {
 		stopped = true;
-		thread.stop();
+		cancellation.cancel();
+		
+		if (stdoutSink != null) {
+			stdoutSink.discard();
+			stderrSink.discard();
+		}
+		
+		if (future != null) {
+			future.cancel(true);
+		}
 	}
 	
 	public boolean isFinished() {
 		return finished;
 	}
+
+	/**
+	 * get the time from the start of the tool until its first output reached
+	 * System.out
+	 * 
+	 * @return nanoseconds, -1 if there was no output yet or the tool does not
+	 *         work on streams
+	 */
+	public long getTimeToFirstByte() {
+		OutputSink sink = stdoutSink;
+		
+		return sink == null ? -1 : sink.getTimeToFirstByte();
+	}
 }
\ No newline at end of file
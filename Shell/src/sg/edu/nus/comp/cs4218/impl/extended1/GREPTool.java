@@ -1,20 +1,36 @@
 package sg.edu.nus.comp.cs4218.impl.extended1;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import sg.edu.nus.comp.cs4218.extended1.IGrepTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
 import sg.edu.nus.comp.cs4218.impl.ArgList.ArgType;
 import sg.edu.nus.comp.cs4218.impl.ArgList.Option;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
 import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.FileWalker;
+import sg.edu.nus.comp.cs4218.impl.LineChunks;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
+import sg.edu.nus.comp.cs4218.impl.ToolExecutor;
 
 /**
  * The grep command searches one or more input files 
@@ -22,6 +38,8 @@ import sg.edu.nus.comp.cs4218.impl.PathUtils;
  * The grep tool must work on all characters in UTF-8 encoding. 
  * 
  * Command Format - grep [OPTIONS] PATTERN [FILE]
+ *                  grep [OPTIONS] {-e PATTERN | -f FILE}... [FILE]
+ *                  grep -r [OPTIONS] PATTERN [DIR]
  * PATTERN - This specifies a regular expression pattern that describes a set of strings
  * FILE - Name of the file, when no file is present (denoted by "-") use standard input
  * OPTIONS
@@ -29,12 +47,62 @@ import sg.edu.nus.comp.cs4218.impl.PathUtils;
  *   -B NUM : Print NUM lines of leading context before matching lines
  *   -C NUM : Print NUM lines of output context
  *   -c : Suppress normal output. Instead print a count of matching lines for each input file
+ *   -e STRING : Use STRING as a pattern, may be given several times
+ *   -f STRING : Obtain patterns from the file STRING, one per line
+ *   -r : Read all files under the directory DIR (default .), recursively
+ *   -include STRING : With -r, search only files whose name matches the glob STRING
+ *   -exclude STRING : With -r, skip files and directories whose name matches the glob STRING
+ *   -m NUM : Stop reading a file after NUM selected lines
+ *   -q : Write nothing, exit with status 1 if no line is selected
+ *   -l : Write only the names of the files with a selected line
+ *   -L : Write only the names of the files without a selected line
  *   -o : Show only the part of a matching line that matches PATTERN
  *   -v : Select non-matching (instead of matching) lines
  *   -help : Brief information about supported options
+ *
+ * The options combine: -v selects the lines that do not match for every
+ * other option, -c counts the selected lines and -o writes their matches,
+ * both without context, and -A and -B override one side of -C. The input is
+ * read once, whatever the options, and no further than needed: -m stops
+ * after the trailing context of its last line, -q, -l and -L at the first
+ * selected line. Standard input is then left unread, which in a pipe stops
+ * the programs writing to it.
+ *
+ * With -e or -f, a line is selected when any of the patterns matches it, and
+ * the first param is the FILE. Plain string patterns are searched for all at
+ * once, see {@link LineMatcher}.
+ *
+ * With -r, the files under DIR are walked by a {@link FileWalker} and every
+ * line of output starts with the path of its file and ":". Files are
+ * searched at the same time and their output is written in the order of the
+ * walk, so it is the same on every run. Files with a NUL byte in their first
+ * block are binary and skipped.
+ *
+ * A FILE larger than a chunk is split into chunks of whole lines that are
+ * searched at the same time on the {@link ToolExecutor}; their output is
+ * written in the order of the input and is the same as that of one search
+ * over the file. The number of chunks searched at once is set with the
+ * system property "shell.grep.threads" (default the number of processors,
+ * 1 searches in one pass) and the size of a chunk in bytes with
+ * "shell.grep.chunksize" (default 16 MB).
  */
 public class GREPTool extends ATool implements IGrepTool {
 
+	public static final String THREADS_PROPERTY = "shell.grep.threads";
+	public static final String CHUNK_SIZE_PROPERTY = "shell.grep.chunksize";
+	public static final long DEFAULT_CHUNK_SIZE = 16L * 1024 * 1024;
+
+	/**
+	 * every chunk also reads the lines of context before it, a larger
+	 * context than this is searched in one pass
+	 */
+	private static final int MAX_PARALLEL_CONTEXT = 1024;
+
+	/**
+	 * name written by -l and -L for standard input
+	 */
+	private static final String STDIN_NAME = "(standard input)";
+
 	private ArgList argList = new ArgList();
 
 	/**
@@ -55,6 +123,24 @@ public class GREPTool extends ATool implements IGrepTool {
 				"Print NUM lines of output context");
 		argList.registerAcceptableOption("c",
 				"Suppress normal output. Instead print a count of matching lines for each input file");
+		argList.registerAcceptableOption("e", ArgType.STRING,
+				"Use STRING as a pattern, may be given several times");
+		argList.registerAcceptableOption("f", ArgType.STRING,
+				"Obtain patterns from the file STRING, one per line");
+		argList.registerAcceptableOption("r",
+				"Read all files under the directory DIR (default .), recursively");
+		argList.registerAcceptableOption("include", ArgType.STRING,
+				"With -r, search only files whose name matches the glob STRING");
+		argList.registerAcceptableOption("exclude", ArgType.STRING,
+				"With -r, skip files and directories whose name matches the glob STRING");
+		argList.registerAcceptableOption("m", ArgType.NUM,
+				"Stop reading a file after NUM selected lines");
+		argList.registerAcceptableOption("q",
+				"Write nothing, exit with status 1 if no line is selected");
+		argList.registerAcceptableOption("l",
+				"Write only the names of the files with a selected line");
+		argList.registerAcceptableOption("L",
+				"Write only the names of the files without a selected line");
 		argList.registerAcceptableOption("o",
 				"Show only the part of a matching line that matches PATTERN");
 		argList.registerAcceptableOption("v",
@@ -73,30 +159,14 @@ public class GREPTool extends ATool implements IGrepTool {
 	 */
 	@Override
 	public int getCountOfMatchingLines(String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		int output;
+		LineMatcher m = LineMatcher.compile(pattern);
 
-		int count = 0;
 		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				if (m.find()) {
-					count += 1;
-				}
-			}
-
-			br.close();
-
-			output = count;
+			return (int) search(Plan.COUNT, m, LineSource.of(input), new Result());
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = -1;
+			return -1;
 		}
-
-		return output;
 	}
 
 	/**
@@ -110,35 +180,38 @@ public class GREPTool extends ATool implements IGrepTool {
 
 	@Override
 	public String getOnlyMatchingLines(String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				if (m.find()) {
-					stdout.append(line + "\n");
-				}
-			}
-
-			br.close();
+			search(Plan.MATCHING, m, LineSource.of(input), stdout);
+			return stdout.toString();
+		} catch (IOException e) {
+			setStatusCode(2);
+			return e.getMessage();
+		}
+	}
 
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
-			}
+	/**
+	 * get the lines matching any of several patterns
+	 * 
+	 * @param patterns
+	 * @param input
+	 * 
+	 * @return the matched lines
+	 */
+	@Override
+	public String getLinesMatchingAny(String[] patterns, String input) {
+		LineMatcher m = LineMatcher.compile(Arrays.asList(patterns));
+		Result stdout = new Result();
 
-			output = stdout.toString();
+		try {
+			search(Plan.MATCHING, m, LineSource.of(input), stdout);
+			return stdout.toString();
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = e.getMessage();
+			return e.getMessage();
 		}
-
-		return output;
 	}
 
 	/**
@@ -153,40 +226,17 @@ public class GREPTool extends ATool implements IGrepTool {
 	@Override
 	public String getMatchingLinesWithTrailingContext(int optionA,
 			String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			int trailingCount = 0;
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				if (m.find()) {
-					stdout.append(line + "\n");
-					trailingCount = optionA;
-				} else if (trailingCount > 0) {
-					stdout.append(line + "\n");
-					trailingCount -= 1;
-				}
-			}
-			
-			br.close();
-
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
-			}
-
-			output = stdout.toString();
+			search(new Plan(false, false, null, 0, optionA, false), m,
+					LineSource.of(input), stdout);
+			return stdout.toString();
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = e.getMessage();
+			return e.getMessage();
 		}
-		
-		return output;
 	}
 	
 	/**
@@ -201,39 +251,17 @@ public class GREPTool extends ATool implements IGrepTool {
 	@Override
 	public String getMatchingLinesWithLeadingContext(int optionB,
 			String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			LineBuffer lineBuffer = new LineBuffer(optionB);
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				if (m.find()) {
-					stdout.append(lineBuffer.popAllToString());
-					stdout.append(line + "\n");
-				} else {
-					lineBuffer.add(line);
-				}
-			}
-			
-			br.close();
-
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
-			}
-
-			output = stdout.toString();
+			search(new Plan(false, false, null, optionB, 0, false), m,
+					LineSource.of(input), stdout);
+			return stdout.toString();
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = e.getMessage();
+			return e.getMessage();
 		}
-
-		return output;
 	}
 	
 	/**
@@ -248,53 +276,17 @@ public class GREPTool extends ATool implements IGrepTool {
 	@Override
 	public String getMatchingLinesWithOutputContext(int optionC,
 			String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			int trailingCount = -1;
-			LineBuffer lineBuffer = new LineBuffer(optionC);
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				if (m.find()) {
-					if (trailingCount > 0 && trailingCount != optionC) {
-						stdout.append("--\n");
-					} else if (trailingCount == 0) {
-						stdout.append("--\n--\n");
-					}
-
-					stdout.append(lineBuffer.popAllToString());
-					stdout.append(line + "\n");
-
-					trailingCount = optionC;
-				} else {
-					if (trailingCount > 0) {
-						stdout.append(line + "\n");
-						trailingCount -= 1;
-					}
-
-					lineBuffer.add(line);
-				}
-			}
-			
-			br.close();
-
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
-			}
-
-			output = stdout.toString();
+			search(new Plan(false, false, null, optionC, optionC, optionC > 0), m,
+					LineSource.of(input), stdout);
+			return stdout.toString();
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = e.getMessage();
+			return e.getMessage();
 		}
-
-		return output;
 	}
 	
 	/**
@@ -307,35 +299,16 @@ public class GREPTool extends ATool implements IGrepTool {
 	 */
 	@Override
 	public String getMatchingLinesOnlyMatchingPart(String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
-
-				while (m.find()) {
-					stdout.append(m.group() + "\n");
-				}
-			}
-			
-			br.close();
-
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
-			}
-
-			output = stdout.toString();
+			search(Plan.ONLY_MATCHING, m, LineSource.of(input), stdout);
+			return stdout.toString();
 		} catch (IOException e) {
 			setStatusCode(2);
-			output = e.getMessage();
+			return e.getMessage();
 		}
-
-		return output;
 	}
 	
 	/**
@@ -348,37 +321,110 @@ public class GREPTool extends ATool implements IGrepTool {
 	 */
 	@Override
 	public String getNonMatchingLines(String pattern, String input) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		Matcher m = Pattern.compile(pattern).matcher("");
-		String output;
+		LineMatcher m = LineMatcher.compile(pattern);
+		Result stdout = new Result();
 
-		StringBuffer stdout = new StringBuffer();
 		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				m.reset(line);
+			search(Plan.NON_MATCHING, m, LineSource.of(input), stdout);
+			return stdout.toString();
+		} catch (IOException e) {
+			setStatusCode(2);
+			return e.getMessage();
+		}
+	}
 
-				if (!m.find()) {
-					stdout.append(line + "\n");
-				}
+	/**
+	 * search the input once, as a plan says, writing the selected lines, their
+	 * parts or their context. The search stops reading as soon as the plan
+	 * has selected as many lines as it may, and written their context.
+	 * 
+	 * @return number of selected lines
+	 */
+	private long search(Plan plan, LineMatcher m, LineSource lines, Result stdout)
+			throws IOException {
+		long count = 0;
+
+		if (!plan.invert && !plan.hasContext()) {
+			// only the matching lines are needed, they can be skipped to
+			while (count < plan.max && m.nextMatchingLine(lines, getCancellationToken())) {
+				count += 1;
+				writeSelected(plan, m, lines, stdout);
 			}
-			
-			br.close();
 
-			// remove the last trailing \n
-			if (stdout.length() > 0) {
-				stdout.deleteCharAt(stdout.length() - 1);
+			// a search cancelled between two matches ends like the input
+			isCancelled();
+
+			return count;
+		}
+
+		LineBuffer leading = new LineBuffer(plan.before);
+		int trailingCount = -1;
+		boolean adjacent = false;
+
+		// after the last line to select, only its trailing context is read
+		while ((count < plan.max || trailingCount > 0) && lines.next() && !isCancelled()) {
+			if (count < plan.max && m.matches(lines) != plan.invert) {
+				count += 1;
+
+				if (plan.isSummary()) {
+					continue;
+				}
+
+				if (plan.separators && !adjacent) {
+					if (trailingCount > 0) {
+						stdout.appendSeparator();
+					} else if (trailingCount == 0) {
+						stdout.appendSeparator();
+						stdout.appendSeparator();
+					}
+				}
+
+				leading.popAllTo(stdout);
+				writeSelected(plan, m, lines, stdout);
+
+				trailingCount = plan.after;
+				adjacent = true;
+			} else if (!plan.isSummary()) {
+				adjacent = false;
+
+				if (trailingCount > 0) {
+					stdout.appendLine(lines);
+					trailingCount -= 1;
+
+					// -C writes the lines of trailing context again as leading
+					// context of the next match
+					if (!plan.separators) {
+						continue;
+					}
+				}
+
+				leading.add(lines);
 			}
+		}
 
-			output = stdout.toString();
-		} catch (IOException e) {
-			setStatusCode(2);
-			output = e.getMessage();
+		return count;
+	}
+
+	/**
+	 * write a selected line, or every match in it on a line of its own
+	 */
+	private static void writeSelected(Plan plan, LineMatcher m, LineSource lines,
+			Result stdout) throws IOException {
+		if (plan.isSummary()) {
+			return;
 		}
 
-		return output;
+		if (plan.onlyMatching) {
+			m.reset(lines);
+
+			while (m.find()) {
+				stdout.appendLine(m.group());
+			}
+		} else {
+			stdout.appendLine(lines);
+		}
 	}
-	
+
 	/**
 	 * get helps
 	 * 
@@ -389,6 +435,8 @@ public class GREPTool extends ATool implements IGrepTool {
 		StringBuilder help = new StringBuilder();
 
 		help.append("Command Format - grep [OPTIONS] PATTERN [FILE]\n");
+		help.append("                 grep [OPTIONS] {-e PATTERN | -f FILE}... [FILE]\n");
+		help.append("                 grep -r [OPTIONS] PATTERN [DIR]\n");
 		help.append("PATTERN - This specifies a regular expression pattern that describes a set of strings\n");
 		help.append("FILE - Name of the file, when no file is present (denoted by \"-\") use standard input\n");
 		help.append("OPTIONS\n");
@@ -403,41 +451,438 @@ public class GREPTool extends ATool implements IGrepTool {
 		return help.toString();
 	}
 	
+	/**
+	 * get the patterns given with -e and in the files given with -f
+	 * 
+	 * @param workingDir
+	 * 
+	 * @return the patterns, null if neither option is given
+	 * @throws IOException when a pattern file cannot be read
+	 * @throws RuntimeException when a pattern file does not exist
+	 */
+	private List<String> readPatternOptions(File workingDir) throws IOException,
+			RuntimeException {
+		if (!argList.hasOption("e") && !argList.hasOption("f")) {
+			return null;
+		}
+
+		List<String> patterns = new ArrayList<String>();
+
+		if (argList.hasOption("e")) {
+			patterns.addAll(Arrays.asList(argList.getOptionValues("e")));
+		}
+
+		if (argList.hasOption("f")) {
+			for (String name : argList.getOptionValues("f")) {
+				File file = new File(PathUtils.pathResolver(workingDir, name));
+
+				patterns.addAll(Arrays.asList(FileUtils.readFileLines(file)));
+			}
+		}
+
+		return patterns;
+	}
+
+	/**
+	 * get the plan of the search from the options. -q, -l, -L and -c leave
+	 * out the lines, in that order, and with -o the context; -A and -B set
+	 * the context on one side, overriding -C. -q, -l and -L only need to
+	 * know whether one line is selected.
+	 * 
+	 * @return Plan
+	 */
+	private Plan compilePlan() {
+		Summary summary = null;
+		long max = Long.MAX_VALUE;
+
+		if (argList.hasOption("q")) {
+			summary = Summary.QUIET;
+		} else if (argList.hasOption("l")) {
+			summary = Summary.FILES_WITH_MATCHES;
+		} else if (argList.hasOption("L")) {
+			summary = Summary.FILES_WITHOUT_MATCH;
+		} else if (argList.hasOption("c")) {
+			summary = Summary.COUNT;
+		}
+
+		if (argList.hasOption("m")) {
+			max = Long.parseLong(argList.getOptionValue("m"));
+		}
+
+		if (summary != null && summary != Summary.COUNT) {
+			max = Math.min(max, 1);
+		}
+
+		boolean onlyMatching = argList.hasOption("o");
+		int before = 0;
+		int after = 0;
+		boolean separators = false;
+
+		if (summary == null && !onlyMatching) {
+			if (argList.hasOption("C")) {
+				before = Integer.parseInt(argList.getOptionValue("C"));
+				after = before;
+				separators = before > 0;
+			}
+
+			if (argList.hasOption("A")) {
+				after = Integer.parseInt(argList.getOptionValue("A"));
+			}
+
+			if (argList.hasOption("B")) {
+				before = Integer.parseInt(argList.getOptionValue("B"));
+			}
+		}
+
+		return new Plan(argList.hasOption("v"), onlyMatching, summary, max, before, after,
+				separators);
+	}
+
 	/**
 	 * execute the grep tool
 	 * 
-	 * @param option
-	 * @param input
+	 * @param plan
+	 * @param m the patterns
+	 * @param lines the input
+	 * @param stdout
+	 * @param name of the input, written by -l and -L
 	 * 
-	 * @return stdout from grep tool
-	 */
-	private String executeOption(String option, String input) {
-		if (option.equals("A")) {
-			return getMatchingLinesWithTrailingContext(
-					Integer.parseInt(argList.getOptionValue("A")),
-					argList.getParam(0), input);
-		} else if (option.equals("B")) {
-			return getMatchingLinesWithLeadingContext(
-					Integer.parseInt(argList.getOptionValue("B")),
-					argList.getParam(0), input);
-		} else if (option.equals("C")) {
-			return getMatchingLinesWithOutputContext(
-					Integer.parseInt(argList.getOptionValue("C")),
-					argList.getParam(0), input);
-		}
-
-		if (option.equals("c")) {
-			Integer count = getCountOfMatchingLines(argList.getParams()[0],
-					input);
-			return count.toString();
-		} else if (option.equals("o")) {
-			return getMatchingLinesOnlyMatchingPart(argList.getParams()[0],
-					input);
-		} else { // if (option.equals("v"))
-			return getNonMatchingLines(argList.getParams()[0], input);
+	 * @return number of selected lines
+	 */
+	private long executePlan(Plan plan, LineMatcher m, LineSource lines, Result stdout,
+			String name) throws IOException {
+		long count = search(plan, m, lines, stdout);
+
+		if (plan.summary == Summary.COUNT) {
+			stdout.appendLine(String.valueOf(count));
+		} else if (plan.summary == Summary.FILES_WITH_MATCHES && count > 0) {
+			stdout.appendLine(name);
+		} else if (plan.summary == Summary.FILES_WITHOUT_MATCH && count == 0) {
+			stdout.appendLine(name);
 		}
+
+		return count;
 	}
 	
+	/**
+	 * check whether a file is searched in chunks at the same time
+	 * 
+	 * @param plan
+	 * @param file
+	 * 
+	 * @return boolean
+	 */
+	private boolean isParallel(Plan plan, File file) {
+		return getThreads() > 1 && !plan.isBounded()
+				&& plan.getContext() <= MAX_PARALLEL_CONTEXT
+				&& file.isFile() && file.length() > getChunkSize();
+	}
+
+	private static int getThreads() {
+		return Integer.getInteger(THREADS_PROPERTY,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	private static long getChunkSize() {
+		return Long.getLong(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * execute the grep tool on the chunks of a file at the same time, and
+	 * write their output in order. At most as many chunks as there are
+	 * threads are searched or waiting to be written at a time; the matchers
+	 * compiled for them are reused.
+	 * 
+	 * @param plan
+	 * @param patterns
+	 * @param m the matcher compiled by execute, reused first
+	 * @param file
+	 * @param stdout
+	 */
+	private void executeParallel(final Plan plan, final List<String> patterns,
+			LineMatcher m, File file, Result stdout) throws IOException {
+		final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		final int context = plan.getContext();
+		final Queue<LineMatcher> matchers = new ConcurrentLinkedQueue<LineMatcher>();
+		matchers.add(m);
+		LinkedList<FutureTask<Chunk>> pending = new LinkedList<FutureTask<Chunk>>();
+
+		try {
+			long[] bounds = LineChunks.split(channel, getChunkSize());
+			int threads = getThreads();
+			int next = 0;
+			long count = 0;
+			boolean matched = false;
+
+			while (next < bounds.length - 1 || !pending.isEmpty()) {
+				while (next < bounds.length - 1 && pending.size() < threads) {
+					final long from = bounds[next];
+					final long to = bounds[next + 1];
+
+					FutureTask<Chunk> task = new FutureTask<Chunk>(new Callable<Chunk>() {
+						@Override
+						public Chunk call() throws IOException {
+							return searchChunk(plan, patterns, matchers, context,
+									channel, from, to);
+						}
+					});
+
+					pending.add(task);
+					ToolExecutor.get().submit(task);
+					next++;
+				}
+
+				Chunk chunk = await(pending.removeFirst());
+
+				if (isCancelled()) {
+					break;
+				}
+
+				// the chunk did not see the match before its context
+				if (plan.separators && matched && chunk.matched
+						&& !chunk.matchedInContext) {
+					stdout.appendSeparator();
+					stdout.appendSeparator();
+				}
+
+				if (chunk.hasLines) {
+					stdout.appendLines(chunk.output);
+				}
+
+				matched |= chunk.matched;
+				count += chunk.count;
+			}
+
+			if (plan.summary == Summary.COUNT) {
+				stdout.appendLine(String.valueOf(count));
+			}
+		} finally {
+			for (FutureTask<Chunk> task : pending) {
+				task.cancel(false);
+			}
+
+			channel.close();
+		}
+	}
+
+	/**
+	 * execute the grep tool on the lines of [from, to) of a file. The lines
+	 * of context before from are searched too, but their output is left out,
+	 * so the chunk starts in the state one search over the file would be in.
+	 * Only for -C the state can differ: whether a line was selected before the
+	 * context, which is left to the caller.
+	 */
+	private Chunk searchChunk(Plan plan, List<String> patterns,
+			Queue<LineMatcher> matchers, int context, FileChannel channel,
+			long from, long to) throws IOException {
+		long start = LineChunks.lookback(channel, from, context);
+		LineSource lines = LineSource.open(channel, start, to);
+		LineMatcher compiled = matchers.poll();
+
+		if (compiled == null) {
+			compiled = LineMatcher.compile(patterns);
+		}
+
+		ChunkMatcher m = new ChunkMatcher(compiled, plan.invert, from - start);
+		Chunk chunk = new Chunk();
+		ChunkResult output = new ChunkResult(chunk.output, lines, from - start);
+
+		try {
+			// -c has no context, so every line counted is in the chunk
+			chunk.count = search(plan, m, lines, output);
+		} finally {
+			lines.close();
+			matchers.add(compiled);
+		}
+
+		chunk.hasLines = !output.isEmpty();
+		chunk.matched = m.matched;
+		chunk.matchedInContext = m.matchedInContext;
+
+		return chunk;
+	}
+
+	/**
+	 * execute the grep tool on every file under a directory. At most as many
+	 * files as there are threads are searched or waiting to be written at a
+	 * time; the matchers compiled for them are reused.
+	 * 
+	 * @param plan
+	 * @param patterns
+	 * @param m the matcher compiled by execute, reused first
+	 * @param root the directory
+	 * @param name the directory as given, null if none was
+	 * @param stdout
+	 * @param stderr
+	 */
+	private void executeRecursive(final Plan plan, final List<String> patterns,
+			LineMatcher m, final File root, String name, Result stdout,
+			OutputStream stderr)
+			throws IOException {
+		FileWalker walker;
+
+		try {
+			walker = new FileWalker(root, optionValues("include"), optionValues("exclude"));
+		} catch (IllegalArgumentException e) {
+			setStatusCode(9);
+			stderr.write(("Error: Illegal glob: " + e.getMessage()).getBytes(CHARSET));
+			return;
+		}
+
+		final Queue<LineMatcher> matchers = new ConcurrentLinkedQueue<LineMatcher>();
+		matchers.add(m);
+		String directory = name == null ? ""
+				: name.endsWith(File.separator) ? name : name + File.separator;
+		LinkedList<FutureTask<Chunk>> pending = new LinkedList<FutureTask<Chunk>>();
+		List<String> errors = new ArrayList<String>();
+		int threads = getThreads();
+		boolean selected = false;
+
+		try {
+			while (walker.hasNext() || !pending.isEmpty()) {
+				while (walker.hasNext() && pending.size() < threads) {
+					final String path = walker.next();
+					final String display = directory + path;
+
+					FutureTask<Chunk> task = new FutureTask<Chunk>(new Callable<Chunk>() {
+						@Override
+						public Chunk call() throws IOException {
+							return searchFile(plan, patterns, matchers,
+									new File(root, path), display);
+						}
+					});
+
+					pending.add(task);
+					ToolExecutor.get().submit(task);
+				}
+
+				Chunk chunk = await(pending.removeFirst());
+
+				if (isCancelled()) {
+					break;
+				}
+
+				if (chunk.hasLines) {
+					stdout.appendLines(chunk.output);
+				}
+
+				if (chunk.error != null) {
+					errors.add(chunk.error);
+				}
+
+				selected |= chunk.count > 0;
+
+				// -q knows its answer, the other files need not be searched
+				if (selected && plan.summary == Summary.QUIET) {
+					break;
+				}
+			}
+		} finally {
+			for (FutureTask<Chunk> task : pending) {
+				task.cancel(false);
+			}
+		}
+
+		for (String error : walker.getErrors()) {
+			errors.add("Error: Cannot read " + error);
+		}
+
+		if (!errors.isEmpty()) {
+			stderr.write(join(errors).getBytes(CHARSET));
+		}
+
+		if (selected && plan.summary == Summary.QUIET) {
+			return;
+		} else if (!errors.isEmpty()) {
+			setStatusCode(2);
+		} else if (plan.summary == Summary.QUIET && getStatusCode() == 0) {
+			setStatusCode(1);
+		}
+	}
+
+	/**
+	 * execute the grep tool on one file found by -r, leaving out binary
+	 * files
+	 * 
+	 * @param display path of the file written before every line
+	 */
+	private Chunk searchFile(Plan plan, List<String> patterns,
+			Queue<LineMatcher> matchers, File file, String display) throws IOException {
+		Chunk chunk = new Chunk();
+		LineSource lines;
+
+		try {
+			lines = LineSource.open(file);
+		} catch (IOException e) {
+			chunk.error = "Error: Cannot read " + display;
+			return chunk;
+		} catch (RuntimeException e) {
+			// removed since it was found
+			return chunk;
+		}
+
+		LineMatcher m = matchers.poll();
+
+		if (m == null) {
+			m = LineMatcher.compile(patterns);
+		}
+
+		try {
+			if (!lines.isBinary()) {
+				// -l and -L write the path on its own
+				boolean names = plan.summary == Summary.FILES_WITH_MATCHES
+						|| plan.summary == Summary.FILES_WITHOUT_MATCH;
+				Result output = names ? new Result(chunk.output)
+						: new Result(chunk.output, display + ":");
+
+				chunk.count = executePlan(plan, m, lines, output, display);
+				chunk.hasLines = !output.isEmpty();
+			}
+		} finally {
+			lines.close();
+			matchers.add(m);
+		}
+
+		return chunk;
+	}
+
+	private List<String> optionValues(String option) {
+		return argList.hasOption(option) ? Arrays.asList(argList.getOptionValues(option))
+				: Collections.<String> emptyList();
+	}
+
+	private static String join(List<String> lines) {
+		StringBuilder joined = new StringBuilder();
+
+		for (String line : lines) {
+			if (joined.length() > 0) {
+				joined.append('\n');
+			}
+
+			joined.append(line);
+		}
+
+		return joined.toString();
+	}
+
+	/**
+	 * wait for the search of a chunk
+	 */
+	private static Chunk await(FutureTask<Chunk> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Error: Search interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw new IOException("Error: " + e.getCause().getMessage());
+		}
+	}
+
 	/**
 	 * get only the matching lines
 	 * 
@@ -449,82 +894,565 @@ public class GREPTool extends ATool implements IGrepTool {
 
 	@Override
 	public String execute(File workingDir, String stdin) {
+		return executeBuffered(workingDir, stdin == null ? "" : stdin);
+	}
+
+	/**
+	 * Reads the input one line at a time and writes every result line as soon
+	 * as it is found, so the output of a long search starts right away and
+	 * the input never has to fit in memory. Lines are matched and written
+	 * as bytes, and only decoded when they are not ASCII.
+	 */
+	@Override
+	public void execute(File workingDir, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
 		// parse arguments
 		try {
 			argList.parseArgs(this.args);
 		} catch (IllegalArgumentException e) {
 			setStatusCode(9);
-			return e.getMessage();
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
 		}
 
 		// help option?
 		if (argList.hasOptions() && argList.getOption(0).equals("help")) {
-			return getHelp();
+			stdout.write(getHelp().getBytes(CHARSET));
+			return;
 		}
 
-		// check pattern exists
-		if (!argList.hasParams()) {
-			setStatusCode(8);
-			return "Error: No Pattern Provided";
+		// patterns from options, or the first param
+		List<String> patterns;
+
+		try {
+			patterns = readPatternOptions(workingDir);
+		} catch (IOException e) {
+			setStatusCode(2);
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
+		} catch (RuntimeException e) {
+			setStatusCode(2);
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
+		}
+
+		int fileIndex = 0;
+
+		if (patterns == null) {
+			// check pattern exists
+			if (!argList.hasParams()) {
+				setStatusCode(8);
+				stderr.write("Error: No Pattern Provided".getBytes(CHARSET));
+				return;
+			}
+
+			patterns = Arrays.asList(argList.getParam(0));
+			fileIndex = 1;
+		}
+
+		LineMatcher m = LineMatcher.compile(patterns);
+
+		Plan plan = compilePlan();
+
+		// a directory to walk?
+		if (argList.hasOption("r")) {
+			String name = argList.getParams().length > fileIndex
+					? argList.getParam(fileIndex) : null;
+			File root = new File(PathUtils.pathResolver(workingDir,
+					name == null ? "." : name));
+
+			if (root.isDirectory()) {
+				executeRecursive(plan, patterns, m, root, name, new Result(stdout), stderr);
+				return;
+			}
 		}
 
 		// set input from stdin or file
-		String input = stdin == null ? "" : stdin;
+		boolean fromFile = argList.getParams().length > fileIndex
+				&& !argList.getParam(fileIndex).equals("-");
+		LineSource lines;
+
+		if (fromFile) {
+			File file = new File(PathUtils.pathResolver(workingDir,
+					argList.getParam(fileIndex)));
+
+			if (isParallel(plan, file)) {
+				executeParallel(plan, patterns, m, file, new Result(stdout));
+				return;
+			}
 
-		if (argList.getParams().length > 1 && !argList.getParam(1).equals("-")) {
 			try {
-				input = FileUtils.readFileContent(new File(PathUtils
-						.pathResolver(workingDir, argList.getParam(1))));
+				lines = LineSource.open(file);
 			} catch (IOException e) {
 				setStatusCode(1);
-				return e.getMessage();
+				stderr.write(e.getMessage().getBytes(CHARSET));
+				return;
 			} catch (RuntimeException e) {
 				setStatusCode(2);
-				return e.getMessage();
+				stderr.write(e.getMessage().getBytes(CHARSET));
+				return;
 			}
+		} else {
+			lines = new LineSource(stdin == null
+					? new ByteArrayInputStream(new byte[0]) : stdin);
 		}
 
-		// option provided?
-		if (argList.hasOptions()) {
-			return executeOption(argList.getOption(0), input);
+		try {
+			long count = executePlan(plan, m, lines, new Result(stdout),
+					fromFile ? argList.getParam(fileIndex) : STDIN_NAME);
+
+			if (plan.summary == Summary.QUIET && count == 0 && getStatusCode() == 0) {
+				setStatusCode(1);
+			}
+		} finally {
+			// stdin belongs to the caller
+			if (fromFile) {
+				lines.close();
+			}
+		}
+	}
+
+	/**
+	 * Receives the output lines of grep, in a String or on a stream. The
+	 * lines are separated, not terminated, by new lines: the new line before
+	 * a line is only written once the next line comes.
+	 */
+	private static class Result {
+		private final StringBuilder text;
+		private final OutputStream stream;
+		private final String prefix;
+		private boolean started = false;
+
+		public Result() {
+			this.text = new StringBuilder();
+			this.stream = null;
+			this.prefix = "";
+		}
+
+		public Result(OutputStream stream) {
+			this(stream, "");
+		}
+
+		/**
+		 * @param stream
+		 * @param prefix written before every line but the separators, e.g.
+		 *            the name of the file searched
+		 */
+		public Result(OutputStream stream, String prefix) {
+			this.text = null;
+			this.stream = stream;
+			this.prefix = prefix;
+		}
+
+		public void appendLine(String line) throws IOException {
+			startLine(true);
+
+			if (text != null) {
+				text.append(line);
+			} else {
+				stream.write(line.getBytes(CHARSET));
+			}
+		}
+
+		/**
+		 * append the current line of a source, passing its bytes on
+		 * without decoding them when writing to a stream
+		 */
+		public void appendLine(LineSource lines) throws IOException {
+			startLine(true);
+
+			if (text != null) {
+				text.append(lines.chars());
+			} else {
+				lines.writeTo(stream);
+			}
 		}
 
-		// default
-		return getOnlyMatchingLines(argList.getParam(0), input);
+		/**
+		 * append a line kept as bytes, e.g. by a {@link LineBuffer}
+		 */
+		public void appendLine(byte[] bytes, int offset, int length) throws IOException {
+			startLine(true);
+
+			if (text != null) {
+				text.append(new String(bytes, offset, length, CHARSET));
+			} else {
+				stream.write(bytes, offset, length);
+			}
+		}
+
+		/**
+		 * append the "--" line between groups of context
+		 */
+		public void appendSeparator() throws IOException {
+			startLine(false);
+
+			if (text != null) {
+				text.append("--");
+			} else {
+				stream.write('-');
+				stream.write('-');
+			}
+		}
+
+		/**
+		 * write the new line before a line, if it is not the first one, and
+		 * the prefix
+		 */
+		private void startLine(boolean prefixed) throws IOException {
+			if (text != null) {
+				if (started) {
+					text.append('\n');
+				}
+
+				if (prefixed) {
+					text.append(prefix);
+				}
+			} else {
+				if (started) {
+					stream.write('\n');
+				}
+
+				if (prefixed && !prefix.isEmpty()) {
+					stream.write(prefix.getBytes(CHARSET));
+				}
+			}
+
+			started = true;
+		}
+
+		/**
+		 * append one or more lines another result wrote to a byte stream
+		 */
+		public void appendLines(ByteArrayOutputStream lines) throws IOException {
+			if (text != null) {
+				if (started) {
+					text.append('\n');
+				}
+
+				text.append(new String(lines.toByteArray(), CHARSET));
+			} else {
+				if (started) {
+					stream.write('\n');
+				}
+
+				lines.writeTo(stream);
+			}
+
+			started = true;
+		}
+
+		/**
+		 * @return whether no line has been appended
+		 */
+		public boolean isEmpty() {
+			return !started;
+		}
+
+		@Override
+		public String toString() {
+			return text == null ? "" : text.toString();
+		}
+	}
+
+	/**
+	 * the output of the search of a chunk or a file, kept until it is
+	 * written in order
+	 */
+	private static class Chunk {
+		private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		private boolean hasLines = false;
+		private long count = 0;
+		private boolean matched = false;
+		private boolean matchedInContext = false;
+		private String error = null;
+	}
+
+	/**
+	 * leaves out the output written for the lines of context before a chunk
+	 */
+	private static class ChunkResult extends Result {
+		private final LineSource lines;
+		private final long from;
+
+		/**
+		 * @param stream
+		 * @param lines the lines searched
+		 * @param from offset in lines of the first line of the chunk
+		 */
+		public ChunkResult(OutputStream stream, LineSource lines, long from) {
+			super(stream);
+			this.lines = lines;
+			this.from = from;
+		}
+
+		@Override
+		public void appendLine(String line) throws IOException {
+			if (lines.getOffset() >= from) {
+				super.appendLine(line);
+			}
+		}
+
+		@Override
+		public void appendLine(LineSource source) throws IOException {
+			if (lines.getOffset() >= from) {
+				super.appendLine(source);
+			}
+		}
+
+		@Override
+		public void appendLine(byte[] bytes, int offset, int length) throws IOException {
+			if (lines.getOffset() >= from) {
+				super.appendLine(bytes, offset, length);
+			}
+		}
+
+		@Override
+		public void appendSeparator() throws IOException {
+			if (lines.getOffset() >= from) {
+				super.appendSeparator();
+			}
+		}
+	}
+
+	/**
+	 * remembers whether the lines of a chunk, or the lines of context before
+	 * it, have a selected line
+	 */
+	private static class ChunkMatcher extends LineMatcher {
+		private final LineMatcher matcher;
+		private final boolean invert;
+		private final long from;
+		private boolean matched = false;
+		private boolean matchedInContext = false;
+
+		/**
+		 * @param matcher
+		 * @param invert whether the lines that do not match are selected
+		 * @param from offset in the lines searched of the first line of the
+		 *            chunk
+		 */
+		public ChunkMatcher(LineMatcher matcher, boolean invert, long from) {
+			this.matcher = matcher;
+			this.invert = invert;
+			this.from = from;
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return matcher.isLiteral();
+		}
+
+		@Override
+		public void reset(LineSource lines) {
+			matcher.reset(lines);
+		}
+
+		@Override
+		public boolean find() {
+			return matcher.find();
+		}
+
+		@Override
+		public String group() {
+			return matcher.group();
+		}
+
+		@Override
+		public boolean matches(LineSource lines) {
+			return record(lines, matcher.matches(lines));
+		}
+
+		@Override
+		public boolean nextMatchingLine(LineSource lines, CancellationToken token)
+				throws IOException {
+			return record(lines, matcher.nextMatchingLine(lines, token));
+		}
+
+		private boolean record(LineSource lines, boolean found) {
+			boolean selected = found != invert;
+
+			if (selected && lines.getOffset() < from) {
+				matchedInContext = true;
+			} else if (selected) {
+				matched = true;
+			}
+
+			return found;
+		}
 	}
 	
 	/**
-	 * class to handler line buffer used in matching lines
+	 * what one search selects and writes, compiled once from the options
+	 */
+	private static class Plan {
+		public static final Plan MATCHING = new Plan(false, false, null, 0, 0, false);
+		public static final Plan NON_MATCHING = new Plan(true, false, null, 0, 0, false);
+		public static final Plan ONLY_MATCHING = new Plan(false, true, null, 0, 0, false);
+		public static final Plan COUNT = new Plan(false, false, Summary.COUNT, 0, 0, false);
+
+		private final boolean invert;
+		private final boolean onlyMatching;
+		private final Summary summary;
+		private final long max;
+		private final int before;
+		private final int after;
+		private final boolean separators;
+
+		/**
+		 * a plan selecting every line it can
+		 */
+		public Plan(boolean invert, boolean onlyMatching, Summary summary, int before,
+				int after, boolean separators) {
+			this(invert, onlyMatching, summary, Long.MAX_VALUE, before, after, separators);
+		}
+
+		/**
+		 * @param invert select the lines that do not match
+		 * @param onlyMatching write the matches in the selected lines
+		 * @param summary what is written instead of the lines, null to write
+		 *            the lines
+		 * @param max number of lines selected before the search stops
+		 * @param before lines of leading context
+		 * @param after lines of trailing context
+		 * @param separators write "--" between groups of context, and the
+		 *            trailing context again as leading context, like -C
+		 */
+		public Plan(boolean invert, boolean onlyMatching, Summary summary, long max,
+				int before, int after, boolean separators) {
+			this.invert = invert;
+			this.onlyMatching = onlyMatching;
+			this.summary = summary;
+			this.max = max;
+			this.before = before;
+			this.after = after;
+			this.separators = separators;
+		}
+
+		/**
+		 * @return whether no lines are written, only a summary of them
+		 */
+		public boolean isSummary() {
+			return summary != null;
+		}
+
+		/**
+		 * @return whether the search may stop before the end of the input
+		 */
+		public boolean isBounded() {
+			return max != Long.MAX_VALUE;
+		}
+
+		public boolean hasContext() {
+			return before > 0 || after > 0 || separators;
+		}
+
+		/**
+		 * @return number of lines before a line that decide what is written
+		 *         from there on
+		 */
+		public int getContext() {
+			// without separators, whether a line of leading context has been
+			// written as trailing context depends on the lines before it; with
+			// them, whether the line before was selected
+			return separators ? Math.max(1, Math.max(before, after)) : before + after;
+		}
+	}
+
+	/**
+	 * what is written instead of the selected lines
 	 */
-	class LineBuffer {
-		private LinkedList<String> lines;
-		private int size;
+	private enum Summary {
+		/** the number of selected lines */
+		COUNT,
+		/** nothing, only the status tells whether a line was selected */
+		QUIET,
+		/** the name of the input, if a line was selected */
+		FILES_WITH_MATCHES,
+		/** the name of the input, if no line was selected */
+		FILES_WITHOUT_MATCH
+	}
+
+	/**
+	 * the last lines not written yet, up to a number of them. The lines are
+	 * copied into a ring of byte arrays that are reused, so once the arrays
+	 * are as long as the lines, keeping a line allocates nothing. The ring
+	 * grows up to its size as lines come, so a large context given on the
+	 * command line costs nothing up front.
+	 */
+	private static class LineBuffer {
+		private static final int INITIAL_SLOTS = 16;
+
+		private final int size;
+		private byte[][] slots;
+		private int[] lengths;
+		private int first = 0;
+		private int count = 0;
 
 		public LineBuffer(int size) {
 			this.size = size;
-			this.lines = new LinkedList<String>();
+			this.slots = new byte[Math.min(size, INITIAL_SLOTS)][];
+			this.lengths = new int[slots.length];
 		}
 
-		public void add(String line) {
-			if (lines.size() == size) {
-				lines.remove();
+		/**
+		 * keep the current line of a source, dropping the oldest line if
+		 * there are as many as the size
+		 */
+		public void add(LineSource lines) {
+			if (size == 0) {
+				return;
+			}
+
+			if (count == slots.length && count < size) {
+				grow();
+			}
+
+			int slot;
+
+			if (count == slots.length) {
+				slot = first;
+				first = (first + 1) % slots.length;
+			} else {
+				slot = (first + count) % slots.length;
+				count += 1;
+			}
+
+			int length = lines.length();
+
+			if (slots[slot] == null || slots[slot].length < length) {
+				int old = slots[slot] == null ? 0 : slots[slot].length;
+				slots[slot] = new byte[Math.max(length, 2 * old)];
 			}
 
-			lines.add(line);
+			System.arraycopy(lines.buffer(), lines.start(), slots[slot], 0, length);
+			lengths[slot] = length;
 		}
 
-		public String popAllToString() {
-			if (lines.size() == 0) {
-				return "";
+		/**
+		 * write the lines kept, oldest first, and forget them
+		 */
+		public void popAllTo(Result out) throws IOException {
+			while (count > 0) {
+				out.appendLine(slots[first], 0, lengths[first]);
+				first = (first + 1) % slots.length;
+				count -= 1;
 			}
+		}
 
-			StringBuffer out = new StringBuffer();
+		private void grow() {
+			int capacity = (int) Math.min(size, 2L * slots.length);
+			byte[][] grownSlots = new byte[capacity][];
+			int[] grownLengths = new int[capacity];
 
-			while (!lines.isEmpty()) {
-				out.append(lines.remove() + "\n");
+			for (int i = 0; i < count; i++) {
+				grownSlots[i] = slots[(first + i) % slots.length];
+				grownLengths[i] = lengths[(first + i) % slots.length];
 			}
 
-			return out.toString();
+			slots = grownSlots;
+			lengths = grownLengths;
+			first = 0;
 		}
 	}
 }
@@ -0,0 +1,336 @@
+package sg.edu.nus.comp.cs4218.impl.extended1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import sg.edu.nus.comp.cs4218.impl.AhoCorasickSearch;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
+import sg.edu.nus.comp.cs4218.impl.LiteralSearch;
+
+/**
+ * Decides which lines grep selects. A pattern without regular expression
+ * metacharacters is a plain string and is searched for with a
+ * {@link LiteralSearch} over the bytes of the input; any other pattern is
+ * compiled into a regular expression and matched line by line.
+ *
+ * Several patterns select a line when any of them matches it. When all of
+ * them are plain strings they are searched for at once with an
+ * {@link AhoCorasickSearch}, in one pass over the input however many there
+ * are; otherwise they are compiled into one regular expression of
+ * alternatives.
+ *
+ * Like a Matcher, a LineMatcher is reset to a line and then finds the
+ * occurrences in it one after the other.
+ */
+public abstract class LineMatcher {
+
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+	/**
+	 * compile a grep pattern
+	 *
+	 * @param pattern
+	 *
+	 * @return LineMatcher
+	 * @throws java.util.regex.PatternSyntaxException if the pattern is not a
+	 *             valid regular expression
+	 */
+	public static LineMatcher compile(String pattern) {
+		String literal = toLiteral(pattern);
+
+		if (literal != null) {
+			return new Literal(literal);
+		}
+
+		return new Regex(Pattern.compile(pattern));
+	}
+
+	/**
+	 * compile a list of grep patterns, any of which selects a line
+	 *
+	 * @param patterns
+	 *
+	 * @return LineMatcher, which selects no line if the list is empty
+	 * @throws java.util.regex.PatternSyntaxException if a pattern is not a
+	 *             valid regular expression
+	 */
+	public static LineMatcher compile(List<String> patterns) {
+		if (patterns.size() == 1) {
+			return compile(patterns.get(0));
+		}
+
+		List<String> literals = new ArrayList<String>(patterns.size());
+
+		for (String pattern : patterns) {
+			String literal = toLiteral(pattern);
+
+			if (literal == null) {
+				return new Regex(Pattern.compile(toAlternatives(patterns)));
+			}
+
+			literals.add(literal);
+		}
+
+		if (literals.isEmpty()) {
+			// a lookahead for nothing never matches
+			return new Regex(Pattern.compile("(?!)"));
+		}
+
+		return new LiteralSet(literals);
+	}
+
+	/**
+	 * join patterns into one regular expression that matches where any of
+	 * them matches. Plain strings are quoted, so their backslashes keep their
+	 * meaning.
+	 */
+	private static String toAlternatives(List<String> patterns) {
+		StringBuilder regex = new StringBuilder();
+
+		for (String pattern : patterns) {
+			String literal = toLiteral(pattern);
+
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+
+			if (literal != null) {
+				regex.append(Pattern.quote(literal));
+			} else {
+				// a pattern must be valid on its own, not only once joined
+				Pattern.compile(pattern);
+				regex.append("(?:").append(pattern).append(')');
+			}
+		}
+
+		return regex.toString();
+	}
+
+	/**
+	 * get the string a pattern matches when it is not a real regular
+	 * expression. A backslash before a character other than a letter or a
+	 * digit only quotes it, so "a\.b" is the string "a.b".
+	 *
+	 * @param pattern
+	 *
+	 * @return the string, null if the pattern needs a regular expression
+	 */
+	static String toLiteral(String pattern) {
+		StringBuilder literal = new StringBuilder(pattern.length());
+
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+
+			if (c == '\\' && i + 1 < pattern.length()
+					&& !Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+				c = pattern.charAt(++i);
+			} else if (METACHARACTERS.indexOf(c) >= 0) {
+				return null;
+			}
+
+			// a line never contains a terminator
+			if (c == '\n' || c == '\r') {
+				return null;
+			}
+
+			literal.append(c);
+		}
+
+		return literal.length() == 0 ? null : literal.toString();
+	}
+
+	/**
+	 * @return whether the pattern is searched for as a plain string
+	 */
+	public abstract boolean isLiteral();
+
+	/**
+	 * start finding the occurrences in the current line of a source
+	 *
+	 * @param lines
+	 */
+	public abstract void reset(LineSource lines);
+
+	/**
+	 * find the next occurrence in the line
+	 *
+	 * @return false if there are no more
+	 */
+	public abstract boolean find();
+
+	/**
+	 * @return the text of the occurrence last found
+	 */
+	public abstract String group();
+
+	/**
+	 * check whether the current line of a source has an occurrence
+	 *
+	 * @param lines
+	 *
+	 * @return boolean
+	 */
+	public boolean matches(LineSource lines) {
+		reset(lines);
+		return find();
+	}
+
+	/**
+	 * move a source to its next line that has an occurrence
+	 *
+	 * @param lines
+	 * @param token stops the search
+	 *
+	 * @return false at the end of the input, or when cancelled
+	 * @throws IOException when the input cannot be read
+	 */
+	public boolean nextMatchingLine(LineSource lines, CancellationToken token)
+			throws IOException {
+		while (!token.isCancelled() && lines.next()) {
+			if (matches(lines)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * a regular expression, matched against the characters of every line
+	 */
+	private static class Regex extends LineMatcher {
+		private final Matcher matcher;
+
+		public Regex(Pattern pattern) {
+			this.matcher = pattern.matcher("");
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return false;
+		}
+
+		@Override
+		public void reset(LineSource lines) {
+			matcher.reset(lines.chars());
+		}
+
+		@Override
+		public boolean find() {
+			return matcher.find();
+		}
+
+		@Override
+		public String group() {
+			return matcher.group();
+		}
+	}
+
+	/**
+	 * a plain string, searched for in the bytes of the input
+	 */
+	private static class Literal extends LineMatcher {
+		private final LiteralSearch search;
+		private byte[] buffer;
+		private int from;
+		private int end;
+
+		public Literal(String literal) {
+			this.search = new LiteralSearch(literal);
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return true;
+		}
+
+		@Override
+		public void reset(LineSource lines) {
+			buffer = lines.buffer();
+			from = lines.start();
+			end = lines.end();
+		}
+
+		@Override
+		public boolean find() {
+			int hit = search.indexIn(buffer, from, end);
+
+			if (hit < 0) {
+				from = end;
+				return false;
+			}
+
+			// occurrences do not overlap
+			from = hit + search.length();
+			return true;
+		}
+
+		@Override
+		public String group() {
+			return search.getLiteral();
+		}
+
+		/**
+		 * search the whole buffer instead of every line
+		 */
+		@Override
+		public boolean nextMatchingLine(LineSource lines, CancellationToken token)
+				throws IOException {
+			return lines.nextContaining(search, token);
+		}
+	}
+
+	/**
+	 * a set of plain strings, searched for at once in the bytes of the input
+	 */
+	private static class LiteralSet extends LineMatcher {
+		private final AhoCorasickSearch search;
+		private byte[] buffer;
+		private int from;
+		private int end;
+
+		public LiteralSet(List<String> literals) {
+			this.search = new AhoCorasickSearch(literals);
+		}
+
+		@Override
+		public boolean isLiteral() {
+			return true;
+		}
+
+		@Override
+		public void reset(LineSource lines) {
+			buffer = lines.buffer();
+			from = lines.start();
+			end = lines.end();
+		}
+
+		@Override
+		public boolean find() {
+			int hit = search.indexIn(buffer, from, end);
+
+			if (hit < 0) {
+				from = end;
+				return false;
+			}
+
+			from = hit + search.getLastLength();
+			return true;
+		}
+
+		@Override
+		public String group() {
+			return search.getLastLiteral();
+		}
+
+		@Override
+		public boolean nextMatchingLine(LineSource lines, CancellationToken token)
+				throws IOException {
+			return lines.nextContaining(search, token);
+		}
+	}
+}
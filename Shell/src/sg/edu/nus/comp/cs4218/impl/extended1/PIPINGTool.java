@@ -1,12 +1,24 @@
 package sg.edu.nus.comp.cs4218.impl.extended1;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import sg.edu.nus.comp.cs4218.IStreamTool;
 import sg.edu.nus.comp.cs4218.ITool;
 import sg.edu.nus.comp.cs4218.extended1.IPipingTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.BoundedPipe;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
 import sg.edu.nus.comp.cs4218.impl.CommandInterpreter;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.ToolExecutor;
 
 /**
  * The pipe tools allows the output of one program to 
@@ -18,12 +30,19 @@ import sg.edu.nus.comp.cs4218.impl.CommandInterpreter;
  * Where "|" is the pipe operator and PROGRAM-1-STANDARD_OUTPUT is the standard output of
  * program 1 and PROGRAM-2-STANDARD_INPUT is the standard input of program 2.
  *
+ * The String based execute runs the programs one after another. The stream
+ * based execute runs every program as its own task, connected by
+ * {@link BoundedPipe}s, so all stages work at the same time and memory stays
+ * bounded by the pipe capacity whatever the size of the input. A program that
+ * ends before reading all its input, like grep -q, stops the programs before
+ * it: their output would not be read, and their status is left out.
  */
 public class PIPINGTool extends ATool implements IPipingTool {
 	
 	private File workingDir;
 	private int startIdx;
 	private int endIdx;
+	private List<ITool> programs;
 	
 	/**
 	 * Initialize pipe tool
@@ -34,6 +53,18 @@ public class PIPINGTool extends ATool implements IPipingTool {
 		super(arguments);
 	}
 
+	/**
+	 * Initialize pipe tool with programs that have already been created, for
+	 * example by the command line parser. Such a pipe always runs its
+	 * programs concurrently.
+	 * 
+	 * @param programs the programs of the pipe, from first to last
+	 */
+	public PIPINGTool(List<? extends ITool> programs) {
+		super(null);
+		this.programs = new ArrayList<ITool>(programs);
+	}
+
 	/**
 	 * Pipe the stdout of from to stdin of to
 	 * 
@@ -90,6 +121,10 @@ public class PIPINGTool extends ATool implements IPipingTool {
 	 */
 	@Override
 	public String execute(File workingDir, String stdin) {
+		if (programs != null) {
+			return executeBuffered(workingDir, stdin);
+		}
+
 		this.workingDir = workingDir;
 		this.endIdx = -1;
 		
@@ -107,7 +142,7 @@ public class PIPINGTool extends ATool implements IPipingTool {
 			}
 
 			// any more tools in pipe?
-			while (endIdx < args.length) {
+			while (endIdx < args.length && !isCancelled()) {
 				ITool nextTool = getITool();
 				stdout = pipe(stdout, nextTool);
 
@@ -123,6 +158,266 @@ public class PIPINGTool extends ATool implements IPipingTool {
 		}
 	}
 	
+	/**
+	 * Execute pipe tool with every program running concurrently
+	 * 
+	 * @param workingDir File
+	 * @param stdin stdin of the first program, can be null
+	 * @param stdout receives the stdout of the last program
+	 * @param stderr receives the error messages of every program
+	 */
+	@Override
+	public void execute(File workingDir, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		this.workingDir = workingDir;
+		this.endIdx = -1;
+
+		OutputStream sharedStderr = new SynchronizedOutputStream(stderr);
+		List<ITool> tools = new ArrayList<ITool>();
+
+		if (programs != null) {
+			for (ITool tool : programs) {
+				tools.add(withCancellation(tool));
+			}
+		} else {
+			try {
+				do {
+					tools.add(getITool());
+				} while (endIdx < args.length);
+			} catch (IllegalArgumentException e) {
+				sharedStderr.write(e.getMessage().getBytes(CHARSET));
+				return;
+			}
+		}
+
+		Stage[] stages = new Stage[tools.size()];
+		InputStream nextInput = stdin;
+
+		for (int i = 0; i < stages.length; i++) {
+			boolean last = i == stages.length - 1;
+			BoundedPipe pipe = last ? null : new BoundedPipe();
+
+			stages[i] = new Stage(tools.get(i), workingDir, nextInput,
+					last ? stdout : pipe.getOutputStream(), sharedStderr,
+					i > 0, !last, new StageToken(getCancellationToken()),
+					i > 0 ? stages[i - 1] : null);
+			nextInput = last ? null : pipe.getInputStream();
+		}
+
+		runStages(stages);
+
+		// the first failing program decides the status, as in sequential mode;
+		// a program stopped because the next one ended did not fail
+		for (Stage stage : stages) {
+			if (stage.tool.getStatusCode() != 0 && !stage.isStopped()) {
+				setStatusCode(stage.tool.getStatusCode());
+				break;
+			}
+		}
+
+		// only the last program writes to the caller's stdout, so only its
+		// write failures concern the caller
+		if (stages[stages.length - 1].failure != null) {
+			throw stages[stages.length - 1].failure;
+		}
+	}
+
+	/**
+	 * Start every stage on the shared {@link ToolExecutor} and wait until all
+	 * have finished
+	 * 
+	 * @param stages Stage[]
+	 */
+	private void runStages(Stage[] stages) throws IOException {
+		Future<?>[] futures = new Future<?>[stages.length];
+
+		for (int i = 0; i < stages.length; i++) {
+			futures[i] = ToolExecutor.get().submit(stages[i]);
+		}
+
+		Throwable failure = null;
+
+		try {
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// a stage died with an unchecked exception; the others
+					// see a closed pipe, and are waited for so that none
+					// writes to stdout after the pipe returned
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+
+			Thread.currentThread().interrupt();
+			throw new IOException("Error: Pipe interrupted");
+		}
+
+		if (failure != null) {
+			throw new IOException("Error: " + failure.getMessage());
+		}
+	}
+
+	/**
+	 * One program of the pipe, reading from the previous stage and writing to
+	 * the next one
+	 */
+	private static class Stage implements Runnable {
+		private final ITool tool;
+		private final File workingDir;
+		private final InputStream stdin;
+		private final OutputStream stdout;
+		private final OutputStream stderr;
+		private final boolean ownsStdin;
+		private final boolean ownsStdout;
+		private final StageToken token;
+		private final Stage previous;
+		private IOException failure;
+		private boolean finished = false;
+		private boolean stopped = false;
+
+		/**
+		 * @param token cancels the tool, set on it if it is an ATool
+		 * @param previous the stage writing to stdin, null for the first one
+		 */
+		public Stage(ITool tool, File workingDir, InputStream stdin,
+				OutputStream stdout, OutputStream stderr, boolean ownsStdin,
+				boolean ownsStdout, StageToken token, Stage previous) {
+			this.tool = tool;
+			this.workingDir = workingDir;
+			this.stdin = stdin;
+			this.stdout = stdout;
+			this.stderr = stderr;
+			this.ownsStdin = ownsStdin;
+			this.ownsStdout = ownsStdout;
+			this.token = token;
+			this.previous = previous;
+
+			if (tool instanceof ATool) {
+				((ATool) tool).setCancellationToken(token);
+			}
+		}
+
+		/**
+		 * stop this stage and the ones before it, if they are still running,
+		 * because nobody reads their output any more
+		 */
+		public void stop() {
+			synchronized (this) {
+				if (!finished) {
+					stopped = true;
+					token.cancel();
+				}
+			}
+
+			if (previous != null) {
+				previous.stop();
+			}
+		}
+
+		public synchronized boolean isStopped() {
+			return stopped;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (tool instanceof IStreamTool) {
+					((IStreamTool) tool).execute(workingDir, stdin, stdout, stderr);
+				} else {
+					String input = stdin == null ? null : FileUtils.readStreamContent(stdin);
+					String output = tool.execute(workingDir, input);
+
+					if (output != null) {
+						(tool.getStatusCode() == 0 ? stdout : stderr)
+								.write(output.getBytes(CHARSET));
+					}
+				}
+			} catch (IOException e) {
+				// usually the next stage stopped reading, nothing more to do
+				failure = e;
+			} finally {
+				synchronized (this) {
+					finished = true;
+				}
+
+				// the previous stages are stopped before their pipe is closed,
+				// so they do not fail writing to it
+				if (previous != null) {
+					previous.stop();
+				}
+
+				// end of input for the next stage, and tell the previous
+				// stage to stop producing
+				try {
+					if (ownsStdout) {
+						stdout.close();
+					}
+
+					if (ownsStdin) {
+						stdin.close();
+					}
+				} catch (IOException e) {
+					failure = failure == null ? e : failure;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cancels one stage, when the pipe is cancelled or when the stages after
+	 * it have ended
+	 */
+	private static class StageToken extends CancellationToken {
+		private final CancellationToken pipe;
+
+		public StageToken(CancellationToken pipe) {
+			this.pipe = pipe;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return super.isCancelled() || pipe.isCancelled();
+		}
+
+		@Override
+		public long getCancelTime() {
+			return super.isCancelled() ? super.getCancelTime() : pipe.getCancelTime();
+		}
+	}
+
+	/**
+	 * Serializes writes, so messages of concurrent stages do not interleave
+	 */
+	private static class SynchronizedOutputStream extends OutputStream {
+		private final OutputStream out;
+
+		public SynchronizedOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			out.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			out.flush();
+		}
+	}
+
 	/**
 	 * Find the next ITool from the list of arguments
 	 * 
@@ -144,6 +439,21 @@ public class PIPINGTool extends ATool implements IPipingTool {
 			throw new IllegalArgumentException("Error: Command Not Found '" + args[startIdx] + "'");
 		}
 		
+		return withCancellation(tool);
+	}
+
+	/**
+	 * cancelling the pipe cancels every program in it
+	 * 
+	 * @param tool ITool
+	 * 
+	 * @return tool
+	 */
+	private ITool withCancellation(ITool tool) {
+		if (tool instanceof ATool) {
+			((ATool) tool).setCancellationToken(getCancellationToken());
+		}
+		
 		return tool;
 	}
 	
@@ -6,7 +6,7 @@ import java.io.IOException;
 import sg.edu.nus.comp.cs4218.extended2.ICommTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
-import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.MappedFile;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 import sg.edu.nus.comp.cs4218.impl.ArgList.Option;
 
@@ -43,7 +43,7 @@ public class COMMTool extends ATool implements ICommTool {
 	 * This function is used to flush the rest of the file into a StringBuilder.
 	 *  
 	 * @param lines
-	 * 		is the String array that contains all lines of the file.
+	 * 		is the mapped file, its lines are decoded as they are flushed.
 	 * @param fileIndex
 	 * 		is the file index that identifies the file. 0 = file1, 1 = file2.
 	 * @param curLineParam
@@ -56,16 +56,16 @@ public class COMMTool extends ATool implements ICommTool {
 	 * @param result
 	 * 		is the StringBuilder that records the output.
 	 */
-	private void flushRestOfFile(String[] lines, int fileIndex,
+	private void flushRestOfFile(MappedFile lines, int fileIndex,
 								 int curLineParam, boolean checkSorted,
 								 boolean continueAfterUnsorted,
 								 StringBuilder result) {
 		boolean sorted = true;
 		int curLine = curLineParam;
 		
-		while (curLine < lines.length) {
+		while (lines.hasLine(curLine) && !isCancelled()) {
 			if (checkSorted) {
-				if (!sorted || !isSorted(lines[curLine], fileIndex)) {
+				if (!sorted || !isSorted(lines.getLine(curLine), fileIndex)) {
 					if (sorted) {
 						result.append(String.format("comm: File %d is not in sorted order \n", 
 									  fileIndex + 1));
@@ -79,10 +79,10 @@ public class COMMTool extends ATool implements ICommTool {
 					result.append("\t");
 				}
 				
-				result.append(lines[curLine]);
+				result.append(lines.getLine(curLine));
 				result.append("\n");
 				
-				prevLine[fileIndex] = lines[curLine];
+				prevLine[fileIndex] = lines.getLine(curLine);
 				curLine ++;
 			} else {
 				break;
@@ -183,9 +183,32 @@ public class COMMTool extends ATool implements ICommTool {
 									 String input2,
 									 boolean checkSorted,
 									 boolean continueAfterUnsorted) throws IOException, RuntimeException {
+		MappedFile linesA = MappedFile.open(new File(input1));
+		
+		try {
+			MappedFile linesB = MappedFile.open(new File(input2));
+			
+			try {
+				return compareLines(linesA, linesB, checkSorted, continueAfterUnsorted);
+			} finally {
+				linesB.close();
+			}
+		} finally {
+			linesA.close();
+		}
+	}
+	
+	/**
+	 * This function is used to compare the lines of two mapped files. Lines
+	 * are decoded one at a time as the comparison gets to them.
+	 * 
+	 * @return
+	 * 		the formated Comm result.
+	 */
+	private String compareLines(MappedFile linesA, MappedFile linesB,
+								boolean checkSorted,
+								boolean continueAfterUnsorted) {
 		StringBuilder result = new StringBuilder();
-		String[] linesA = FileUtils.readFileLines(new File(input1));
-		String[] linesB = FileUtils.readFileLines(new File(input2));
 		
 		prevLine = new String[2];
 		
@@ -195,15 +218,15 @@ public class COMMTool extends ATool implements ICommTool {
 		sortedA = sortedB = true;
 		curPosA = curPosB = 0;
 		
-		while (curPosA < linesA.length && curPosB < linesB.length) {
+		while (linesA.hasLine(curPosA) && linesB.hasLine(curPosB) && !isCancelled()) {
 			// while we still can do comparing, output consecutive strings unique to file 1
 			while ((sortedA && sortedB || continueAfterUnsorted) && 
-					curPosA < linesA.length && curPosB < linesB.length &&
-				    linesA[curPosA].compareTo(linesB[curPosB]) < 0) {
+					linesA.hasLine(curPosA) && linesB.hasLine(curPosB) &&
+				    linesA.getLine(curPosA).compareTo(linesB.getLine(curPosB)) < 0 && !isCancelled()) {
 				
-				sortedA = (sortedA && updateSortedStatus(checkSorted, sortedA, linesA[curPosA], 0, result));
+				sortedA = (sortedA && updateSortedStatus(checkSorted, sortedA, linesA.getLine(curPosA), 0, result));
 				
-				if (continueToNexPos(sortedA, continueAfterUnsorted, "", linesA[curPosA], result, 0)) {
+				if (continueToNexPos(sortedA, continueAfterUnsorted, "", linesA.getLine(curPosA), result, 0)) {
 					curPosA ++;
 				}
 			}
@@ -216,12 +239,12 @@ public class COMMTool extends ATool implements ICommTool {
 			
 			// while we still can do comparing, output consecutive strings unique to file 2
 			while ((sortedA && sortedB || continueAfterUnsorted) &&
-					curPosA < linesA.length && curPosB < linesB.length &&
-				    linesA[curPosA].compareTo(linesB[curPosB]) > 0) {
+					linesA.hasLine(curPosA) && linesB.hasLine(curPosB) &&
+				    linesA.getLine(curPosA).compareTo(linesB.getLine(curPosB)) > 0 && !isCancelled()) {
 				
-				sortedB = (sortedB && updateSortedStatus(checkSorted, sortedB, linesB[curPosB], 1, result));
+				sortedB = (sortedB && updateSortedStatus(checkSorted, sortedB, linesB.getLine(curPosB), 1, result));
 				
-				if (continueToNexPos(sortedB, continueAfterUnsorted, "\t", linesB[curPosB], result, 1)) {
+				if (continueToNexPos(sortedB, continueAfterUnsorted, "\t", linesB.getLine(curPosB), result, 1)) {
 					curPosB ++;
 				}
 			}
@@ -234,13 +257,13 @@ public class COMMTool extends ATool implements ICommTool {
 			
 			// consecutive strings common to both files
 			while ((sortedA && sortedB || continueAfterUnsorted) &&
-					curPosA < linesA.length && curPosB < linesB.length &&
-					linesA[curPosA].compareTo(linesB[curPosB]) == 0) {
+					linesA.hasLine(curPosA) && linesB.hasLine(curPosB) &&
+					linesA.getLine(curPosA).compareTo(linesB.getLine(curPosB)) == 0 && !isCancelled()) {
 				
-				sortedA = (sortedA && updateSortedStatus(checkSorted, sortedA, linesA[curPosA], 0, result));
-				sortedB = (sortedB && updateSortedStatus(checkSorted, sortedB, linesB[curPosB], 1, result));
+				sortedA = (sortedA && updateSortedStatus(checkSorted, sortedA, linesA.getLine(curPosA), 0, result));
+				sortedB = (sortedB && updateSortedStatus(checkSorted, sortedB, linesB.getLine(curPosB), 1, result));
 				
-				if (continueToNexPos(sortedA && sortedB, continueAfterUnsorted, "\t\t", linesA[curPosA], result, 2)) {
+				if (continueToNexPos(sortedA && sortedB, continueAfterUnsorted, "\t\t", linesA.getLine(curPosA), result, 2)) {
 					curPosA ++;
 					curPosB ++;
 				}
@@ -250,16 +273,16 @@ public class COMMTool extends ATool implements ICommTool {
 		// if both of the files are still sorted, we run out of at least one
 		// of the file. We need to flush out the rest of the other file if we
 		// still have remainings of the other file.
-		if (sortedA && sortedB || continueAfterUnsorted) {
+		if ((sortedA && sortedB || continueAfterUnsorted) && !isCancelled()) {
 			// NOTE: two conditions below will not satisfy together
 			
 			// if we still have remaining lines in file A, flush them out
-			if (curPosA < linesA.length) {
+			if (linesA.hasLine(curPosA)) {
 				flushRestOfFile(linesA, 0, curPosA, checkSorted, continueAfterUnsorted, result);
 			}
 			
 			// if we still have remaining lines in file B, flush them out
-			if (curPosB < linesB.length) {
+			if (linesB.hasLine(curPosB)) {
 				flushRestOfFile(linesB, 1, curPosB, checkSorted, continueAfterUnsorted, result);
 			}
 		}
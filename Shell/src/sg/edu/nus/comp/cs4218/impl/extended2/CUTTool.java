@@ -1,15 +1,13 @@
 package sg.edu.nus.comp.cs4218.impl.extended2;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
 
 import sg.edu.nus.comp.cs4218.extended2.ICutTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
-import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 import sg.edu.nus.comp.cs4218.impl.ArgList.ArgType;
 import sg.edu.nus.comp.cs4218.impl.ArgList.Option;
@@ -191,6 +189,7 @@ public class CUTTool extends ATool implements ICutTool {
 		
 		// determine where the input comes from
 		String input = (stdin == null? "" : stdin);
+		LineSource lines = null;
 		String list = "";
 		
 		// command does not have options
@@ -212,7 +211,7 @@ public class CUTTool extends ATool implements ICutTool {
 					
 					if (argList.hasParams() && argList.getParams().length == 1) {
 						if (!argList.getParam(0).equals("-")) {
-							input = FileUtils.readFileContent(new File(PathUtils.
+							lines = LineSource.open(new File(PathUtils.
 									pathResolver(workingDir, argList.getParam(0))));
 						}
 					} else {
@@ -224,7 +223,7 @@ public class CUTTool extends ATool implements ICutTool {
 						list = argList.getParam(0);
 						
 						if (!argList.getParam(1).equals("-")) {
-							input = FileUtils.readFileContent(new File(PathUtils.
+							lines = LineSource.open(new File(PathUtils.
 									pathResolver(workingDir, argList.getParam(1))));
 						}
 					} else {
@@ -242,26 +241,32 @@ public class CUTTool extends ATool implements ICutTool {
 		}
 
 		// process input
-		BufferedReader br = new BufferedReader(new StringReader(input));
+		if (lines == null) {
+			lines = LineSource.of(input);
+		}
+
 		StringBuilder result = new StringBuilder();
 
 		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				String lineResult = argList.hasOption("d") ? cutSpecifiedCharactersUseDelimiter(list, 
-								    argList.getOptionValue("d"), line) :
-								    cutSpecfiedCharacters(list, line);
+			try {
+				String line;
+				while (lines.next() && !isCancelled()) {
+					line = lines.decode();
+					String lineResult = argList.hasOption("d") ? cutSpecifiedCharactersUseDelimiter(list, 
+									    argList.getOptionValue("d"), line) :
+									    cutSpecfiedCharacters(list, line);
 				
-				result.append(lineResult);
-				result.append("\n");
+					result.append(lineResult);
+					result.append("\n");
 				
-				// if something wrong when cutting the line, break the routine
-				if (getStatusCode() != 0) {
-					break;
+					// if something wrong when cutting the line, break the routine
+					if (getStatusCode() != 0) {
+						break;
+					}
 				}
+			} finally {
+				lines.close();
 			}
-
-			br.close();
 		} catch (IOException e) {
 			setStatusCode(2);
 			result.append("Error: file reading exception.\n");
@@ -1,9 +1,7 @@
 package sg.edu.nus.comp.cs4218.impl.extended2;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
 
 import sg.edu.nus.comp.cs4218.extended2.IPasteTool;
@@ -11,7 +9,7 @@ import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
 import sg.edu.nus.comp.cs4218.impl.ArgList.ArgType;
 import sg.edu.nus.comp.cs4218.impl.ArgList.Option;
-import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.MappedFile;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 
 /*
@@ -153,8 +151,9 @@ public class PASTETool extends ATool implements IPasteTool {
 		}
 
 		// set inputs
+		ArrayList<MappedFile> inputs = new ArrayList<MappedFile>();
+
 		try {
-			ArrayList<String[]> inputs = new ArrayList<String[]>();
 			int maxInputLength = setInputs(inputs, workingDir, stdin);
 
 			return processInputs(inputs, maxInputLength, workingDir);
@@ -164,6 +163,10 @@ public class PASTETool extends ATool implements IPasteTool {
 		} catch (RuntimeException e) {
 			setStatusCode(2);
 			return e.getMessage();
+		} finally {
+			for (MappedFile input : inputs) {
+				input.close();
+			}
 		}
 	}
 
@@ -176,14 +179,14 @@ public class PASTETool extends ATool implements IPasteTool {
 	 * 
 	 * @return stdout of paste tool
 	 */
-	private String processInputs(ArrayList<String[]> inputs,
+	private String processInputs(ArrayList<MappedFile> inputs,
 			int maxInputLength, File workingDir) {
 		// process inputs in serial
 		StringBuilder result = new StringBuilder();
 
 		if (argList.hasOption("s")) {
-			for (String[] input : inputs) {
-				result.append(pasteSerial(input));
+			for (MappedFile input : inputs) {
+				result.append(pasteSerial(input.getLines()));
 			}
 		} else {
 			String delim = argList.hasOption("d") ? argList.getOptionValue("d")
@@ -193,8 +196,8 @@ public class PASTETool extends ATool implements IPasteTool {
 				String[] lines = new String[inputs.size()];
 
 				for (int j = 0; j < inputs.size(); j++) {
-					if (i < inputs.get(j).length) {
-						lines[j] = inputs.get(j)[i];
+					if (inputs.get(j).hasLine(i)) {
+						lines[j] = inputs.get(j).getLine(i);
 					} else {
 						lines[j] = "";
 					}
@@ -207,60 +210,30 @@ public class PASTETool extends ATool implements IPasteTool {
 		return result.toString();
 	}
 
-	private int setInputs(ArrayList<String[]> inputs, File workingDir,
+	private int setInputs(ArrayList<MappedFile> inputs, File workingDir,
 			String stdin) throws IOException, RuntimeException {
 		int maxLen = 0;
 
 		String[] params = argList.getParams();
 
 		for (int i = 0; i < params.length; i++) {
-			String[] input = new String[0];
+			MappedFile input;
 
 			if (params[i].equals("-")) {
-				input = getStringLines(stdin);
+				input = MappedFile.wrap(stdin == null ? "" : stdin);
 			} else {
-				input = FileUtils.readFileLines(new File(PathUtils
+				input = MappedFile.open(new File(PathUtils
 						.pathResolver(workingDir, params[i])));
 			}
 
-			if (input.length > maxLen) {
-				maxLen = input.length;
-			}
-
 			inputs.add(input);
-		}
 
-		return maxLen;
-	}
-
-	/**
-	 * read input to an array of string lines
-	 * 
-	 * @param input
-	 * 
-	 * @return an array of lines
-	 */
-	private String[] getStringLines(String input) {
-		if (input == null) {
-			return new String[0];
-		}
-
-		BufferedReader br = new BufferedReader(new StringReader(input));
-		ArrayList<String> result = new ArrayList<String>();
-
-		try {
-			String line;
-			while ((line = br.readLine()) != null) {
-				result.add(line);
+			if (input.getLineCount() > maxLen) {
+				maxLen = input.getLineCount();
 			}
-
-			br.close();
-		} catch (IOException e) {
-			setStatusCode(2);
-			result.add("Error: file reading exception.\n");
 		}
 
-		return result.toArray(new String[0]);
+		return maxLen;
 	}
 
 }
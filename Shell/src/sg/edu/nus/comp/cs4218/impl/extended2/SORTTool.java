@@ -13,7 +13,7 @@
 package sg.edu.nus.comp.cs4218.impl.extended2;
 
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Vector;
 
@@ -21,6 +21,7 @@ import sg.edu.nus.comp.cs4218.extended2.ISortTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
 import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 /**
  * This function is used to sort the given content
@@ -54,8 +55,17 @@ public class SORTTool extends ATool implements ISortTool {
 	public String sortFile(String input) {
 
 		StringBuilder sortedString = new StringBuilder();
-		String []stringToSort = input.split("\r\n");
-		Vector <String> stringToSortVect = new Vector<String>(Arrays.asList(stringToSort));
+		Vector <String> stringToSortVect = new Vector<String>();
+		LineSource lines = LineSource.of(input);
+
+		try {
+			while (lines.next()) {
+				stringToSortVect.add(lines.decode());
+			}
+		} catch (IOException e) {
+			// a String cannot fail to be read
+		}
+
 		Collections.sort(stringToSortVect);
 		for(int i = 0 ; i < stringToSortVect.size();i++){
 			sortedString = sortedString.append(stringToSortVect.get(i)+"\n");
@@ -76,27 +86,35 @@ public class SORTTool extends ATool implements ISortTool {
 			
 			String file = input.substring(index+1);
 			
-			String content = FileUtils.readFileContent(new File(input));
 			StringBuilder disorderInfo = new StringBuilder();
-			int disorderLineIndex = -1;  
-			content = content.replace("\r", "");
-		    String []stringToCheck = content.split("\n");
-			
-			Vector <String> stringToCheckVect = new Vector<String>(Arrays.asList(stringToCheck));
-
-			for(int i = 0;i < stringToCheckVect.size()-1; i++){
-				if(stringToCheckVect.get(i).compareToIgnoreCase(stringToCheckVect.get(i+1))>0 && 
-						disorderLineIndex < 0){
-					disorderLineIndex = i+1;
+			String disorderLine = null;
+			long disorderLineNumber = -1;
+			String previous = null;
+			LineSource lines = LineSource.open(new File(input));
+
+			// stop at the first line out of order
+			try {
+				while (lines.next()) {
+					String line = lines.decode();
+
+					if (previous != null && previous.compareToIgnoreCase(line) > 0) {
+						disorderLine = line;
+						disorderLineNumber = lines.getLineNumber();
+						break;
+					}
+
+					previous = line;
 				}
+			} finally {
+				lines.close();
 			}
 
-			if(disorderLineIndex >= 0){
+			if(disorderLine != null){
 				disorderInfo.append("sort: ");
 				disorderInfo.append(file.toString()+":");
-				disorderInfo.append(""+(disorderLineIndex+1)+" ");
+				disorderInfo.append(""+disorderLineNumber+" ");
 				disorderInfo.append("disorder: ");
-				disorderInfo.append(""+stringToCheckVect.get(disorderLineIndex)+"\n");
+				disorderInfo.append(""+disorderLine+"\n");
 				return new String(disorderInfo);
 			}
 			else{
@@ -147,14 +165,12 @@ public class SORTTool extends ATool implements ISortTool {
 		try {
 			String file = argList.getParam(0);
 			String filePath = PathUtils.pathResolver(workingDir, file);
-			String content = FileUtils.readFileContent(new File(filePath));
-
 			if(argList.hasOption("c")){
 
 				return checkIfSorted(filePath);
 			}
 			else{
-				return sortFile(content);
+				return sortFile(FileUtils.readFileContent(new File(filePath)));
 			}
 		}catch(Exception e){
 			setStatusCode(0);
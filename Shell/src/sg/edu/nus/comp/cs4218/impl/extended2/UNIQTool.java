@@ -1,16 +1,14 @@
 package sg.edu.nus.comp.cs4218.impl.extended2;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 
 import sg.edu.nus.comp.cs4218.extended2.IUniqTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
 import sg.edu.nus.comp.cs4218.impl.ArgList.ArgType;
 import sg.edu.nus.comp.cs4218.impl.ArgList.Option;
-import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 
 /*
@@ -225,7 +223,7 @@ public class UNIQTool extends ATool implements IUniqTool {
 
 		// set input from stdin or file
 		try {
-			String input = getInput(workingDir, stdin);
+			LineSource input = getInput(workingDir, stdin);
 
 			// other options
 			boolean checkCase = argList.hasOption("i") ? false : true;
@@ -233,7 +231,11 @@ public class UNIQTool extends ATool implements IUniqTool {
 					Integer.parseInt(argList.getOptionValue("f")) : -1;
 
 			// process inputs
-			return processInput(input, checkCase, skipNum);
+			try {
+				return processInput(input, checkCase, skipNum);
+			} finally {
+				input.close();
+			}
 		} catch (IOException e) {
 			setStatusCode(1);
 			return e.getMessage();
@@ -248,7 +250,7 @@ public class UNIQTool extends ATool implements IUniqTool {
 	 * duplicates and remain unique string
 	 * 
 	 * @param input
-	 *            the input string going to be processed
+	 *            the lines going to be processed
 	 * @param checkCase
 	 *            the boolean value that indicates whether checkCase or not
 	 * @param skipNum
@@ -259,15 +261,16 @@ public class UNIQTool extends ATool implements IUniqTool {
 	 * @exception throw
 	 *                error message if there is IOExecption
 	 */
-	private String processInput(String input, boolean checkCase, int skipNum) {
-		BufferedReader br = new BufferedReader(new StringReader(input));
+	private String processInput(LineSource input, boolean checkCase, int skipNum) {
 		StringBuilder result = new StringBuilder();
 
 		try {
 			String line;
 			String uniqLine;
 
-			while ((line = br.readLine()) != null) {
+			while (input.next() && !isCancelled()) {
+				line = input.decode();
+
 				if (skipNum == -1) {
 					uniqLine = getUnique(checkCase, line);
 				} else {
@@ -279,8 +282,6 @@ public class UNIQTool extends ATool implements IUniqTool {
 					result.append("\n");
 				}
 			}
-
-			br.close();
 		} catch (IOException e) {
 			setStatusCode(2);
 			result.append("Error: File Reading Exception.\n");
@@ -297,19 +298,19 @@ public class UNIQTool extends ATool implements IUniqTool {
 	 *            the directory of the file we are using
 	 * @param stdin
 	 *            the string of standard input
-	 * @return the file contents in the file if is has params else return stdin
-	 *         as the input
+	 * @return the lines of the file if is has params else the lines of stdin,
+	 *         to be closed by the caller
 	 * @throws RuntimeException 
 	 * @throws IOException 
 	 * @exception throw
 	 *                error message if got IOException or RuntimeException
 	 */
-	private String getInput(File workingDir, String stdin) throws IOException, RuntimeException {
+	private LineSource getInput(File workingDir, String stdin) throws IOException, RuntimeException {
 		if (argList.hasParams() && !argList.getParam(0).equals("-")) {
 			File file = new File(PathUtils.pathResolver(workingDir, argList.getParam(0))); 
-			return FileUtils.readFileContent(file);
+			return LineSource.open(file);
 		} else {
-			return stdin == null ? "" : stdin;
+			return LineSource.of(stdin);
 		}
 	}
 
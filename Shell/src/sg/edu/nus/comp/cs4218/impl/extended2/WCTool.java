@@ -15,11 +15,13 @@
 package sg.edu.nus.comp.cs4218.impl.extended2;
 
 import java.io.File;
+import java.io.IOException;
 
 import sg.edu.nus.comp.cs4218.extended2.IWcTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
 import sg.edu.nus.comp.cs4218.impl.ArgList;
 import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 
 public class WCTool extends ATool implements IWcTool {
@@ -77,25 +79,27 @@ public class WCTool extends ATool implements IWcTool {
 
 	@Override
 	/**
-	 * This function is used to count the newlines in the given content
+	 * This function is used to count the lines in the given content, split
+	 * at "\n", "\r\n" or "\r" like the other text tools
 	 * @param input  the given content
-	 * @return the number of newlines in the content
+	 * @return the number of lines in the content
 	 */
 	public String getNewLineCount(String input) {
-		String result = "0";
 		if(input == null)
-			return result;
+			return "0";
 		else{
-			int count=0;
-			int index = input.indexOf("\r"); 
-			String output = input;
-			while(index>=0){
-				count++;
-				output = output.substring(index+1);
-				index = output.indexOf("\r");
+			LineSource lines = LineSource.of(input);
+			long count = 0;
+
+			try {
+				while (lines.next()) {
+					count++;
+				}
+			} catch (IOException e) {
+				// a String cannot fail to be read
 			}
-			result = (count+1)+"";
-			return result;
+
+			return count+"";
 		}
 	}
 
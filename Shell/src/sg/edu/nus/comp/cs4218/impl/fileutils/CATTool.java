@@ -2,6 +2,8 @@ package sg.edu.nus.comp.cs4218.impl.fileutils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import sg.edu.nus.comp.cs4218.fileutils.ICatTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
@@ -39,35 +41,68 @@ public class CATTool extends ATool implements ICatTool {
 	
 	@Override
 	public String execute(File workingDir, String stdin) {
+		// make sure stdin exists
+		return executeBuffered(workingDir, stdin == null ? "" : stdin);
+	}
+
+	/**
+	 * Copies the files, or stdin, to stdout one buffer at a time, so the
+	 * content never has to be held in memory as a whole.
+	 */
+	@Override
+	public void execute(File workingDir, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
 		// parse arguments
 		try {
 			argList.parseArgs(this.args);
 		} catch (IllegalArgumentException e) {
 			setStatusCode(9);
-			return e.getMessage();
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
 		}
 
-		StringBuilder output = new StringBuilder();
-		String regulatedStdin = stdin;
-		
-		// make sure stdin exists
-		if (regulatedStdin == null) { regulatedStdin = ""; }
-
 		// process arguments
 		if (argList.isEmpty() || argList.getParam(0).equals("-")) {
-			output.append(regulatedStdin);
+			if (stdin != null) {
+				FileUtils.copyStream(stdin, stdout);
+			}
 		} else {
 			for (String arg : argList.getParams()) {
 				if (arg.equals("-")) {
 					continue;
 				} else {
 					File toRead = new File(PathUtils.pathResolver(workingDir, arg));
-					output.append(getStringForFile(toRead));
+					copyFile(toRead, stdout, stderr);
 				}
 			}
 		}
+	}
+
+	/**
+	 * Copies a file to stdout. Errors are reported the same way as
+	 * {@link #getStringForFile(File)} does, but on stderr.
+	 */
+	private void copyFile(File toRead, OutputStream stdout, OutputStream stderr)
+			throws IOException {
+		InputStream input;
+
+		try {
+			input = FileUtils.openFileStream(toRead);
+		} catch (IOException e) {
+			setStatusCode(1);
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
+		} catch (RuntimeException e) {
+			setStatusCode(2);
+			stderr.write(e.getMessage().getBytes(CHARSET));
+			return;
+		}
 
-		return output.toString();
+		try {
+			FileUtils.copyStream(input, stdout);
+		} finally {
+			input.close();
+		}
 	}
 
 }
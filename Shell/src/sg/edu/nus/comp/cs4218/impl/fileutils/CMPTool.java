@@ -0,0 +1,134 @@
+package sg.edu.nus.comp.cs4218.impl.fileutils;
+
+import java.io.File;
+import java.io.IOException;
+
+import sg.edu.nus.comp.cs4218.fileutils.ICmpTool;
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.ArgList;
+import sg.edu.nus.comp.cs4218.impl.FileComparison;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.PathUtils;
+
+/**
+ * cmp - compare two files byte by byte
+ *
+ * cmp [OPTIONS] [file1] [file2]
+ * OPTIONS
+ *		-s : Print nothing, only set the status code
+ *		-help : Brief information about supported options
+ *
+ * Identical files print nothing. Otherwise the first differing byte and its
+ * line are printed, both counted from 1, and the status code is set to 1;
+ * a file that is a prefix of the other is reported as ending early. If a
+ * file cannot be found or is a directory, an error message will be returned
+ * and the status code is set to 2.
+ */
+public class CMPTool extends ATool implements ICmpTool {
+
+	public static final int STATUS_DIFFERENT = 1;
+	public static final int STATUS_ERROR = 2;
+
+	private ArgList argList = new ArgList();
+
+	public CMPTool(String[] arguments) {
+		super(arguments);
+
+		argList.invalidOptionCheck = true;
+		argList.registerAcceptableOption("s",
+				"Print nothing, only set the status code");
+		argList.registerAcceptableOption("help",
+				"Brief information about supported options");
+	}
+
+	@Override
+	/**
+	 * This function is used to find the first byte at which two files differ
+	 * @param first  the first file
+	 * @param second  the second file
+	 * @return offset of the first differing byte, -1 if the files are identical
+	 * @throws IOException when either file cannot be read
+	 */
+	public long compare(File first, File second) throws IOException {
+		FileUtils.openFileStream(first).close();
+		FileUtils.openFileStream(second).close();
+
+		return FileComparison.findFirstDifference(first, second, true,
+				getCancellationToken());
+	}
+
+	@Override
+	/**
+	 * This function is used to output the help information
+	 * @return help information
+	 */
+	public String getHelp() {
+		StringBuilder helpInfo = new StringBuilder();
+		helpInfo.append("Command Format - cmp [OPTIONS] [FILE1] [FILE2]\n");
+		helpInfo.append(" OPTIONS\n");
+		helpInfo.append("       -s : Print nothing, only set the status code\n");
+		helpInfo.append("       -help : Brief information about supported options");
+		return helpInfo.toString();
+	}
+
+	@Override
+	/**
+	 * This function is used to execute and call the respective methods in cmp command
+	 * @param workingDir the directory of current working environment
+	 * @param stdin the input command
+	 * @return the execute result and information
+	 */
+	public String execute(File workingDir, String stdin) {
+		try {
+			argList.parseArgs(this.args);
+		} catch (IllegalArgumentException e) {
+			setStatusCode(9);
+			return e.getMessage();
+		}
+
+		if (argList.hasOption("help")) {
+			return getHelp();
+		}
+
+		if (argList.getParams().length != 2) {
+			setStatusCode(STATUS_ERROR);
+			return "Error: 2 parameters required";
+		}
+
+		String firstName = argList.getParam(0);
+		String secondName = argList.getParam(1);
+		File first = new File(PathUtils.pathResolver(workingDir, firstName));
+		File second = new File(PathUtils.pathResolver(workingDir, secondName));
+
+		try {
+			long difference = compare(first, second);
+
+			if (difference == FileComparison.IDENTICAL) {
+				return "";
+			}
+
+			setStatusCode(STATUS_DIFFERENT);
+
+			if (argList.hasOption("s")) {
+				return "";
+			}
+
+			if (difference == first.length() || difference == second.length()) {
+				String shorter = first.length() < second.length() ? firstName : secondName;
+
+				return "cmp: EOF on " + shorter + " after byte " + difference;
+			}
+
+			long line = FileComparison.countLines(first, difference) + 1;
+
+			return firstName + " " + secondName + " differ: byte " + (difference + 1)
+					+ ", line " + line;
+		} catch (IOException e) {
+			setStatusCode(STATUS_ERROR);
+			return isCancelled() ? "Error: cmp cancelled" : e.getMessage();
+		} catch (RuntimeException e) {
+			setStatusCode(STATUS_ERROR);
+			return e.getMessage();
+		}
+	}
+}
@@ -2,8 +2,10 @@ package sg.edu.nus.comp.cs4218.impl.fileutils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 import sg.edu.nus.comp.cs4218.fileutils.ICopyTool;
 import sg.edu.nus.comp.cs4218.impl.ATool;
@@ -21,6 +23,11 @@ import sg.edu.nus.comp.cs4218.impl.PathUtils;
 
 public class COPYTool extends ATool implements ICopyTool {
 
+	/**
+	 * Bytes copied between two checks of the cancellation token
+	 */
+	private static final long COPY_CHUNK_SIZE = 8 * 1024 * 1024;
+
 	private ArgList argList = new ArgList();
 	private String lastError;
 
@@ -51,14 +58,16 @@ public class COPYTool extends ATool implements ICopyTool {
 					newDir = new File(to, from.getName());
 				}
 
-				result = Files.copy(from.toPath(), newDir.toPath()) != null;
+				result = copyContent(from, newDir);
 			}
 		} catch (FileAlreadyExistsException e) {
 			setStatusCode(7);
 			lastError = "Error: " + to.getName() + " already exists";
 		} catch (IOException e) {
 			setStatusCode(7);
-			lastError = "Error: missing source or missing target path";
+			// an interrupt closes the channels, which is not a missing path
+			lastError = isCancelled() ? "Error: copy of " + from.getName() + " cancelled"
+					: "Error: missing source or missing target path";
 		} catch (SecurityException e) {
 			setStatusCode(6);
 			lastError = "Error: no permission to access";
@@ -67,6 +76,68 @@ public class COPYTool extends ATool implements ICopyTool {
 		return result;
 	}
 
+	/**
+	 * This function is used to copy the content of a file chunk by chunk, so
+	 * that a cancelled copy stops at the next chunk. A partially written
+	 * target is removed, the copy either completes or leaves nothing behind.
+	 * @param from  is the chosen file
+	 * @param to  the target file, which must not exist yet
+	 * @return true if the whole file was copied
+	 * @throws IOException when either file cannot be accessed
+	 */
+	private boolean copyContent(File from, File to) throws IOException {
+		if (to.exists() && Files.isSameFile(from.toPath(), to.toPath())) {
+			return true;
+		}
+
+		FileChannel source = FileChannel.open(from.toPath(), StandardOpenOption.READ);
+		boolean complete = false;
+
+		try {
+			FileChannel target = FileChannel.open(to.toPath(),
+					StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+			try {
+				long size = source.size();
+				long position = 0;
+
+				while (position < size && !isCancelled()) {
+					long copied = source.transferTo(position,
+							Math.min(COPY_CHUNK_SIZE, size - position), target);
+
+					// the source shrank while copying, reported below
+					if (copied <= 0) {
+						break;
+					}
+
+					position += copied;
+				}
+
+				complete = position >= size;
+			} finally {
+				target.close();
+
+				if (!complete) {
+					Files.deleteIfExists(to.toPath());
+				}
+			}
+		} finally {
+			source.close();
+		}
+
+		if (complete) {
+			return true;
+		} else if (isCancelled()) {
+			lastError = "Error: copy of " + from.getName() + " cancelled";
+		} else {
+			// the source shrank while copying
+			setStatusCode(7);
+			lastError = "Error: " + from.getName() + " changed while being copied";
+		}
+
+		return complete;
+	}
+
 	@Override
 	/**
 	 * This function is used to execute and call the respective methods in copy command
@@ -87,6 +87,9 @@ public class MOVETool extends ATool implements IMoveTool {
 			if (!copyFile.toString().equals("/") && !new File(copyFile.getParent()).exists()) {
 				setStatusCode(9);
 				output = "No such file or directory!";
+			} else
+			if (isCancelled()) {
+				output = "File was not moved, command cancelled!";
 			} else {
 				if (move(originFile, copyFile)) {
 					setStatusCode(0);
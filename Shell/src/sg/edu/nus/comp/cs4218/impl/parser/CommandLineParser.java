@@ -0,0 +1,195 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import sg.edu.nus.comp.cs4218.impl.ArgList;
+
+/**
+ * Parses the words of a command line, as split by
+ * {@link ArgList#splitWords(String, List)}, into a tree of {@link Node}s.
+ * Operators have to be words of their own, and quoted or escaped operators
+ * are ordinary arguments.
+ * 
+ * Grammar, from the lowest to the highest precedence:
+ * 
+ * line     := andOr (';' andOr)* [';']
+ * andOr    := pipeline (('&&' | '||') pipeline)*
+ * pipeline := command ('|' command)*
+ * command  := WORD+ with any of '<' FILE, '>' FILE, '>>' FILE in between
+ */
+public class CommandLineParser {
+
+	public static final String SEMICOLON = ";";
+	public static final String PIPE = "|";
+	public static final String INPUT = "<";
+	public static final String OUTPUT = ">";
+	public static final String APPEND = ">>";
+
+	/**
+	 * operators ending a command
+	 */
+	private static final Set<String> SEPARATORS = new HashSet<String>(Arrays.asList(
+			SEMICOLON, ConditionalNode.AND, ConditionalNode.OR, PIPE));
+
+	/**
+	 * operators the pipe tool alone cannot execute
+	 */
+	private static final Set<String> OPERATORS = new HashSet<String>(Arrays.asList(
+			SEMICOLON, ConditionalNode.AND, ConditionalNode.OR, INPUT, OUTPUT, APPEND));
+
+	private final List<String> words;
+	private int position;
+
+	private CommandLineParser(List<String> words) {
+		this.words = words;
+		this.position = 0;
+	}
+
+	/**
+	 * determine whether a line needs the parser, i.e. it has an operator other
+	 * than "|"
+	 * 
+	 * @param words the words of the line
+	 * 
+	 * @return boolean
+	 */
+	public static boolean hasOperator(List<String> words) {
+		for (String word : words) {
+			if (OPERATORS.contains(word)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * parse the words of a command line
+	 * 
+	 * @param words the words of the line
+	 * 
+	 * @return the root of the tree
+	 * @throws IllegalArgumentException if the line is not well formed
+	 */
+	public static Node parse(List<String> words) throws IllegalArgumentException {
+		CommandLineParser parser = new CommandLineParser(words);
+		Node root = parser.parseLine();
+
+		if (parser.position < words.size()) {
+			throw parser.error(parser.position);
+		}
+
+		return root;
+	}
+
+	private Node parseLine() {
+		List<Node> nodes = new ArrayList<Node>();
+		nodes.add(parseAndOr());
+
+		while (SEMICOLON.equals(peek())) {
+			position++;
+
+			if (peek() == null) {
+				break;
+			}
+
+			nodes.add(parseAndOr());
+		}
+
+		return nodes.size() == 1 ? nodes.get(0) : new SequenceNode(nodes);
+	}
+
+	private Node parseAndOr() {
+		Node node = parsePipeline();
+
+		while (ConditionalNode.AND.equals(peek()) || ConditionalNode.OR.equals(peek())) {
+			String operator = words.get(position++);
+
+			node = new ConditionalNode(node, operator, parsePipeline());
+		}
+
+		return node;
+	}
+
+	private Node parsePipeline() {
+		List<CommandNode> commands = new ArrayList<CommandNode>();
+		commands.add(parseCommand());
+
+		while (PIPE.equals(peek())) {
+			position++;
+			commands.add(parseCommand());
+		}
+
+		return commands.size() == 1 ? commands.get(0) : new PipelineNode(commands);
+	}
+
+	private CommandNode parseCommand() {
+		int start = position;
+		List<String> command = new ArrayList<String>();
+		String inputFile = null;
+		String outputFile = null;
+		boolean append = false;
+
+		while (peek() != null && !SEPARATORS.contains(peek())) {
+			String word = words.get(position++);
+
+			if (INPUT.equals(word)) {
+				inputFile = parseFile();
+			} else if (OUTPUT.equals(word) || APPEND.equals(word)) {
+				outputFile = parseFile();
+				append = APPEND.equals(word);
+			} else {
+				command.add(word);
+			}
+		}
+
+		if (command.isEmpty()) {
+			throw error(start);
+		}
+
+		return new CommandNode(command.toArray(new String[command.size()]),
+				inputFile, outputFile, append);
+	}
+
+	/**
+	 * the file after a redirection operator
+	 */
+	private String parseFile() {
+		String word = peek();
+
+		if (word == null || SEPARATORS.contains(word) || OPERATORS.contains(word)) {
+			throw error(position);
+		}
+
+		position++;
+
+		return ArgList.unquote(word);
+	}
+
+	/**
+	 * @return the next word, null at the end of the line
+	 */
+	private String peek() {
+		return position < words.size() ? words.get(position) : null;
+	}
+
+	/**
+	 * a parse error near the word at index, or near the last operator at the
+	 * end of the line
+	 */
+	private IllegalArgumentException error(int index) {
+		String near;
+
+		if (index < words.size()) {
+			near = words.get(index);
+		} else {
+			near = words.isEmpty() ? "" : words.get(words.size() - 1);
+		}
+
+		return new IllegalArgumentException("Error: Parse Error Near '" + near + "'");
+	}
+}
@@ -0,0 +1,60 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+
+/**
+ * Executes a parsed command line: a tree of sequences, conditionals, pipes
+ * and redirected commands. The commands write directly to the streams of
+ * this tool, or to their files, so output goes nowhere else on its way.
+ * 
+ * A cd inside the line changes the working directory of the commands after
+ * it; the shell takes the final directory from
+ * {@link #getWorkingDirectory()} after the execution.
+ */
+public class CommandLineTool extends ATool {
+
+	private final Node root;
+	private File workingDir;
+
+	/**
+	 * @param root the parsed command line
+	 */
+	public CommandLineTool(Node root) {
+		super(null);
+		this.root = root;
+	}
+
+	@Override
+	public String execute(File workingDir, String stdin) {
+		return executeBuffered(workingDir, stdin);
+	}
+
+	@Override
+	public void execute(File workingDir, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		ExecutionContext context = new ExecutionContext(workingDir,
+				getCancellationToken());
+
+		try {
+			setStatusCode(root.execute(context, stdin, stdout, stderr));
+		} finally {
+			this.workingDir = context.getWorkingDirectory();
+		}
+	}
+
+	/**
+	 * @return the working directory at the end of the execution, null before
+	 */
+	public File getWorkingDirectory() {
+		return workingDir;
+	}
+
+	public Node getRoot() {
+		return root;
+	}
+}
@@ -0,0 +1,234 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import sg.edu.nus.comp.cs4218.IStreamTool;
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+import sg.edu.nus.comp.cs4218.impl.CommandInterpreter;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.PathUtils;
+import sg.edu.nus.comp.cs4218.impl.ScriptRunner;
+import sg.edu.nus.comp.cs4218.impl.fileutils.CDTool;
+
+/**
+ * One command with its arguments and redirections. "< file" reads stdin from
+ * the file, "> file" writes stdout to the file, replacing its content, and
+ * ">> file" appends stdout to the file. Output to a file is streamed through
+ * a FileChannel, so a streaming tool writes a file of any size in constant
+ * memory.
+ * 
+ * Command Format - COMMAND [ARGS...] [< FILE] [> FILE | >> FILE]
+ */
+public class CommandNode extends Node {
+
+	/**
+	 * Size of the buffer in front of an output file
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String command;
+	private final String[] arguments;
+	private final String inputFile;
+	private final String outputFile;
+	private final boolean append;
+
+	/**
+	 * @param words command name followed by its arguments, as split
+	 * @param inputFile file after "<", null if none
+	 * @param outputFile file after ">" or ">>", null if none
+	 * @param append true for ">>"
+	 */
+	public CommandNode(String[] words, String inputFile, String outputFile,
+			boolean append) {
+		this.command = words[0];
+		this.arguments = Arrays.copyOfRange(words, 1, words.length);
+		this.inputFile = inputFile;
+		this.outputFile = outputFile;
+		this.append = append;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return a copy of the arguments
+	 */
+	public String[] getArguments() {
+		return arguments.clone();
+	}
+
+	public String getInputFile() {
+		return inputFile;
+	}
+
+	public String getOutputFile() {
+		return outputFile;
+	}
+
+	public boolean isAppend() {
+		return append;
+	}
+
+	/**
+	 * @return status code of the command, 127 if it does not exist
+	 */
+	@Override
+	public int execute(ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		return execute(context, context.getCancellationToken(), stdin, stdout, stderr);
+	}
+
+	/**
+	 * execute the command, cancelled through a token of its own, e.g. that
+	 * of its stage in a pipe
+	 * 
+	 * @return status code of the command, 127 if it does not exist
+	 */
+	private int execute(ExecutionContext context, CancellationToken token,
+			InputStream stdin, OutputStream stdout, OutputStream stderr)
+			throws IOException {
+		ITool tool = CommandInterpreter.cmdToITool(command, arguments.clone());
+
+		if (tool == null) {
+			error(stderr, "Command not found: " + command);
+			return ScriptRunner.STATUS_NOT_FOUND;
+		}
+
+		if (tool instanceof ATool) {
+			((ATool) tool).setCancellationToken(token);
+		}
+
+		InputStream input = stdin;
+		OutputStream output = stdout;
+
+		try {
+			if (inputFile != null) {
+				input = FileUtils.openFileStream(resolve(context, inputFile));
+			}
+
+			if (outputFile != null) {
+				output = openOutput(resolve(context, outputFile));
+			}
+
+			run(tool, context, input, output, stderr);
+		} catch (IOException e) {
+			// a write fails once the command has been stopped because nobody
+			// reads its output any more, which is not an error
+			if (token.isCancelled()) {
+				return ATool.STATUS_CANCELLED;
+			}
+
+			// the redirection failed, or the file could not be written
+			error(stderr, e.getMessage());
+			return 1;
+		} finally {
+			if (input != stdin) {
+				input.close();
+			}
+
+			if (output != stdout) {
+				output.close();
+			}
+		}
+
+		return tool.getStatusCode();
+	}
+
+	/**
+	 * execute the tool on the redirected streams
+	 */
+	private void run(ITool tool, ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		File workingDir = context.getWorkingDirectory();
+
+		if (tool instanceof CDTool) {
+			// the output of cd is the new working directory
+			String output = tool.execute(workingDir, null);
+
+			if (tool.getStatusCode() == 0) {
+				context.setWorkingDirectory(new File(output));
+			} else {
+				error(stderr, output);
+			}
+		} else if (tool instanceof IStreamTool) {
+			((IStreamTool) tool).execute(workingDir, stdin, stdout, stderr);
+		} else {
+			String input = stdin == null ? null : FileUtils.readStreamContent(stdin);
+			String output = tool.execute(workingDir, input);
+
+			if (output != null) {
+				(tool.getStatusCode() == 0 ? stdout : stderr)
+						.write(output.getBytes(ATool.CHARSET));
+			}
+		}
+	}
+
+	/**
+	 * open a file for ">" or ">>"
+	 */
+	private OutputStream openOutput(File file) throws IOException {
+		if (file.isDirectory()) {
+			throw new IOException("Error: " + file.getName() + " is a directory");
+		}
+
+		FileChannel channel;
+
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE, append ? StandardOpenOption.APPEND
+							: StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new IOException("Error: Cannot write " + file.getName(), e);
+		}
+
+		return new BufferedOutputStream(Channels.newOutputStream(channel),
+				BUFFER_SIZE);
+	}
+
+	private static File resolve(ExecutionContext context, String name) {
+		return new File(PathUtils.pathResolver(context.getWorkingDirectory(), name));
+	}
+
+	/**
+	 * write an error message on its own line
+	 */
+	private static void error(OutputStream stderr, String message)
+			throws IOException {
+		stderr.write((message + "\n").getBytes(ATool.CHARSET));
+	}
+
+	/**
+	 * adapt the command to a tool, so it can be a program of a pipe
+	 * 
+	 * @param context the context the command is executed in
+	 * 
+	 * @return ATool
+	 */
+	public ATool toTool(final ExecutionContext context) {
+		return new ATool(null) {
+			@Override
+			public String execute(File workingDir, String stdin) {
+				return executeBuffered(workingDir, stdin);
+			}
+
+			@Override
+			public void execute(File workingDir, InputStream stdin,
+					OutputStream stdout, OutputStream stderr) throws IOException {
+				// the pipe cancels its stages through the token of this tool
+				setStatusCode(CommandNode.this.execute(context, getCancellationToken(),
+						stdin, stdout, stderr));
+			}
+		};
+	}
+}
@@ -0,0 +1,65 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+
+/**
+ * Two commands joined by "&&" or "||". The right command is executed only if
+ * the left one succeeded (&&) or failed (||).
+ * 
+ * Command Format - COMMAND-1 && COMMAND-2, COMMAND-1 || COMMAND-2
+ */
+public class ConditionalNode extends Node {
+
+	public static final String AND = "&&";
+	public static final String OR = "||";
+
+	private final Node left;
+	private final String operator;
+	private final Node right;
+
+	/**
+	 * @param left
+	 * @param operator AND or OR
+	 * @param right
+	 */
+	public ConditionalNode(Node left, String operator, Node right) {
+		this.left = left;
+		this.operator = operator;
+		this.right = right;
+	}
+
+	public Node getLeft() {
+		return left;
+	}
+
+	public String getOperator() {
+		return operator;
+	}
+
+	public Node getRight() {
+		return right;
+	}
+
+	/**
+	 * @return status code of the last command executed
+	 */
+	@Override
+	public int execute(ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		int status = left.execute(context, stdin, stdout, stderr);
+
+		if (context.isCancelled()) {
+			return ATool.STATUS_CANCELLED;
+		}
+
+		if ((status == 0) == AND.equals(operator)) {
+			status = right.execute(context, stdin, stdout, stderr);
+		}
+
+		return status;
+	}
+}
@@ -0,0 +1,46 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.File;
+
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+
+/**
+ * The state of one execution of a command line: the working directory, which
+ * cd changes for the commands after it, and the token cancelling every
+ * command of the line.
+ */
+public class ExecutionContext {
+
+	private File workingDir;
+	private final CancellationToken cancellation;
+
+	/**
+	 * initialize a context
+	 * 
+	 * @param workingDir
+	 * @param cancellation CancellationToken, never null
+	 */
+	public ExecutionContext(File workingDir, CancellationToken cancellation) {
+		this.workingDir = workingDir;
+		this.cancellation = cancellation;
+	}
+
+	public File getWorkingDirectory() {
+		return workingDir;
+	}
+
+	public void setWorkingDirectory(File workingDir) {
+		this.workingDir = workingDir;
+	}
+
+	public CancellationToken getCancellationToken() {
+		return cancellation;
+	}
+
+	/**
+	 * @return true if the line was requested to stop
+	 */
+	public boolean isCancelled() {
+		return cancellation.isCancelled();
+	}
+}
@@ -0,0 +1,27 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A node of a parsed command line. Nodes are immutable, so a parsed line can
+ * be cached and executed any number of times; the state of one execution is
+ * kept in its {@link ExecutionContext}.
+ */
+public abstract class Node {
+
+	/**
+	 * execute the node
+	 * 
+	 * @param context working directory and cancellation of this execution
+	 * @param stdin Input on stdin, can be null
+	 * @param stdout receives the normal output
+	 * @param stderr receives the error messages
+	 * 
+	 * @return status code, 0 if executed properly
+	 * @throws IOException when stdin, stdout or stderr cannot be accessed
+	 */
+	public abstract int execute(ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException;
+}
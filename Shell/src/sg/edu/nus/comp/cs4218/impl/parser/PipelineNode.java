@@ -0,0 +1,56 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.impl.extended1.PIPINGTool;
+
+/**
+ * Commands joined by "|", executed concurrently by a {@link PIPINGTool}.
+ * Every command gets its own copy of the working directory, so a cd inside a
+ * pipe does not affect the commands after it.
+ * 
+ * Command Format - COMMAND-1 | COMMAND-2 [| COMMAND-3 ...]
+ */
+public class PipelineNode extends Node {
+
+	private final List<CommandNode> commands;
+
+	/**
+	 * @param commands the commands of the pipe, from first to last
+	 */
+	public PipelineNode(List<CommandNode> commands) {
+		this.commands = Collections.unmodifiableList(new ArrayList<CommandNode>(commands));
+	}
+
+	public List<CommandNode> getCommands() {
+		return commands;
+	}
+
+	/**
+	 * @return status code of the first failing command, as for the pipe tool
+	 */
+	@Override
+	public int execute(ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		List<ITool> programs = new ArrayList<ITool>(commands.size());
+
+		for (CommandNode command : commands) {
+			ExecutionContext own = new ExecutionContext(
+					context.getWorkingDirectory(), context.getCancellationToken());
+
+			programs.add(command.toTool(own));
+		}
+
+		PIPINGTool pipe = new PIPINGTool(programs);
+		pipe.setCancellationToken(context.getCancellationToken());
+		pipe.execute(context.getWorkingDirectory(), stdin, stdout, stderr);
+
+		return pipe.getStatusCode();
+	}
+}
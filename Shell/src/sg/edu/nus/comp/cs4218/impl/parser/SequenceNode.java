@@ -0,0 +1,50 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+
+/**
+ * Commands separated by ";", executed one after another whatever their status
+ * 
+ * Command Format - COMMAND-1 ; COMMAND-2 [; COMMAND-3 ...]
+ */
+public class SequenceNode extends Node {
+
+	private final List<Node> nodes;
+
+	/**
+	 * @param nodes the commands, in order
+	 */
+	public SequenceNode(List<Node> nodes) {
+		this.nodes = Collections.unmodifiableList(new ArrayList<Node>(nodes));
+	}
+
+	public List<Node> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return status code of the last command
+	 */
+	@Override
+	public int execute(ExecutionContext context, InputStream stdin,
+			OutputStream stdout, OutputStream stderr) throws IOException {
+		int status = 0;
+
+		for (Node node : nodes) {
+			if (context.isCancelled()) {
+				return ATool.STATUS_CANCELLED;
+			}
+
+			status = node.execute(context, stdin, stdout, stderr);
+		}
+
+		return status;
+	}
+}
@@ -0,0 +1,104 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.fileutils.ECHOTool;
+
+public class AToolTest {
+
+	@Test
+	public void testStreamAdapterWritesStdout() throws IOException {
+		ECHOTool echo = new ECHOTool(new String[] { "hello", "world" });
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		echo.execute(null, null, stdout, stderr);
+
+		assertEquals("hello world\n", stdout.toString("UTF-8"));
+		assertEquals(0, stderr.size());
+	}
+
+	@Test
+	public void testStreamAdapterPassesStdin() throws IOException {
+		UpperTool upper = new UpperTool(0);
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		upper.execute(null, new ByteArrayInputStream("h\u00e9llo".getBytes("UTF-8")),
+				stdout, stdout);
+
+		assertEquals("H\u00c9LLO", stdout.toString("UTF-8"));
+	}
+
+	@Test
+	public void testStreamAdapterWritesErrorToStderr() throws IOException {
+		UpperTool upper = new UpperTool(2);
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		upper.execute(null, new ByteArrayInputStream("abc".getBytes("UTF-8")),
+				stdout, stderr);
+
+		assertEquals(0, stdout.size());
+		assertEquals("ABC", stderr.toString("UTF-8"));
+		assertNotEquals(0, upper.getStatusCode());
+	}
+
+	@Test
+	public void testBufferedAdapterRunsStreamExecute() {
+		StreamUpperTool upper = new StreamUpperTool();
+
+		assertEquals("ABC", upper.execute(null, "abc"));
+		assertEquals("", upper.execute(null, null));
+	}
+
+	/**
+	 * a String based tool, exercising the stream adapter of ATool
+	 */
+	private static class UpperTool extends ATool {
+		private int status;
+
+		public UpperTool(int status) {
+			super(null);
+			this.status = status;
+		}
+
+		@Override
+		public String execute(File workingDir, String stdin) {
+			setStatusCode(status);
+			return stdin.toUpperCase();
+		}
+	}
+
+	/**
+	 * a stream based tool, exercising the buffered adapter of ATool
+	 */
+	private static class StreamUpperTool extends ATool {
+		public StreamUpperTool() {
+			super(null);
+		}
+
+		@Override
+		public String execute(File workingDir, String stdin) {
+			return executeBuffered(workingDir, stdin);
+		}
+
+		@Override
+		public void execute(File workingDir, InputStream stdin,
+				OutputStream stdout, OutputStream stderr) throws IOException {
+			if (stdin != null) {
+				stdout.write(FileUtils.readStreamContent(stdin).toUpperCase()
+						.getBytes(CHARSET));
+			}
+		}
+	}
+}
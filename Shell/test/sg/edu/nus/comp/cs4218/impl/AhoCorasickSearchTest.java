@@ -0,0 +1,139 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AhoCorasickSearchTest {
+
+	private static int indexIn(AhoCorasickSearch search, String text) {
+		byte[] bytes = text.getBytes(ATool.CHARSET);
+		return search.indexIn(bytes, 0, bytes.length);
+	}
+
+	private static AhoCorasickSearch of(String... literals) {
+		return new AhoCorasickSearch(Arrays.asList(literals));
+	}
+
+	@Test
+	public void testFindsAnyString() {
+		AhoCorasickSearch search = of("he", "she", "his", "hers");
+
+		assertEquals(1, indexIn(search, "ushers"));
+		assertEquals("she", search.getLastLiteral());
+		assertEquals(0, indexIn(search, "his"));
+		assertEquals("his", search.getLastLiteral());
+		assertEquals(-1, indexIn(search, "hi s"));
+		assertNull(search.getLastLiteral());
+	}
+
+	@Test
+	public void testLeftmostLongest() {
+		// "bc" ends first, but "abcd" starts before it
+		AhoCorasickSearch search = of("bc", "abcd");
+
+		assertEquals(1, indexIn(search, "xabcd"));
+		assertEquals("abcd", search.getLastLiteral());
+		assertEquals(4, search.getLastLength());
+
+		// of the strings starting at the same byte the longest one
+		search = of("ab", "abcd", "abc");
+
+		assertEquals(2, indexIn(search, "xxabcde"));
+		assertEquals("abcd", search.getLastLiteral());
+
+		assertEquals(2, indexIn(search, "xxabcxabcd"));
+		assertEquals("abc", search.getLastLiteral());
+	}
+
+	@Test
+	public void testUtf8() {
+		AhoCorasickSearch search = of("\u00e9t\u00e9", "hiver");
+
+		// the first word is 5 bytes in UTF-8, the occurrence starts at byte 6
+		assertEquals(6, indexIn(search, "caf\u00e9 \u00e9t\u00e9"));
+		assertEquals(5, search.getLastLength());
+	}
+
+	@Test
+	public void testRange() {
+		byte[] bytes = "abc xyz".getBytes(ATool.CHARSET);
+		AhoCorasickSearch search = of("abc", "xyz");
+
+		assertEquals(4, search.indexIn(bytes, 1, bytes.length));
+		assertEquals(-1, search.indexIn(bytes, 1, 6));
+	}
+
+	@Test
+	public void testDuplicates() {
+		AhoCorasickSearch search = of("id", "id");
+
+		assertEquals(2, search.size());
+		assertEquals(3, indexIn(search, "no id"));
+		assertEquals("id", search.getLastLiteral());
+	}
+
+	/**
+	 * the first occurrence is the one a search for every string with
+	 * indexOf finds, the longest of those at the smallest index
+	 */
+	@Test
+	public void testSameAsIndexOf() {
+		Random random = new Random(42);
+
+		for (int round = 0; round < 2000; round++) {
+			List<String> literals = new ArrayList<String>();
+
+			for (int n = 1 + random.nextInt(5); n > 0; n--) {
+				literals.add(randomText(random, 1 + random.nextInt(4)));
+			}
+
+			String text = randomText(random, random.nextInt(60));
+			AhoCorasickSearch search = new AhoCorasickSearch(literals);
+			int expected = -1;
+			int expectedLength = 0;
+
+			for (String literal : literals) {
+				int index = text.indexOf(literal);
+
+				if (index >= 0 && (expected < 0 || index < expected
+						|| (index == expected && literal.length() > expectedLength))) {
+					expected = index;
+					expectedLength = literal.length();
+				}
+			}
+
+			String message = text + " " + literals;
+
+			assertEquals(message, expected, indexIn(search, text));
+			assertEquals(message, expectedLength, search.getLastLength());
+		}
+	}
+
+	private static String randomText(Random random, int length) {
+		char[] text = new char[length];
+
+		for (int i = 0; i < length; i++) {
+			text[i] = (char) ('a' + random.nextInt(3));
+		}
+
+		return new String(text);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoLiterals() {
+		new AhoCorasickSearch(Collections.<String> emptyList());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyLiteral() {
+		of("a", "");
+	}
+}
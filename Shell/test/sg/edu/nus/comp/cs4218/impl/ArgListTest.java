@@ -3,12 +3,14 @@ package sg.edu.nus.comp.cs4218.impl;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import sg.edu.nus.comp.cs4218.impl.ArgList.ArgType;
+import sg.edu.nus.comp.cs4218.impl.benchmark.LegacyArgList;
 
 public class ArgListTest {
 	
@@ -143,6 +145,21 @@ public class ArgListTest {
 		assertArrayEquals(new String[] { "N", "T", "S", "t" }, args.getOptions());
 	}
 	
+	@Test
+	public void testParseWithRepeatedValueOptions() {
+		String[] arguments = { "-S", "a", "-T", "-S", "b", "-" };
+
+		args.registerAcceptableOption("T", ArgType.RAW, null);
+		args.registerAcceptableOption("S", ArgType.STRING, null);
+		args.registerAcceptableOption("N", ArgType.NUM, null);
+		args.parseArgs(arguments);
+
+		assertEquals("b", args.getOptionValue("S"));
+		assertArrayEquals(new String[] { "a", "b" }, args.getOptionValues("S"));
+		assertArrayEquals(new String[0], args.getOptionValues("N"));
+		assertArrayEquals(new String[] { "S", "T" }, args.getOptions());
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void testParseWithInvalidNumValueOptions() {
 		String[] arguments = { "-N", "-T" };
@@ -318,4 +335,94 @@ public class ArgListTest {
 		assertEquals(3, ArgType.values().length);
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * random text made of the characters the parser cares about
+	 */
+	private static String randomLine(Random random) {
+		String alphabet = "ab-1|  \t\\\\\"\"''\n\u2028";
+		StringBuilder line = new StringBuilder();
+		int length = random.nextInt(16);
+		
+		for (int i = 0; i < length; i++) {
+			line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		
+		return line.toString();
+	}
+	
+	@Test
+	public void testSplitSameAsLegacy() {
+		Random random = new Random(4218);
+		
+		for (int i = 0; i < 50000; i++) {
+			String line = randomLine(random);
+			ArrayList<String> expected = new ArrayList<String>();
+			ArrayList<String> actual = new ArrayList<String>();
+			
+			assertEquals(line, LegacyArgList.split(line, expected), ArgList.split(line, actual));
+			assertEquals(line, expected, actual);
+		}
+	}
+	
+	/**
+	 * parse with both implementations and describe the outcome
+	 */
+	private static String describeParse(Object argList, String[] arguments, boolean checks) {
+		try {
+			if (argList instanceof ArgList) {
+				ArgList list = (ArgList) argList;
+				list.optionsFirstCheck = checks;
+				list.invalidOptionCheck = checks;
+				list.registerAcceptableOption("a", "a");
+				list.registerAcceptableOption("n", ArgType.NUM, "n");
+				list.registerAcceptableOption("s", ArgType.STRING, "s");
+				list.parseArgs(arguments);
+				
+				return java.util.Arrays.asList(list.getArguments()) + " "
+						+ java.util.Arrays.asList(list.getOptions()) + " "
+						+ java.util.Arrays.asList(list.getParams()) + " "
+						+ java.util.Arrays.asList(list.getInvalidOptions()) + " "
+						+ list.getOptionValue("n") + " " + list.getOptionValue("s");
+			} else {
+				LegacyArgList list = (LegacyArgList) argList;
+				list.optionsFirstCheck = checks;
+				list.invalidOptionCheck = checks;
+				list.registerAcceptableOption("a", "a");
+				list.registerAcceptableOption("n", LegacyArgList.ArgType.NUM, "n");
+				list.registerAcceptableOption("s", LegacyArgList.ArgType.STRING, "s");
+				list.parseArgs(arguments);
+				
+				return java.util.Arrays.asList(list.getArguments()) + " "
+						+ java.util.Arrays.asList(list.getOptions()) + " "
+						+ java.util.Arrays.asList(list.getParams()) + " "
+						+ java.util.Arrays.asList(list.getInvalidOptions()) + " "
+						+ list.getOptionValue("n") + " " + list.getOptionValue("s");
+			}
+		} catch (IllegalArgumentException e) {
+			return e.getMessage();
+		}
+	}
+	
+	@Test
+	public void testParseArgsSameAsLegacy() {
+		Random random = new Random(4218);
+		String[] words = { "-a", "-n", "-s", "-x", "-", "12", "-1b", "-a\\", "a\\ b",
+				"\"a", "\"a b\"", "'a\\'b'", "\\\"", "a\n\"" };
+		
+		for (int i = 0; i < 20000; i++) {
+			String[] arguments = new String[random.nextInt(6)];
+			
+			for (int j = 0; j < arguments.length; j++) {
+				arguments[j] = random.nextBoolean() ? words[random.nextInt(words.length)]
+						: randomLine(random);
+			}
+			
+			boolean checks = random.nextBoolean();
+			
+			assertEquals(java.util.Arrays.toString(arguments),
+					describeParse(new LegacyArgList(), arguments, checks),
+					describeParse(new ArgList(), arguments, checks));
+		}
+	}
+	
+}
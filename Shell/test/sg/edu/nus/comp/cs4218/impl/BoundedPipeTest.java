@@ -0,0 +1,103 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoundedPipeTest {
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new BoundedPipe(0);
+	}
+
+	@Test
+	public void testReadAfterWriterClosed() throws IOException {
+		BoundedPipe pipe = new BoundedPipe(16);
+		pipe.getOutputStream().write("hello".getBytes("UTF-8"));
+		pipe.getOutputStream().close();
+
+		assertEquals("hello", FileUtils.readStreamContent(pipe.getInputStream()));
+		assertEquals(-1, pipe.getInputStream().read());
+	}
+
+	@Test
+	public void testTransferLargerThanCapacity() throws Exception {
+		final BoundedPipe pipe = new BoundedPipe(7);
+		final byte[] data = new byte[100000];
+		new Random(42).nextBytes(data);
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					OutputStream out = pipe.getOutputStream();
+					for (int i = 0; i < data.length; i += 1000) {
+						out.write(data, i, 1000);
+					}
+					out.close();
+				} catch (IOException e) {
+					fail(e.getMessage());
+				}
+			}
+		});
+		writer.start();
+
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		FileUtils.copyStream(pipe.getInputStream(), received);
+		writer.join();
+
+		assertArrayEquals(data, received.toByteArray());
+	}
+
+	@Test
+	public void testWriterBlocksWhenFull() throws Exception {
+		final BoundedPipe pipe = new BoundedPipe(4);
+		final int[] written = new int[1];
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < 10; i++) {
+						pipe.getOutputStream().write(i);
+						written[0]++;
+					}
+				} catch (IOException e) {
+					// closed by the test
+				}
+			}
+		});
+		writer.start();
+		writer.join(200);
+
+		assertTrue(writer.isAlive());
+		assertEquals(4, written[0]);
+
+		pipe.getInputStream().close();
+		writer.join(1000);
+	}
+
+	@Test
+	public void testWriteFailsAfterReaderClosed() throws IOException {
+		BoundedPipe pipe = new BoundedPipe(4);
+		InputStream in = pipe.getInputStream();
+		in.close();
+
+		try {
+			pipe.getOutputStream().write(1);
+			fail("write should fail once the reader is gone");
+		} catch (IOException e) {
+			assertEquals("Error: Pipe closed", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileComparisonTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createFile(String name, String content) throws IOException {
+		File file = folder.newFile(name);
+		FileUtils.createDummyFile(file, content);
+		return file;
+	}
+
+	@Test
+	public void testDifferenceAcrossChunks() throws IOException {
+		File a = folder.newFile("a.bin");
+		File b = folder.newFile("b.bin");
+		long offset = 3L * 1024 * 1024 + 5;
+
+		fillWithZeros(a, 4 * 1024 * 1024);
+		fillWithZeros(b, 4 * 1024 * 1024);
+		writeByte(b, offset, 1);
+
+		assertEquals(offset, FileComparison.findFirstDifference(a, b));
+		assertFalse(FileUtils.diffTwoFiles(a, b));
+
+		writeByte(b, offset, 0);
+
+		assertEquals(FileComparison.IDENTICAL, FileComparison.findFirstDifference(a, b));
+		assertTrue(FileUtils.diffTwoFiles(a, b));
+	}
+
+	@Test
+	public void testDifferenceInLastBytesOfUnalignedFile() throws IOException {
+		File a = createFile("a.txt", "0123456789abc");
+		File b = createFile("b.txt", "0123456789abd");
+
+		assertEquals(12, FileComparison.findFirstDifference(a, b));
+	}
+
+	@Test
+	public void testParallelRegionsFindTheFirstDifference() throws IOException {
+		File a = folder.newFile("a.bin");
+		File b = folder.newFile("b.bin");
+		long size = FileComparison.PARALLEL_THRESHOLD + 1024;
+
+		fillWithZeros(a, size);
+		fillWithZeros(b, size);
+		writeByte(b, size - 1, 1);
+		writeByte(b, 70L * 1024 * 1024, 1);
+
+		assertEquals(70L * 1024 * 1024, FileComparison.findFirstDifference(a, b,
+				true, CancellationToken.NONE));
+	}
+
+	@Test
+	public void testPrefixDifferenceIsShorterLength() throws IOException {
+		File a = createFile("a.txt", "abc");
+		File b = createFile("b.txt", "abcdef");
+
+		assertEquals(3, FileComparison.findFirstDifference(a, b));
+		assertEquals(3, FileComparison.findFirstDifference(b, a));
+		assertFalse(FileUtils.diffTwoFiles(a, b));
+	}
+
+	@Test
+	public void testCancelledComparison() throws IOException {
+		File a = createFile("a.txt", "abc");
+		File b = createFile("b.txt", "abd");
+		CancellationToken token = new CancellationToken();
+
+		token.cancel();
+
+		try {
+			FileComparison.findFirstDifference(a, b, false, token);
+			fail("cancelled comparison completed");
+		} catch (IOException e) {
+			assertEquals("Error: Comparison cancelled", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCountLines() throws IOException {
+		File a = createFile("a.txt", "a\nb\nc\n");
+
+		assertEquals(0, FileComparison.countLines(a, 1));
+		assertEquals(2, FileComparison.countLines(a, 4));
+		assertEquals(3, FileComparison.countLines(a, 100));
+	}
+
+	private static void fillWithZeros(File file, long size) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(size);
+		raf.close();
+	}
+
+	private static void writeByte(File file, long offset, int b) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(offset);
+		raf.write(b);
+		raf.close();
+	}
+}
@@ -0,0 +1,135 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileContentCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File write(String name, String content) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), content.getBytes(ATool.CHARSET));
+		return file;
+	}
+
+	@Test
+	public void testHitReturnsCachedContent() throws IOException {
+		FileContentCache cache = new FileContentCache(1024);
+		File file = write("a.txt", "one\ntwo\n");
+
+		String first = cache.getContent(file);
+		String second = cache.getContent(file);
+
+		assertEquals("one\ntwo\n", first);
+		assertSame(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 1e-9);
+	}
+
+	@Test
+	public void testChangedFileIsReadAgain() throws IOException {
+		FileContentCache cache = new FileContentCache(1024);
+		File file = write("a.txt", "old\n");
+
+		assertEquals("old\n", cache.getContent(file));
+		write("a.txt", "new content\n");
+
+		assertEquals("new content\n", cache.getContent(file));
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void testLinesAreCopied() throws IOException {
+		FileContentCache cache = new FileContentCache(1024);
+		File file = write("a.txt", "b\r\na\n");
+
+		String[] lines = cache.getLines(file);
+		assertArrayEquals(new String[] { "b", "a" }, lines);
+
+		lines[0] = "changed";
+		assertArrayEquals(new String[] { "b", "a" }, cache.getLines(file));
+		assertNotSame(cache.getLines(file), cache.getLines(file));
+	}
+
+	@Test
+	public void testBytesAreKeptWithContent() throws IOException {
+		FileContentCache cache = new FileContentCache(1024);
+		File file = write("a.txt", "one\ntwo\n");
+
+		byte[] first = cache.getBytes(file);
+		assertArrayEquals("one\ntwo\n".getBytes(ATool.CHARSET), first);
+		assertSame(first, cache.getBytes(file));
+		assertEquals("one\ntwo\n", cache.getContent(file));
+
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testLargeFileHasNoBytes() throws IOException {
+		FileContentCache cache = new FileContentCache(100);
+		File file = write("big.txt", "more than a quarter of the bound\n");
+
+		assertNull(cache.getBytes(file));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws IOException {
+		// every file weighs 2 * 20 chars + overhead, three do not fit
+		FileContentCache cache = new FileContentCache(200);
+		File a = write("a.txt", "aaaaaaaaaaaaaaaaaaa\n");
+		File b = write("b.txt", "bbbbbbbbbbbbbbbbbbb\n");
+		File c = write("c.txt", "ccccccccccccccccccc\n");
+
+		cache.getContent(a);
+		cache.getContent(b);
+		cache.getContent(a);
+		cache.getContent(c);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		cache.getContent(a);
+		assertEquals(2, cache.getHits());
+		// b was the least recently used one
+		cache.getContent(b);
+		assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	public void testLargeFileIsNotCached() throws IOException {
+		FileContentCache cache = new FileContentCache(100);
+		File file = write("big.txt", "more than a quarter of the bound\n");
+
+		assertEquals("more than a quarter of the bound\n", cache.getContent(file));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testDisabledCache() throws IOException {
+		FileContentCache cache = new FileContentCache(0);
+		File file = write("a.txt", "x\n");
+
+		assertEquals("x\n", cache.getContent(file));
+		assertEquals("x\n", cache.getContent(file));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+	}
+}
@@ -0,0 +1,105 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileWalkerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String SEP = File.separator;
+
+	private File createFiles(String... paths) throws IOException {
+		File root = folder.getRoot();
+
+		for (String path : paths) {
+			File file = new File(root, path);
+			file.getParentFile().mkdirs();
+			FileUtils.createDummyFile(file, path);
+		}
+
+		return root;
+	}
+
+	private static List<String> walk(FileWalker walker) {
+		List<String> paths = new ArrayList<String>();
+
+		while (walker.hasNext()) {
+			paths.add(walker.next());
+		}
+
+		return paths;
+	}
+
+	@Test
+	public void testWalkInOrder() throws IOException {
+		File root = createFiles("b/y", "a/z", "c", "b/a/x", "a0");
+
+		assertEquals(Arrays.asList("a" + SEP + "z", "a0", "b" + SEP + "a" + SEP + "x",
+				"b" + SEP + "y", "c"), walk(new FileWalker(root)));
+	}
+
+	@Test
+	public void testWalkEmptyDirectory() {
+		FileWalker walker = new FileWalker(folder.getRoot());
+
+		assertFalse(walker.hasNext());
+		assertEquals(0, walker.getErrors().size());
+	}
+
+	@Test
+	public void testWalkManyDirectories() throws IOException {
+		List<String> expected = new ArrayList<String>();
+
+		for (int i = 0; i < FileWalker.LOOKAHEAD * 3; i++) {
+			String path = String.format("d%03d", i) + SEP + "e" + SEP + "f";
+			expected.add(path);
+		}
+
+		File root = createFiles(expected.toArray(new String[expected.size()]));
+
+		assertEquals(expected, walk(new FileWalker(root)));
+	}
+
+	@Test
+	public void testIncludeAndExclude() throws IOException {
+		File root = createFiles("a.txt", "b.java", "skip/c.txt", "d/e.txt");
+
+		assertEquals(Arrays.asList("a.txt", "d" + SEP + "e.txt"),
+				walk(new FileWalker(root, Arrays.asList("*.txt"), Arrays.asList("skip"))));
+		assertEquals(Arrays.asList("b.java"),
+				walk(new FileWalker(root, Collections.<String> emptyList(),
+						Arrays.asList("*.txt", "d", "skip"))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalGlob() {
+		new FileWalker(folder.getRoot(), Arrays.asList("[a"), Collections.<String> emptyList());
+	}
+
+	@Test
+	public void testLinksNotFollowed() throws IOException {
+		File root = createFiles("a/x");
+
+		try {
+			Files.createSymbolicLink(new File(root, "loop").toPath(), root.toPath());
+		} catch (UnsupportedOperationException e) {
+			return;
+		}
+
+		assertEquals(Arrays.asList("a" + SEP + "x"), walk(new FileWalker(root)));
+	}
+}
@@ -0,0 +1,72 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.fileutils.ECHOTool;
+
+public class JobTableTest {
+
+	JobTable jobs;
+
+	@Before
+	public void setUp() {
+		jobs = new JobTable();
+	}
+
+	private ToolRunnable newRunnable() {
+		return new ToolRunnable(new ECHOTool(new String[] { "a" }), "");
+	}
+
+	@Test
+	public void testNumbersFollowHighestJob() {
+		JobTable.Job first = jobs.add("echo 1", newRunnable());
+		JobTable.Job second = jobs.add("echo 2", newRunnable());
+
+		assertEquals(1, first.getId());
+		assertEquals(2, second.getId());
+
+		jobs.remove(1);
+		assertEquals(3, jobs.add("echo 3", newRunnable()).getId());
+
+		jobs.remove(2);
+		jobs.remove(3);
+		assertEquals(1, jobs.add("echo 4", newRunnable()).getId());
+	}
+
+	@Test
+	public void testLookup() {
+		ToolRunnable runnable = newRunnable();
+		JobTable.Job job = jobs.add("echo 1", runnable);
+		jobs.add("echo 2", newRunnable());
+
+		assertSame(job, jobs.get(1));
+		assertSame(job, jobs.find(runnable));
+		assertEquals(2, jobs.last().getId());
+		assertEquals(2, jobs.list().size());
+		assertNull(jobs.get(5));
+		assertNull(jobs.find(newRunnable()));
+	}
+
+	@Test
+	public void testDescribe() {
+		JobTable.Job job = jobs.add("copy a b", newRunnable());
+
+		assertEquals("[1] Running    copy a b", job.describe("Running"));
+	}
+
+	@Test
+	public void testParseJobId() {
+		assertEquals(3, JobTable.parseJobId("%3"));
+		assertEquals(12, JobTable.parseJobId("12"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseInvalidJobId() {
+		JobTable.parseJobId("%a");
+	}
+}
@@ -0,0 +1,112 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LineChunksTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FileChannel open(String content) throws IOException {
+		File file = folder.newFile();
+		FileUtils.createDummyFile(file, content);
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	@Test
+	public void testSplitAtLineStarts() throws IOException {
+		FileChannel channel = open("aaaa\nbb\ncccccc\nd\n");
+
+		try {
+			assertArrayEquals(new long[] { 0, 5, 8, 15, 17 }, LineChunks.split(channel, 1));
+			assertArrayEquals(new long[] { 0, 8, 15, 17 }, LineChunks.split(channel, 6));
+			assertArrayEquals(new long[] { 0, 17 }, LineChunks.split(channel, 100));
+		} finally {
+			channel.close();
+		}
+	}
+
+	@Test
+	public void testSplitWithoutLineFeeds() throws IOException {
+		FileChannel channel = open("aaaa\rbbbb\rcccc");
+
+		try {
+			assertArrayEquals(new long[] { 0, 14 }, LineChunks.split(channel, 2));
+		} finally {
+			channel.close();
+		}
+	}
+
+	@Test
+	public void testLookback() throws IOException {
+		// lines start at 0, 3, 7, 9 and 12
+		FileChannel channel = open("ab\ncd\r\ne\rfg\nhi\n");
+
+		try {
+			assertEquals(12, LineChunks.lookback(channel, 12, 0));
+			assertEquals(9, LineChunks.lookback(channel, 12, 1));
+			assertEquals(7, LineChunks.lookback(channel, 12, 2));
+			assertEquals(3, LineChunks.lookback(channel, 12, 3));
+			assertEquals(0, LineChunks.lookback(channel, 12, 4));
+			assertEquals(0, LineChunks.lookback(channel, 12, 10));
+			assertEquals(0, LineChunks.lookback(channel, 0, 3));
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * the chunks together have the lines of the whole file
+	 */
+	@Test
+	public void testChunksHaveAllLines() throws IOException {
+		StringBuilder text = new StringBuilder();
+
+		for (int i = 0; i < 500; i++) {
+			text.append("line ").append(i).append(i % 7 == 0 ? "\r\n" : "\n");
+		}
+
+		FileChannel channel = open(text.toString());
+
+		try {
+			List<String> expected = readLines(LineSource.of(text.toString()), 0);
+
+			for (long chunkSize : new long[] { 1, 10, 333, 100000 }) {
+				long[] bounds = LineChunks.split(channel, chunkSize);
+				List<String> lines = new ArrayList<String>();
+
+				for (int i = 0; i + 1 < bounds.length; i++) {
+					lines.addAll(readLines(
+							LineSource.open(channel, bounds[i], bounds[i + 1]), bounds[i]));
+				}
+
+				assertEquals(expected, lines);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	private static List<String> readLines(LineSource source, long from)
+			throws IOException {
+		List<String> lines = new ArrayList<String>();
+
+		while (source.next()) {
+			lines.add(from + source.getOffset() + ":" + source.decode());
+		}
+
+		return lines;
+	}
+}
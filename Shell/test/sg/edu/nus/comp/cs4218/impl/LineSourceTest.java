@@ -0,0 +1,176 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LineSourceTest {
+
+	private static final String[] TEXTS = { "", "a", "a\n", "a\nb", "\n\n",
+			"a\r\nb\rc\n", "x\r\r\ny", "\r", "last\r\n",
+			"\u00e9t\u00e9\n\u4e2d\u6587" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String[] readLines(String text) throws IOException {
+		BufferedReader br = new BufferedReader(new StringReader(text));
+		List<String> lines = new ArrayList<String>();
+		String line;
+
+		while ((line = br.readLine()) != null) {
+			lines.add(line);
+		}
+
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	private static String[] decodeAll(LineSource source) throws IOException {
+		List<String> lines = new ArrayList<String>();
+
+		while (source.next()) {
+			lines.add(source.decode());
+		}
+
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	/**
+	 * a stream returning at most one byte per read, so lines and "\r\n"
+	 * span refills
+	 */
+	private static InputStream trickle(String text) {
+		return new ByteArrayInputStream(text.getBytes(ATool.CHARSET)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+	}
+
+	@Test
+	public void testSameLinesAsReadLine() throws IOException {
+		for (String text : TEXTS) {
+			assertArrayEquals(text, readLines(text), decodeAll(LineSource.of(text)));
+		}
+	}
+
+	@Test
+	public void testSameLinesFromStreamWithSmallBuffer() throws IOException {
+		for (String text : TEXTS) {
+			assertArrayEquals(text, readLines(text),
+					decodeAll(new LineSource(trickle(text), 1)));
+		}
+	}
+
+	@Test
+	public void testLongLineGrowsBuffer() throws IOException {
+		StringBuilder longLine = new StringBuilder();
+
+		for (int i = 0; i < 1000; i++) {
+			longLine.append("0123456789");
+		}
+
+		String text = "short\n" + longLine + "\r\nend";
+		LineSource source = new LineSource(new ByteArrayInputStream(
+				text.getBytes(ATool.CHARSET)), 16);
+
+		assertArrayEquals(new String[] { "short", longLine.toString(), "end" },
+				decodeAll(source));
+	}
+
+	@Test
+	public void testSlicesAndFlags() throws IOException {
+		LineSource source = LineSource.of("ab\r\n\u00e9\nlast");
+
+		assertTrue(source.next());
+		assertEquals(2, source.length());
+		assertEquals('a', source.buffer()[source.start()]);
+		assertTrue(source.isAscii());
+		assertTrue(source.isTerminated());
+		assertEquals(1, source.getLineNumber());
+
+		assertTrue(source.next());
+		assertEquals(2, source.length());
+		assertFalse(source.isAscii());
+		assertEquals("\u00e9", source.chars().toString());
+
+		assertTrue(source.next());
+		assertFalse(source.isTerminated());
+		assertEquals(3, source.getLineNumber());
+
+		assertFalse(source.next());
+	}
+
+	@Test
+	public void testAsciiViewIsReused() throws IOException {
+		LineSource source = LineSource.of("first\nsecond\n");
+
+		source.next();
+		CharSequence first = source.chars();
+		assertEquals("first", first.toString());
+
+		source.next();
+		assertSame(first, source.chars());
+		assertEquals("second", source.chars().toString());
+		assertEquals("eco", source.chars().subSequence(1, 4));
+	}
+
+	@Test
+	public void testRegexOnView() throws IOException {
+		LineSource source = LineSource.of("no\nfind me\n");
+		Matcher m = Pattern.compile("f.nd").matcher("");
+		int matches = 0;
+
+		while (source.next()) {
+			m.reset(source.chars());
+
+			if (m.find()) {
+				matches++;
+				assertEquals("find", m.group());
+			}
+		}
+
+		assertEquals(1, matches);
+	}
+
+	@Test
+	public void testWriteAndCompare() throws IOException {
+		LineSource source = LineSource.of("same\r\nother");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] same = "same".getBytes(ATool.CHARSET);
+
+		source.next();
+		source.writeTo(out);
+
+		assertEquals("same", out.toString("UTF-8"));
+		assertTrue(source.lineEquals(same, 0, same.length));
+
+		source.next();
+		assertFalse(source.lineEquals(same, 0, same.length));
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testOpenMissingFile() throws IOException {
+		LineSource.open(new File(folder.getRoot(), "missing.txt"));
+	}
+}
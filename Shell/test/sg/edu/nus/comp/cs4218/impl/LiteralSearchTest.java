@@ -0,0 +1,73 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LiteralSearchTest {
+
+	private static int indexIn(String literal, String text) {
+		byte[] bytes = text.getBytes(ATool.CHARSET);
+		return new LiteralSearch(literal).indexIn(bytes, 0, bytes.length);
+	}
+
+	@Test
+	public void testFindsFirstOccurrence() {
+		assertEquals(0, indexIn("abc", "abcabc"));
+		assertEquals(4, indexIn("abc", "abababcab"));
+		assertEquals(7, indexIn("ERR-42", "ERR-41 ERR-42"));
+		assertEquals(-1, indexIn("abc", "ababab"));
+		assertEquals(-1, indexIn("abc", "ab"));
+	}
+
+	@Test
+	public void testSingleByte() {
+		assertEquals(3, indexIn("x", "abcx"));
+		assertEquals(-1, indexIn("x", "abc"));
+	}
+
+	@Test
+	public void testUtf8() {
+		// the first word is 5 bytes in UTF-8, the occurrence starts at byte 6
+		assertEquals(6, indexIn("\u00e9t\u00e9", "caf\u00e9 \u00e9t\u00e9"));
+	}
+
+	@Test
+	public void testRange() {
+		byte[] bytes = "abc abc".getBytes(ATool.CHARSET);
+		LiteralSearch search = new LiteralSearch("abc");
+
+		assertEquals(4, search.indexIn(bytes, 1, bytes.length));
+		assertEquals(-1, search.indexIn(bytes, 1, 6));
+	}
+
+	@Test
+	public void testSameAsIndexOf() {
+		Random random = new Random(42);
+
+		for (int round = 0; round < 2000; round++) {
+			char[] text = new char[random.nextInt(60)];
+			char[] literal = new char[1 + random.nextInt(4)];
+
+			for (int i = 0; i < text.length; i++) {
+				text[i] = (char) ('a' + random.nextInt(3));
+			}
+
+			for (int i = 0; i < literal.length; i++) {
+				literal[i] = (char) ('a' + random.nextInt(3));
+			}
+
+			String t = new String(text);
+			String l = new String(literal);
+
+			assertEquals(t + " " + l, t.indexOf(l), indexIn(l, t));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyLiteral() {
+		new LiteralSearch("");
+	}
+}
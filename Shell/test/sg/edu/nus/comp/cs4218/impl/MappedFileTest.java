@@ -0,0 +1,107 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String[] readLines(String text) throws IOException {
+		BufferedReader br = new BufferedReader(new StringReader(text));
+		List<String> lines = new ArrayList<String>();
+		String line;
+
+		while ((line = br.readLine()) != null) {
+			lines.add(line);
+		}
+
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Test
+	public void testSameLinesAsReadLine() throws IOException {
+		String[] texts = { "", "a", "a\n", "a\nb", "\n\n", "a\r\nb\rc\n",
+				"x\r\r\ny", "\r", "last\r\n", "\u00e9t\u00e9\n\u4e2d\u6587" };
+
+		for (String text : texts) {
+			MappedFile file = MappedFile.wrap(text);
+
+			assertArrayEquals(text, readLines(text), file.getLines());
+			assertEquals(text, readLines(text).length, file.getLineCount());
+		}
+	}
+
+	@Test
+	public void testRandomAccess() {
+		MappedFile file = MappedFile.wrap("zero\none\ntwo\nthree");
+
+		assertEquals("two", file.getLine(2));
+		assertEquals("zero", file.getLine(0));
+		assertEquals("three", file.getLine(3));
+		assertTrue(file.hasLine(3));
+		assertFalse(file.hasLine(4));
+		assertFalse(file.hasLine(-1));
+
+		try {
+			file.getLine(4);
+			fail("line 4 does not exist");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testOpenFile() throws IOException {
+		File file = folder.newFile("lines.txt");
+		StringBuilder content = new StringBuilder();
+
+		for (int i = 0; i < 10000; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+
+		Files.write(file.toPath(), content.toString().getBytes(ATool.CHARSET));
+		MappedFile mapped = MappedFile.open(file);
+
+		assertEquals("line 9999", mapped.getLine(9999));
+		assertEquals("line 5000", mapped.getLine(5000));
+		assertEquals(10000, mapped.getLineCount());
+		assertEquals(content.length(), mapped.size());
+		mapped.close();
+	}
+
+	@Test
+	public void testOpenErrors() throws IOException {
+		try {
+			MappedFile.open(new File(folder.getRoot(), "missing"));
+			fail("file does not exist");
+		} catch (FileNotFoundException e) {
+			assertEquals("Error: No such file or directory", e.getMessage());
+		}
+
+		try {
+			MappedFile.open(folder.getRoot());
+			fail("file is a directory");
+		} catch (IOException e) {
+			assertEquals("Error: " + folder.getRoot().getName() + " is a directory",
+					e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.OutputSink.FlushPolicy;
+
+public class OutputSinkTest {
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(ATool.CHARSET);
+	}
+
+	@Test
+	public void testLinePolicyPassesCompleteLines() throws IOException {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		OutputSink sink = new OutputSink(target, FlushPolicy.LINE, 16);
+
+		sink.write(bytes("abc"));
+		assertEquals("", target.toString());
+		assertEquals(-1, sink.getTimeToFirstByte());
+
+		sink.write(bytes("d\ne"));
+		assertEquals("abcd\ne", target.toString());
+		assertTrue(sink.getTimeToFirstByte() >= 0);
+
+		sink.write('f');
+		sink.write('\n');
+		assertEquals("abcd\nef\n", target.toString());
+		assertEquals(8, sink.getBytesWritten());
+	}
+
+	@Test
+	public void testBlockPolicyWaitsForFullBuffer() throws IOException {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		OutputSink sink = new OutputSink(target, FlushPolicy.BLOCK, 8);
+
+		sink.write(bytes("one\ntwo"));
+		assertEquals("", target.toString());
+
+		sink.write(bytes("\nx"));
+		assertEquals("one\ntwo", target.toString());
+
+		sink.close();
+		assertEquals("one\ntwo\nx", target.toString());
+	}
+
+	@Test
+	public void testLargeWritePassesThrough() throws IOException {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		OutputSink sink = new OutputSink(target, FlushPolicy.BLOCK, 4);
+
+		sink.write(bytes("ab"));
+		sink.write(bytes("0123456789"));
+		assertEquals("ab0123456789", target.toString());
+	}
+
+	@Test
+	public void testDiscardDropsOutput() throws IOException {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		OutputSink sink = new OutputSink(target, FlushPolicy.BLOCK, 64);
+
+		sink.write(bytes("kept"));
+		sink.flush();
+		sink.write(bytes("dropped"));
+		sink.discard();
+		sink.write(bytes("also dropped\n"));
+		sink.close();
+
+		assertEquals("kept", target.toString());
+	}
+
+	@Test
+	public void testDefaultPolicy() {
+		String old = System.getProperty(OutputSink.POLICY_PROPERTY);
+
+		try {
+			System.setProperty(OutputSink.POLICY_PROPERTY, "block");
+			assertEquals(FlushPolicy.BLOCK, OutputSink.getDefaultPolicy());
+
+			System.setProperty(OutputSink.POLICY_PROPERTY, "nonsense");
+			assertEquals(FlushPolicy.LINE, OutputSink.getDefaultPolicy());
+		} finally {
+			if (old == null) {
+				System.clearProperty(OutputSink.POLICY_PROPERTY);
+			} else {
+				System.setProperty(OutputSink.POLICY_PROPERTY, old);
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.ECHOTool;
+
+public class ParseCacheTest {
+
+	@Test
+	public void testHitReturnsSamePlan() {
+		ParseCache cache = new ParseCache(4);
+		CommandPlan plan = cache.lookup("echo a  b");
+
+		assertSame(plan, cache.lookup("echo a  b"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals("echo", plan.getCommand());
+		assertArrayEquals(new String[] { "a", "b" }, plan.getArguments());
+	}
+
+	@Test
+	public void testEveryExecutionGetsNewTool() {
+		CommandPlan plan = new ParseCache(4).lookup("echo a");
+		ITool first = plan.createTool();
+		ITool second = plan.createTool();
+
+		assertEquals(ECHOTool.class, first.getClass());
+		assertNotSame(first, second);
+		assertEquals("a\n", second.execute(new File("."), ""));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsDropped() {
+		ParseCache cache = new ParseCache(2);
+		CommandPlan a = cache.lookup("echo a");
+		cache.lookup("echo b");
+		cache.lookup("echo a");
+		cache.lookup("echo c");
+
+		assertEquals(2, cache.size());
+		assertSame(a, cache.lookup("echo a"));
+		// "echo b" was the least recently used one
+		cache.lookup("echo b");
+		assertEquals(2, cache.getHits());
+		assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	public void testUnknownCommand() {
+		CommandPlan plan = new ParseCache(2).lookup("nosuchcmd x");
+
+		assertFalse(plan.isFound());
+		assertNull(plan.createTool());
+	}
+
+	@Test
+	public void testDisabledCache() {
+		ParseCache cache = new ParseCache(0);
+
+		assertNotSame(cache.lookup("echo a"), cache.lookup("echo a"));
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void testPlanArgumentsCannotBeChanged() {
+		CommandPlan plan = new ParseCache(2).lookup("echo a");
+		plan.getArguments()[0] = "b";
+
+		assertEquals("a\n", plan.createTool().execute(new File("."), ""));
+	}
+}
@@ -0,0 +1,98 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptRunnerTest {
+
+	ByteArrayOutputStream stdout;
+	ByteArrayOutputStream stderr;
+	ScriptRunner runner;
+	File workingDir;
+
+	@Before
+	public void setUp() {
+		stdout = new ByteArrayOutputStream();
+		stderr = new ByteArrayOutputStream();
+		runner = new ScriptRunner(stdout, stderr);
+		workingDir = Directory.get();
+	}
+
+	@After
+	public void tearDown() {
+		Directory.set(workingDir);
+	}
+
+	private int run(String script) throws IOException {
+		return runner.run(new BufferedReader(new StringReader(script)));
+	}
+
+	@Test
+	public void testRunsLinesInOrder() throws IOException {
+		int status = run("echo one\n\necho two\n");
+
+		assertEquals(0, status);
+		assertEquals("one\n\ntwo\n\n", stdout.toString().replace("\r", ""));
+		assertArrayEquals(new int[] { 0, 0 }, runner.getStatusCodes());
+		assertArrayEquals(new int[] { 1, 3 }, runner.getLineNumbers());
+	}
+
+	@Test
+	public void testReportsFailedLines() throws IOException {
+		int status = run("echo one\nnosuchcmd a\necho two\n");
+
+		assertEquals(0, status);
+		assertArrayEquals(new int[] { 0, ScriptRunner.STATUS_NOT_FOUND, 0 },
+				runner.getStatusCodes());
+		assertTrue(stderr.toString().contains("Command not found: nosuchcmd"));
+
+		ByteArrayOutputStream report = new ByteArrayOutputStream();
+		runner.report(new PrintStream(report));
+
+		assertTrue(report.toString().contains("line 2: status " + ScriptRunner.STATUS_NOT_FOUND));
+		assertTrue(report.toString().contains("3 commands, 1 failed"));
+	}
+
+	@Test
+	public void testReturnsStatusOfLastLine() throws IOException {
+		assertEquals(ScriptRunner.STATUS_NOT_FOUND, run("echo one\nnosuchcmd\n"));
+	}
+
+	@Test
+	public void testCdAppliesToFollowingLines() throws IOException {
+		File parent = workingDir.getAbsoluteFile().getParentFile();
+
+		run("cd ..\npwd\n");
+
+		assertEquals(parent.getAbsolutePath(), runner.getWorkingDirectory().getAbsolutePath());
+		assertEquals(workingDir, Directory.get());
+		assertTrue(stdout.toString().contains(parent.getAbsolutePath()));
+	}
+
+	@Test
+	public void testRunsManyLines() throws IOException {
+		StringBuilder script = new StringBuilder();
+
+		for (int i = 0; i < 20000; i++) {
+			script.append("echo ").append(i).append('\n');
+		}
+
+		run(script.toString());
+
+		assertEquals(20000, runner.getStatusCodes().length);
+		assertTrue(stdout.toString().startsWith("0\n\n1\n\n"));
+		assertTrue(runner.getWallTime() > 0);
+	}
+}
@@ -0,0 +1,159 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ShellServerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	ShellServer server;
+	ShellClient client;
+	ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+	ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ShellServer(0, new File(folder.getRoot(), "token"));
+		server.start();
+		client = new ShellClient(server.getPort(), server.getTokenFile());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void testExecute() throws IOException {
+		assertEquals(0, client.execute("echo hello world", stdout, stderr));
+		assertTrue(stdout.toString().startsWith("hello world\n"));
+		assertEquals(0, stderr.size());
+	}
+
+	@Test
+	public void testCommandNotFound() throws IOException {
+		assertEquals(ScriptRunner.STATUS_NOT_FOUND, client.execute("nosuchcmd", stdout, stderr));
+		assertTrue(stderr.toString().contains("Command not found: nosuchcmd"));
+	}
+
+	@Test
+	public void testSessionsHaveOwnWorkingDirectory() throws IOException {
+		File parent = Directory.get().getAbsoluteFile().getParentFile();
+		ShellClient other = new ShellClient(server.getPort(), server.getTokenFile());
+
+		try {
+			assertEquals(0, client.execute("cd ..", stdout, stderr));
+			assertEquals(0, client.execute("pwd", stdout, stderr));
+			assertTrue(stdout.toString().contains(parent.getAbsolutePath()));
+
+			ByteArrayOutputStream otherOut = new ByteArrayOutputStream();
+			assertEquals(0, other.execute("pwd", otherOut, stderr));
+			assertTrue(otherOut.toString().contains(Directory.get().getAbsolutePath()));
+		} finally {
+			other.close();
+		}
+	}
+
+	@Test
+	public void testManyRequestsInOneSession() throws IOException {
+		for (int i = 0; i < 500; i++) {
+			stdout.reset();
+			assertEquals(0, client.execute("echo " + i, stdout, stderr));
+			assertTrue(stdout.toString().startsWith(i + "\n"));
+		}
+	}
+
+	@Test
+	public void testTokenFileOnlyForOwner() throws IOException {
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			assertEquals("rw-------", PosixFilePermissions.toString(
+					Files.getPosixFilePermissions(server.getTokenFile().toPath())));
+		}
+	}
+
+	private String readToken() throws IOException {
+		return new String(Files.readAllBytes(server.getTokenFile().toPath()), ATool.CHARSET);
+	}
+
+	/**
+	 * open a connection that sends a handshake of its own
+	 */
+	private Socket connect(String token) throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				socket.getOutputStream()));
+
+		ShellServer.writeString(out, token);
+		out.flush();
+
+		return socket;
+	}
+
+	@Test(timeout = 10000, expected = EOFException.class)
+	public void testWrongTokenClosesSession() throws IOException {
+		Socket socket = connect("not the token");
+
+		try {
+			// the session ends before any command is read; a command sent
+			// anyway would be unread, and could turn the close into a reset
+			new DataInputStream(socket.getInputStream()).readByte();
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testOversizedFrameClosesOnlyItsSession() throws IOException {
+		Socket socket = connect(readToken());
+
+		try {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(ShellServer.MAX_STRING_LENGTH + 1);
+			out.flush();
+
+			assertEquals(-1, socket.getInputStream().read());
+		} finally {
+			socket.close();
+		}
+
+		assertEquals(0, client.execute("echo still here", stdout, stderr));
+		assertTrue(stdout.toString().startsWith("still here"));
+	}
+
+	@Test(timeout = 10000)
+	public void testNegativeFrameLengthClosesSession() throws IOException {
+		Socket socket = connect(readToken());
+
+		try {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(-1);
+			out.flush();
+
+			assertEquals(-1, socket.getInputStream().read());
+		} finally {
+			socket.close();
+		}
+	}
+}
@@ -2,8 +2,15 @@ package sg.edu.nus.comp.cs4218.impl;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -12,6 +19,7 @@ import org.junit.Test;
 import sg.edu.nus.comp.cs4218.ITool;
 import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
 import sg.edu.nus.comp.cs4218.impl.extended1.PIPINGTool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.ECHOTool;
 
 public class ShellTest {
 	
@@ -116,4 +124,138 @@ public class ShellTest {
 		input.start();
 		assertEquals(null, input.get());
 	}
+	
+	@Test
+	public void testToolRunnablePostsFinishedEvent() throws InterruptedException {
+		BlockingQueue<ShellEvent> events = new LinkedBlockingQueue<ShellEvent>();
+		ToolRunnable runnable = new ToolRunnable(new ECHOTool(new String[] { "hi" }), "", events);
+		runnable.start();
+		
+		ShellEvent event = events.poll(5, TimeUnit.SECONDS);
+		assertNotNull(event);
+		assertEquals(ShellEvent.Type.FINISHED, event.getType());
+		assertSame(runnable, event.getRunnable());
+		assertTrue(runnable.isFinished());
+	}
+	
+	@Test
+	public void testInputRunnablePostsEvents() throws InterruptedException {
+		BlockingQueue<ShellEvent> events = new LinkedBlockingQueue<ShellEvent>();
+		InputRunnable input = new InputRunnable(
+				new ByteArrayInputStream("first\nCtrl-Z\nsecond\n".getBytes()), events);
+		input.start();
+		
+		List<ShellEvent.Type> types = new ArrayList<ShellEvent.Type>();
+		
+		while (types.isEmpty() || types.get(types.size() - 1) != ShellEvent.Type.END_OF_INPUT) {
+			types.add(events.poll(5, TimeUnit.SECONDS).getType());
+		}
+		
+		// one INPUT event for both lines, as nothing drained in between
+		assertEquals(Arrays.asList(ShellEvent.Type.INPUT, ShellEvent.Type.INTERRUPT,
+				ShellEvent.Type.END_OF_INPUT), types);
+		assertEquals("first", input.get());
+		assertEquals("second", input.get());
+		assertEquals(null, input.get());
+		assertTrue(input.isExhausted());
+	}
+	
+	@Test
+	public void testInputRunnableKeepsEveryLineInOrder() throws InterruptedException {
+		StringBuilder lines = new StringBuilder();
+		
+		for (int i = 0; i < 10000; i++) {
+			lines.append("echo ").append(i).append('\n');
+		}
+		
+		InputRunnable input = new InputRunnable(
+				new ByteArrayInputStream(lines.toString().getBytes()), null, 16);
+		input.start();
+		
+		List<String> batch = new ArrayList<String>();
+		
+		for (int i = 0; i < 10000; i++) {
+			if (batch.isEmpty()) {
+				batch.add(input.take());
+				input.drain(batch, 8);
+			}
+			
+			assertEquals("echo " + i, batch.remove(0));
+		}
+	}
+	
+	@Test
+	public void testInputRunnableBlocksWhenFull() throws InterruptedException {
+		InputRunnable input = new InputRunnable(
+				new ByteArrayInputStream("a\nb\nc\nd\n".getBytes()), null, 2);
+		input.start();
+		
+		List<String> batch = new ArrayList<String>();
+		long deadline = System.currentTimeMillis() + 5000;
+		
+		while (batch.size() < 2 && System.currentTimeMillis() < deadline) {
+			input.drain(batch, 2 - batch.size());
+			Thread.sleep(10);
+		}
+		
+		// the reader waits for free space instead of dropping lines
+		assertEquals(Arrays.asList("a", "b"), batch);
+		assertEquals("c", input.take());
+		assertEquals("d", input.take());
+	}
+	
+	/**
+	 * run the shell on some input, failing if it does not return in time
+	 */
+	private void runShell(String lines) throws InterruptedException {
+		final ByteArrayInputStream in = new ByteArrayInputStream(lines.getBytes());
+		Thread loop = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					shell.run(in);
+				} catch (InterruptedException e) {
+					// the test failed to finish in time
+				}
+			}
+		});
+		
+		loop.start();
+		loop.join(5000);
+		
+		boolean running = loop.isAlive();
+		loop.interrupt();
+		
+		assertFalse(running);
+	}
+	
+	@Test
+	public void testBackgroundJobs() throws InterruptedException {
+		runShell("echo first &\nwait %1\necho second\njobs\n");
+		
+		String out = outContent.toString();
+		assertTrue(out.contains("[1]"));
+		assertTrue(out.indexOf("[1] Done") < out.indexOf("second"));
+		assertTrue(out.contains("first"));
+		assertEquals(0, shell.getJobs().size());
+	}
+	
+	@Test
+	public void testJobControlErrors() throws InterruptedException {
+		runShell("fg\nkill %4\nwait %x\n");
+		
+		String err = errContent.toString();
+		assertTrue(err.contains("fg: no current job"));
+		assertTrue(err.contains("kill: %4: no such job"));
+		assertTrue(err.contains("wait: %x: no such job"));
+	}
+	
+	@Test
+	public void testRunReturnsAfterEndOfInput() throws InterruptedException {
+		runShell("echo hello\necho queued\n");
+		
+		// the second line arrives while the first one runs and is not lost
+		assertTrue(outContent.toString().contains("hello"));
+		assertTrue(outContent.toString().contains("queued"));
+	}
 }
@@ -0,0 +1,137 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ToolExecutorTest {
+
+	private ToolExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new ToolExecutor(Executors.newSingleThreadExecutor());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+		executor = null;
+	}
+
+	@Test
+	public void testDefaultExecutorRunsTasks() throws Exception {
+		final CountDownLatch ran = new CountDownLatch(1);
+
+		ToolExecutor.get().submit(new Runnable() {
+			@Override
+			public void run() {
+				ran.countDown();
+			}
+		}).get(5, TimeUnit.SECONDS);
+
+		assertEquals(0, ran.getCount());
+	}
+
+	@Test
+	public void testPlatformExecutorService() throws Exception {
+		ToolExecutor platform = new ToolExecutor(
+				ToolExecutor.createExecutorService(ToolExecutor.PLATFORM));
+
+		platform.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}).get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, platform.getStartedCount());
+		platform.shutdown();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownExecutorService() {
+		ToolExecutor.createExecutorService("green");
+	}
+
+	@Test
+	public void testActiveAndQueuedCounts() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		Future<?> first = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Future<?> second = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+
+		started.await(5, TimeUnit.SECONDS);
+
+		assertEquals(1, executor.getActiveCount());
+		assertEquals(1, executor.getQueueDepth());
+
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+
+		// the count drops right after the future completes
+		for (int i = 0; i < 100 && executor.getActiveCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(0, executor.getActiveCount());
+		assertEquals(0, executor.getQueueDepth());
+		assertEquals(2, executor.getStartedCount());
+		assertTrue(executor.getMeanTimeToStart() > 0);
+	}
+
+	@Test
+	public void testCancelledBeforeStartLeavesQueue() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		Future<?> blocker = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Future<?> waiting = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+
+		started.await(5, TimeUnit.SECONDS);
+		waiting.cancel(false);
+		assertEquals(0, executor.getQueueDepth());
+
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, executor.getStartedCount());
+	}
+}
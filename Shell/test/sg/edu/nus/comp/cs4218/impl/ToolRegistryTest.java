@@ -0,0 +1,71 @@
+package sg.edu.nus.comp.cs4218.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.ITool;
+import sg.edu.nus.comp.cs4218.IToolFactory;
+import sg.edu.nus.comp.cs4218.impl.extended1.PIPINGTool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.ECHOTool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.PWDTool;
+
+public class ToolRegistryTest {
+
+	/**
+	 * found through META-INF/services in the test folder
+	 */
+	public static class HelloFactory implements IToolFactory {
+		@Override
+		public String getName() {
+			return "hello";
+		}
+
+		@Override
+		public ITool create(String[] args) {
+			return new ECHOTool(new String[] { "hello" });
+		}
+	}
+
+	@Test
+	public void testBuiltins() {
+		ToolRegistry registry = ToolRegistry.get();
+
+		assertEquals(ECHOTool.class, registry.create("echo", new String[] { "a" }).getClass());
+		assertEquals(ECHOTool.class, registry.create("ECHO", null).getClass());
+		assertEquals(PIPINGTool.class, registry.create("pipe", null).getClass());
+		// PWDTool has no constructor taking arguments
+		assertEquals(PWDTool.class, registry.create("pwd", new String[0]).getClass());
+	}
+
+	@Test
+	public void testArgumentsArePassed() {
+		ITool echo = ToolRegistry.get().create("echo", new String[] { "a", "b" });
+
+		assertEquals("a b\n", echo.execute(new File("."), ""));
+	}
+
+	@Test
+	public void testUnknownCommand() {
+		assertNull(ToolRegistry.get().create("nosuchcmd", null));
+	}
+
+	@Test
+	public void testServiceLoaderFactory() {
+		ITool hello = ToolRegistry.get().create("Hello", null);
+
+		assertEquals("hello\n", hello.execute(new File("."), ""));
+	}
+
+	@Test
+	public void testRegisterFactory() {
+		ToolRegistry registry = new ToolRegistry();
+		registry.register("say", ECHOTool.class.getName());
+
+		assertEquals(ECHOTool.class, registry.create("say", null).getClass());
+		assertNull(registry.create("echo", null));
+	}
+}
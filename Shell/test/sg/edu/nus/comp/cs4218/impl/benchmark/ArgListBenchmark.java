@@ -0,0 +1,128 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.util.ArrayList;
+
+import sg.edu.nus.comp.cs4218.impl.ArgList;
+
+/**
+ * Compares ArgList with {@link LegacyArgList} on short command lines, quoted
+ * command lines and long lists of file names. Every case is warmed up, then
+ * timed over several rounds; the best round is reported in ns per operation.
+ * 
+ * ArgListBenchmark [rounds]
+ */
+public class ArgListBenchmark {
+
+	private static final long ROUND_NANOS = 200 * 1000 * 1000L;
+
+	/**
+	 * one measured operation
+	 */
+	private interface Case {
+		void run();
+	}
+
+	private static volatile Object sink;
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+		final String shortLine = "grep -i -c pattern file.txt";
+		final String quotedLine = "echo \"a b c\" 'd \\' e' f\\ g \"h\\\"i\" | grep -v x";
+		StringBuilder files = new StringBuilder("cat");
+		final String[] fileArgs = new String[2000];
+
+		for (int i = 0; i < fileArgs.length; i++) {
+			fileArgs[i] = "dir/file" + i + ".txt";
+			files.append(' ').append(fileArgs[i]);
+		}
+
+		final String longLine = files.toString();
+		final String[] optionArgs = new String[fileArgs.length + 2];
+		optionArgs[0] = "-i";
+		optionArgs[1] = "-c";
+		System.arraycopy(fileArgs, 0, optionArgs, 2, fileArgs.length);
+
+		compare("split short", rounds, new Case() {
+			public void run() {
+				sink = LegacyArgList.split(shortLine, new ArrayList<String>());
+			}
+		}, new Case() {
+			public void run() {
+				sink = ArgList.split(shortLine, new ArrayList<String>());
+			}
+		});
+
+		compare("split quoted", rounds, new Case() {
+			public void run() {
+				sink = LegacyArgList.split(quotedLine, new ArrayList<String>());
+			}
+		}, new Case() {
+			public void run() {
+				sink = ArgList.split(quotedLine, new ArrayList<String>());
+			}
+		});
+
+		compare("split 2000 files", rounds, new Case() {
+			public void run() {
+				sink = LegacyArgList.split(longLine, new ArrayList<String>());
+			}
+		}, new Case() {
+			public void run() {
+				sink = ArgList.split(longLine, new ArrayList<String>());
+			}
+		});
+
+		compare("parseArgs 2000 files", rounds, new Case() {
+			public void run() {
+				LegacyArgList list = new LegacyArgList();
+				list.registerAcceptableOption("i", "ignore case");
+				list.registerAcceptableOption("c", "count");
+				list.parseArgs(optionArgs);
+				sink = list;
+			}
+		}, new Case() {
+			public void run() {
+				ArgList list = new ArgList();
+				list.registerAcceptableOption("i", "ignore case");
+				list.registerAcceptableOption("c", "count");
+				list.parseArgs(optionArgs);
+				sink = list;
+			}
+		});
+	}
+
+	private static void compare(String name, int rounds, Case legacy, Case current) {
+		double before = measure(legacy, rounds);
+		double after = measure(current, rounds);
+
+		System.out.println(String.format("%-22s legacy %12.0f ns/op   new %12.0f ns/op   x%.1f",
+				name, before, after, before / after));
+	}
+
+	/**
+	 * @return best time of one operation over the rounds, in nanoseconds
+	 */
+	private static double measure(Case c, int rounds) {
+		double best = Double.MAX_VALUE;
+
+		// the first round warms up
+		for (int round = 0; round <= rounds; round++) {
+			long count = 0;
+			long start = System.nanoTime();
+			long elapsed;
+
+			do {
+				c.run();
+				count++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < ROUND_NANOS);
+
+			if (round > 0) {
+				best = Math.min(best, (double) elapsed / count);
+			}
+		}
+
+		return best;
+	}
+}
@@ -0,0 +1,519 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+
+/**
+ * Generates realistic text inputs for benchmarks and tests. The same seed
+ * and settings always give the same bytes, so results can be reproduced
+ * and compared between runs.
+ *
+ * Lines are encoded straight into a 1 MB buffer that is written to a file
+ * channel when full, so files of several GB take seconds. The shapes are
+ * log lines, CSV rows, and unsorted or sorted word lists. Any shape can
+ * repeat the previous line with a given ratio, as duplicates for uniq, and
+ * mix non-ASCII words of 2, 3 and 4 UTF-8 bytes into its text.
+ *
+ * DataGenerator SHAPE SIZE FILE [SEED]
+ * SHAPE - log, csv, words or sorted
+ * SIZE - number of bytes, with an optional k, m or g suffix
+ */
+public class DataGenerator {
+
+	/**
+	 * the kind of line generated
+	 */
+	public enum Shape {
+		/** "2024-03-01T12:00:07.153 WARN [worker-3] words... id=9123" */
+		LOG,
+		/** an increasing id followed by word, integer and decimal columns */
+		CSV,
+		/** a few words from a skewed vocabulary */
+		WORDS,
+		/** lines in increasing String order, each a unique key and words */
+		SORTED_WORDS
+	}
+
+	public static final long DEFAULT_SEED = 4218;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+	private static final int VOCABULARY_SIZE = 4096;
+	private static final int SORTED_KEY_LENGTH = 8;
+	private static final String[] LEVELS = { "DEBUG", "INFO", "INFO", "INFO",
+			"WARN", "ERROR" };
+	/* characters of 2, 3 and 4 UTF-8 bytes */
+	private static final String[] UNICODE_ALPHABETS = {
+			"\u00e0\u00e9\u00ee\u00f5\u00fc\u00e7\u00f1\u00df",
+			"\u03b1\u03b2\u03b3\u03b4\u03b5\u03b6\u03b7\u03b8",
+			"\u4e2d\u6587\u65e5\u672c\u8a9e\ud55c\uad6d\uc5b4",
+			"\ud83d\ude00\ud83d\ude80\ud83c\udf89\ud83d\udc4d" };
+
+	private final long seed;
+	private int columns = 5;
+	private double duplicateRatio = 0;
+	private double unicodeRatio = 0;
+
+	private long state;
+	private byte[][] vocabulary;
+	private byte[][] unicodeWords;
+	private long clock;
+	private long counter;
+
+	private byte[] line = new byte[256];
+	private int length;
+	private byte[] previous = new byte[256];
+	private int previousLength = -1;
+
+	/**
+	 * initialize a generator
+	 *
+	 * @param seed the same seed gives the same data
+	 */
+	public DataGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param columns number of CSV columns, at least 1
+	 * @return this generator
+	 */
+	public DataGenerator setColumns(int columns) {
+		if (columns < 1) {
+			throw new IllegalArgumentException("Error: Invalid number of columns " + columns);
+		}
+
+		this.columns = columns;
+		return this;
+	}
+
+	/**
+	 * @param ratio fraction of the lines that repeat the line before them
+	 * @return this generator
+	 */
+	public DataGenerator setDuplicateRatio(double ratio) {
+		this.duplicateRatio = checkRatio(ratio);
+		return this;
+	}
+
+	/**
+	 * @param ratio fraction of the words that have non-ASCII characters
+	 * @return this generator
+	 */
+	public DataGenerator setUnicodeRatio(double ratio) {
+		this.unicodeRatio = checkRatio(ratio);
+		return this;
+	}
+
+	/**
+	 * write whole lines to a file until it has at least size bytes
+	 *
+	 * @param shape
+	 * @param file created or truncated
+	 * @param size number of bytes
+	 *
+	 * @return number of lines written
+	 * @throws IOException when the file cannot be written
+	 */
+	public long generate(Shape shape, File file, long size) throws IOException {
+		FileOutputStream output = new FileOutputStream(file);
+
+		try {
+			FileChannel channel = output.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long written = 0;
+			long lines = 0;
+
+			reset();
+
+			while (written < size) {
+				nextLine(shape);
+
+				if (length > buffer.remaining()) {
+					writeFully(channel, buffer);
+				}
+
+				if (length > buffer.capacity()) {
+					writeFully(channel, ByteBuffer.wrap(line, 0, length));
+				} else {
+					buffer.put(line, 0, length);
+				}
+
+				written += length;
+				lines++;
+			}
+
+			writeFully(channel, buffer);
+
+			return lines;
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * write a number of lines to a stream
+	 *
+	 * @param shape
+	 * @param lines
+	 * @param output not closed
+	 *
+	 * @throws IOException when the stream cannot be written
+	 */
+	public void generate(Shape shape, long lines, OutputStream output) throws IOException {
+		reset();
+
+		for (long i = 0; i < lines; i++) {
+			nextLine(shape);
+			output.write(line, 0, length);
+		}
+	}
+
+	/**
+	 * generate a number of lines in memory, e.g. as the stdin of a test
+	 *
+	 * @param shape
+	 * @param lines
+	 *
+	 * @return the lines, each ending with "\n"
+	 */
+	public String generate(Shape shape, int lines) {
+		StringBuilder text = new StringBuilder();
+
+		reset();
+
+		for (int i = 0; i < lines; i++) {
+			nextLine(shape);
+			text.append(new String(line, 0, length, ATool.CHARSET));
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * start over, so every call of generate gives the same data
+	 */
+	private void reset() {
+		state = seed ^ 0x9E3779B97F4A7C15L;
+		// 2024-03-01T00:00:00Z
+		clock = 1709251200000L;
+		counter = 0;
+		previousLength = -1;
+
+		if (vocabulary == null) {
+			vocabulary = new byte[VOCABULARY_SIZE][];
+
+			for (int i = 0; i < VOCABULARY_SIZE; i++) {
+				char[] word = new char[2 + nextInt(9)];
+
+				for (int j = 0; j < word.length; j++) {
+					word[j] = (char) ('a' + nextInt(26));
+				}
+
+				vocabulary[i] = new String(word).getBytes(ATool.CHARSET);
+			}
+
+			unicodeWords = new byte[VOCABULARY_SIZE / 4][];
+
+			for (int i = 0; i < unicodeWords.length; i++) {
+				String alphabet = UNICODE_ALPHABETS[i % UNICODE_ALPHABETS.length];
+				StringBuilder word = new StringBuilder();
+				int count = 1 + nextInt(5);
+
+				for (int j = 0; j < count; j++) {
+					// code points, as the 4 byte alphabet is in surrogate pairs
+					int index = alphabet.offsetByCodePoints(0,
+							nextInt(alphabet.codePointCount(0, alphabet.length())));
+					word.appendCodePoint(alphabet.codePointAt(index));
+
+					if (nextInt(2) == 0) {
+						word.append((char) ('a' + nextInt(26)));
+					}
+				}
+
+				unicodeWords[i] = word.toString().getBytes(ATool.CHARSET);
+			}
+
+			// the vocabulary is made once per generator, from the seed
+			state = seed ^ 0x9E3779B97F4A7C15L;
+		}
+	}
+
+	/**
+	 * make the next line in line[0, length), with its "\n"
+	 */
+	private void nextLine(Shape shape) {
+		if (previousLength >= 0 && nextDouble() < duplicateRatio) {
+			length = 0;
+			append(previous, previousLength);
+		} else {
+			length = 0;
+
+			switch (shape) {
+			case LOG:
+				logLine();
+				break;
+			case CSV:
+				csvLine();
+				break;
+			case WORDS:
+				words(3 + nextInt(8));
+				break;
+			default:
+				sortedLine();
+				break;
+			}
+
+			counter++;
+		}
+
+		if (previous.length < length) {
+			previous = new byte[line.length];
+		}
+
+		System.arraycopy(line, 0, previous, 0, length);
+		previousLength = length;
+
+		append((byte) '\n');
+	}
+
+	private void logLine() {
+		clock += nextInt(250);
+
+		appendTimestamp(clock);
+		append((byte) ' ');
+		append(LEVELS[nextInt(LEVELS.length)]);
+		append(" [worker-");
+		appendNumber(nextInt(16), 1);
+		append("] ");
+		words(4 + nextInt(10));
+		append(" id=");
+		appendNumber(nextInt(100000), 1);
+	}
+
+	private void csvLine() {
+		appendNumber(counter + 1, 1);
+
+		for (int i = 1; i < columns; i++) {
+			append((byte) ',');
+
+			switch (i % 3) {
+			case 1:
+				word();
+				break;
+			case 2:
+				appendNumber(nextInt(1000000), 1);
+				break;
+			default:
+				appendNumber(nextInt(100000), 1);
+				append((byte) '.');
+				appendNumber(nextInt(100), 2);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * a key of fixed width from a strictly increasing number keeps the lines
+	 * in order whatever follows it
+	 */
+	private void sortedLine() {
+		long key = counter * 7 + nextInt(7);
+		int start = length;
+
+		ensure(SORTED_KEY_LENGTH);
+
+		for (int i = SORTED_KEY_LENGTH - 1; i >= 0; i--) {
+			line[start + i] = (byte) ('a' + key % 26);
+			key /= 26;
+		}
+
+		length += SORTED_KEY_LENGTH;
+		append((byte) ' ');
+		words(1 + nextInt(5));
+	}
+
+	private void words(int count) {
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				append((byte) ' ');
+			}
+
+			word();
+		}
+	}
+
+	private void word() {
+		if (unicodeRatio > 0 && nextDouble() < unicodeRatio) {
+			byte[] word = unicodeWords[nextInt(unicodeWords.length)];
+			append(word, word.length);
+		} else {
+			// skewed towards the front of the vocabulary, like real text
+			double r = nextDouble();
+			byte[] word = vocabulary[(int) (r * r * VOCABULARY_SIZE)];
+			append(word, word.length);
+		}
+	}
+
+	/**
+	 * write yyyy-MM-ddTHH:mm:ss.SSS of a UTC time
+	 */
+	private void appendTimestamp(long millis) {
+		long days = millis / 86400000L;
+		long ofDay = millis % 86400000L;
+
+		// civil date from days since 1970-01-01
+		long z = days + 719468;
+		long era = z / 146097;
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				- dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		long month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		appendNumber(year, 4);
+		append((byte) '-');
+		appendNumber(month, 2);
+		append((byte) '-');
+		appendNumber(day, 2);
+		append((byte) 'T');
+		appendNumber(ofDay / 3600000, 2);
+		append((byte) ':');
+		appendNumber(ofDay / 60000 % 60, 2);
+		append((byte) ':');
+		appendNumber(ofDay / 1000 % 60, 2);
+		append((byte) '.');
+		appendNumber(ofDay % 1000, 3);
+	}
+
+	private void appendNumber(long value, int width) {
+		int digits = 1;
+
+		for (long v = value / 10; v > 0; v /= 10) {
+			digits++;
+		}
+
+		digits = Math.max(digits, width);
+		ensure(digits);
+
+		for (int i = digits - 1; i >= 0; i--) {
+			line[length + i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+
+		length += digits;
+	}
+
+	private void append(String ascii) {
+		ensure(ascii.length());
+
+		for (int i = 0; i < ascii.length(); i++) {
+			line[length++] = (byte) ascii.charAt(i);
+		}
+	}
+
+	private void append(byte[] bytes, int count) {
+		ensure(count);
+		System.arraycopy(bytes, 0, line, length, count);
+		length += count;
+	}
+
+	private void append(byte b) {
+		ensure(1);
+		line[length++] = b;
+	}
+
+	private void ensure(int count) {
+		if (length + count > line.length) {
+			line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+		}
+	}
+
+	/**
+	 * xorshift64*, faster than java.util.Random and the same everywhere
+	 */
+	private long nextLong() {
+		state ^= state >>> 12;
+		state ^= state << 25;
+		state ^= state >>> 27;
+		return state * 0x2545F4914F6CDD1DL;
+	}
+
+	private int nextInt(int bound) {
+		return (int) ((nextLong() >>> 33) % bound);
+	}
+
+	private double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	private static double checkRatio(double ratio) {
+		if (ratio < 0 || ratio > 1) {
+			throw new IllegalArgumentException("Error: Invalid ratio " + ratio);
+		}
+
+		return ratio;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+	/**
+	 * parse a size such as 512k, 100m or 2g
+	 */
+	static long parseSize(String size) {
+		String value = size.trim().toLowerCase();
+		long unit = 1;
+
+		if (value.endsWith("k")) {
+			unit = 1024;
+		} else if (value.endsWith("m")) {
+			unit = 1024 * 1024;
+		} else if (value.endsWith("g")) {
+			unit = 1024L * 1024 * 1024;
+		}
+
+		if (unit > 1) {
+			value = value.substring(0, value.length() - 1);
+		}
+
+		return Long.parseLong(value) * unit;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("DataGenerator SHAPE SIZE FILE [SEED]");
+			System.out.println("SHAPE - log, csv, words or sorted");
+			return;
+		}
+
+		String name = args[0].toUpperCase();
+		Shape shape = name.equals("SORTED") ? Shape.SORTED_WORDS : Shape.valueOf(name);
+		long size = parseSize(args[1]);
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+		long start = System.nanoTime();
+		long lines = new DataGenerator(seed).generate(shape, new File(args[2]), size);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%d lines, %.1f MB in %.2f s (%.0f MB/s)",
+				lines, size / 1e6, seconds, size / 1e6 / seconds));
+	}
+}
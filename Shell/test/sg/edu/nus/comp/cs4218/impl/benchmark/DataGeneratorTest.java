@@ -0,0 +1,128 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+
+public class DataGeneratorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSameSeedSameData() {
+		for (Shape shape : Shape.values()) {
+			String first = new DataGenerator(1).setUnicodeRatio(0.2).generate(shape, 500);
+			String second = new DataGenerator(1).setUnicodeRatio(0.2).generate(shape, 500);
+			String other = new DataGenerator(2).setUnicodeRatio(0.2).generate(shape, 500);
+
+			assertEquals(first, second);
+			assertNotEquals(first, other);
+		}
+	}
+
+	@Test
+	public void testGeneratorCanBeReused() {
+		DataGenerator generator = new DataGenerator(7);
+
+		assertEquals(generator.generate(Shape.LOG, 100), generator.generate(Shape.LOG, 100));
+	}
+
+	@Test
+	public void testFileHasWholeLinesAndMatchesStream() throws IOException {
+		File file = folder.newFile("data.csv");
+		DataGenerator generator = new DataGenerator(3).setColumns(4);
+
+		long lines = generator.generate(Shape.CSV, file, 3 * 1024 * 1024);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		generator.generate(Shape.CSV, lines, expected);
+
+		assertTrue(file.length() >= 3 * 1024 * 1024);
+		assertTrue(file.length() < 3 * 1024 * 1024 + 1024);
+		assertArrayEquals(expected.toByteArray(),
+				Files.readAllBytes(file.toPath()));
+
+		String[] rows = FileUtils.readFileLines(file);
+
+		assertEquals(lines, rows.length);
+		assertEquals(4, rows[0].split(",").length);
+		assertTrue(rows[0].startsWith("1,"));
+		assertTrue(rows[rows.length - 1].startsWith(lines + ","));
+	}
+
+	@Test
+	public void testSortedWordsAreSorted() {
+		String[] lines = new DataGenerator(5).setDuplicateRatio(0.3)
+				.setUnicodeRatio(0.3).generate(Shape.SORTED_WORDS, 2000).split("\n");
+
+		for (int i = 1; i < lines.length; i++) {
+			assertTrue(lines[i - 1] + " > " + lines[i], lines[i - 1].compareTo(lines[i]) <= 0);
+		}
+	}
+
+	@Test
+	public void testDuplicateRatio() {
+		String[] lines = new DataGenerator(11).setDuplicateRatio(0.25)
+				.generate(Shape.WORDS, 10000).split("\n");
+		int duplicates = 0;
+
+		for (int i = 1; i < lines.length; i++) {
+			if (lines[i].equals(lines[i - 1])) {
+				duplicates++;
+			}
+		}
+
+		assertEquals(0.25, (double) duplicates / lines.length, 0.03);
+	}
+
+	@Test
+	public void testUnicodeRatio() {
+		String ascii = new DataGenerator(13).generate(Shape.LOG, 1000);
+		String mixed = new DataGenerator(13).setUnicodeRatio(0.5).generate(Shape.LOG, 1000);
+
+		assertFalse(hasNonAscii(ascii));
+		assertTrue(hasNonAscii(mixed));
+		// surrogate pairs survive the round trip through UTF-8
+		assertEquals(mixed, new String(mixed.getBytes(ATool.CHARSET), ATool.CHARSET));
+	}
+
+	@Test
+	public void testLogLines() {
+		String[] lines = new DataGenerator(17).generate(Shape.LOG, 50).split("\n");
+
+		assertTrue(lines[0], lines[0].matches(
+				"2024-03-01T00:00:00\\.\\d{3} [A-Z]+ \\[worker-\\d+\\] .* id=\\d+"));
+	}
+
+	@Test
+	public void testParseSize() {
+		assertEquals(512, DataGenerator.parseSize("512"));
+		assertEquals(2048, DataGenerator.parseSize("2k"));
+		assertEquals(3L * 1024 * 1024 * 1024, DataGenerator.parseSize("3G"));
+	}
+
+	private static boolean hasNonAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > 127) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,83 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+import sg.edu.nus.comp.cs4218.impl.FileComparison;
+
+/**
+ * Compares two identical files byte by byte through BufferedInputStream, the
+ * way FileUtils.diffTwoFiles used to, and with {@link FileComparison}, serial
+ * and in parallel regions.
+ * 
+ * FileComparisonBenchmark [megabytes]
+ */
+public class FileComparisonBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+		File first = createFile(megabytes);
+		File second = createFile(megabytes);
+
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			byteByByte(first, second);
+			report("byte by byte", start, megabytes);
+
+			start = System.nanoTime();
+			FileComparison.findFirstDifference(first, second, false, CancellationToken.NONE);
+			report("bulk", start, megabytes);
+
+			start = System.nanoTime();
+			FileComparison.findFirstDifference(first, second, true, CancellationToken.NONE);
+			report("bulk parallel", start, megabytes);
+		}
+	}
+
+	private static File createFile(int megabytes) throws IOException {
+		File file = File.createTempFile("cmp", ".bin");
+		file.deleteOnExit();
+
+		byte[] block = new byte[1024 * 1024];
+		new Random(42).nextBytes(block);
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+		for (int i = 0; i < megabytes; i++) {
+			raf.write(block);
+		}
+
+		raf.close();
+
+		return file;
+	}
+
+	private static boolean byteByByte(File first, File second) throws IOException {
+		BufferedInputStream a = new BufferedInputStream(new FileInputStream(first));
+		BufferedInputStream b = new BufferedInputStream(new FileInputStream(second));
+		boolean same = true;
+		int read;
+
+		do {
+			read = a.read();
+			same &= read == b.read();
+		} while (read != -1);
+
+		a.close();
+		b.close();
+
+		return same;
+	}
+
+	private static void report(String name, long start, int megabytes) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%-14s %8.1f ms %8.1f MB/s", name,
+				seconds * 1e3, megabytes / seconds));
+	}
+}
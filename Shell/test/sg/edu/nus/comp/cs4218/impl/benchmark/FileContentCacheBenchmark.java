@@ -0,0 +1,61 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import sg.edu.nus.comp.cs4218.impl.FileContentCache;
+import sg.edu.nus.comp.cs4218.impl.extended2.WCTool;
+
+/**
+ * Measures repeated reads of one hot file, through a disabled and through an
+ * enabled {@link FileContentCache}, and a whole "wc -l" on the file through
+ * the shared cache.
+ * 
+ * FileContentCacheBenchmark [lines]
+ */
+public class FileContentCacheBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		File file = File.createTempFile("hot", ".txt");
+		file.deleteOnExit();
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+
+		for (int i = 0; i < lines; i++) {
+			writer.write("line " + i + " of the hot file\n");
+		}
+
+		writer.close();
+
+		for (int round = 0; round < 3; round++) {
+			measure("uncached read", new FileContentCache(0), file);
+			measure("cached read", new FileContentCache(FileContentCache.DEFAULT_SIZE), file);
+
+			long start = System.nanoTime();
+			int runs = 50;
+
+			for (int i = 0; i < runs; i++) {
+				new WCTool(new String[] { "-l", file.getPath() }).execute(file.getParentFile(), "");
+			}
+
+			System.out.println(String.format("%-14s %10.1f us/op   %s", "wc -l",
+					(System.nanoTime() - start) / 1e3 / runs, FileContentCache.get()));
+		}
+	}
+
+	private static void measure(String name, FileContentCache cache, File file)
+			throws IOException {
+		int runs = 200;
+		long start = System.nanoTime();
+
+		for (int i = 0; i < runs; i++) {
+			cache.getContent(file);
+		}
+
+		System.out.println(String.format("%-14s %10.1f us/op", name,
+				(System.nanoTime() - start) / 1e3 / runs));
+	}
+}
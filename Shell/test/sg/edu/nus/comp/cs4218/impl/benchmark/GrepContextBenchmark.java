@@ -0,0 +1,100 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep with context and with combined options over a generated log in
+ * one thread, and prints the throughput and the bytes allocated per line
+ * read.
+ *
+ * GrepContextBenchmark [megabytes]
+ */
+public class GrepContextBenchmark {
+
+	private static final String[][] COMMANDS = {
+		{ "-B", "5", "id=1234" },
+		{ "-C", "5", "id=1234" },
+		{ "-A", "2", "-B", "20", "id=1234" },
+		{ "-v", "-c", "INFO" },
+		{ "-v", "-C", "2", "worker" },
+	};
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+		File file = File.createTempFile("grep", ".log");
+		file.deleteOnExit();
+
+		long lines = new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, file,
+				megabytes * 1024L * 1024);
+
+		System.setProperty(GREPTool.THREADS_PROPERTY, "1");
+
+		for (int round = 0; round < 3; round++) {
+			for (String[] command : COMMANDS) {
+				measure(command, file, megabytes, lines);
+			}
+		}
+	}
+
+	private static void measure(String[] command, File file, int megabytes, long lines)
+			throws IOException {
+		String[] args = new String[command.length + 1];
+
+		System.arraycopy(command, 0, args, 0, command.length);
+		args[command.length] = file.getPath();
+
+		CountingStream out = new CountingStream();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+
+		new GREPTool(args).execute(file.getParentFile(), null, out, out);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		allocated = allocatedBytes() - allocated;
+
+		System.out.println(String.format("%-24s %8.1f ms %8.1f MB/s %8.1f B/line  %d bytes out",
+				join(command), seconds * 1e3, megabytes / seconds,
+				(double) allocated / lines, out.count));
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return 0;
+	}
+
+	private static String join(String[] words) {
+		StringBuilder joined = new StringBuilder();
+
+		for (String word : words) {
+			joined.append(joined.length() == 0 ? "" : " ").append(word);
+		}
+
+		return joined.toString();
+	}
+
+	private static class CountingStream extends OutputStream {
+		private long count = 0;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep over a generated log for a pattern found in its first lines,
+ * once counting every match and once with -q, -l and -m 1, which stop at the
+ * first one, and prints how long each takes.
+ *
+ * GrepEarlyExitBenchmark [megabytes]
+ */
+public class GrepEarlyExitBenchmark {
+
+	private static final String PATTERN = "ERROR";
+
+	private static final String[][] COMMANDS = {
+		{ "-c", PATTERN },
+		{ "-q", PATTERN },
+		{ "-l", PATTERN },
+		{ "-m", "1", PATTERN },
+		{ "-q", "-v", PATTERN },
+	};
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+		File file = File.createTempFile("grep", ".log");
+		file.deleteOnExit();
+
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, file,
+				megabytes * 1024L * 1024);
+
+		System.setProperty(GREPTool.THREADS_PROPERTY, "1");
+
+		for (int round = 0; round < 3; round++) {
+			for (String[] command : COMMANDS) {
+				measure(command, file);
+			}
+		}
+	}
+
+	private static void measure(String[] command, File file) throws IOException {
+		String[] args = new String[command.length + 1];
+
+		System.arraycopy(command, 0, args, 0, command.length);
+		args[command.length] = file.getPath();
+
+		GREPTool grep = new GREPTool(args);
+		long start = System.nanoTime();
+
+		grep.execute(file.getParentFile(), null, new NullStream(), new NullStream());
+
+		System.out.println(String.format("%-16s %10.2f ms  status %d", join(command),
+				(System.nanoTime() - start) / 1e6, grep.getStatusCode()));
+	}
+
+	private static String join(String[] words) {
+		StringBuilder joined = new StringBuilder();
+
+		for (String word : words) {
+			joined.append(joined.length() == 0 ? "" : " ").append(word);
+		}
+
+		return joined.toString();
+	}
+
+	private static class NullStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep over a generated log with plain string patterns, once as they
+ * are, taking the literal fast path, and once wrapped in a group, which
+ * makes them regular expressions matched on every line.
+ * 
+ * GrepLiteralBenchmark [megabytes]
+ */
+public class GrepLiteralBenchmark {
+
+	private static final String[] PATTERNS = { "id=12345", "ERROR", "worker-3]" };
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+		File file = File.createTempFile("grep", ".log");
+		file.deleteOnExit();
+
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, file,
+				megabytes * 1024L * 1024);
+
+		for (int round = 0; round < 3; round++) {
+			for (String pattern : PATTERNS) {
+				// none of the patterns has a character special in a group
+				String regex = "(?:" + pattern + ")";
+
+				measure(pattern, "regex", regex, file, megabytes);
+				measure(pattern, "literal", pattern, file, megabytes);
+			}
+		}
+	}
+
+	private static void measure(String name, String kind, String pattern, File file,
+			int megabytes) throws IOException {
+		CountingStream out = new CountingStream();
+		long start = System.nanoTime();
+
+		new GREPTool(new String[] { pattern, file.getPath() }).execute(
+				file.getParentFile(), null, out, out);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%-10s %-8s %8.1f ms %8.1f MB/s  %d bytes out",
+				name, kind, seconds * 1e3, megabytes / seconds, out.count));
+	}
+
+	private static class CountingStream extends OutputStream {
+		private long count = 0;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
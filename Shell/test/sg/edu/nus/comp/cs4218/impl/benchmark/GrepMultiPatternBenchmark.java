@@ -0,0 +1,96 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep -f over a generated log with growing lists of IDs, once as plain
+ * strings, searched for with one Aho-Corasick automaton, and once wrapped in
+ * groups, which makes them one regular expression of alternatives tried at
+ * every position of every line. The regular expression is no longer run
+ * once it takes more than {@link #REGEX_LIMIT_SECONDS}.
+ *
+ * GrepMultiPatternBenchmark [megabytes]
+ */
+public class GrepMultiPatternBenchmark {
+
+	private static final int[] COUNTS = { 1, 10, 100, 1000, 5000 };
+	private static final double REGEX_LIMIT_SECONDS = 10;
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		File file = File.createTempFile("grep", ".log");
+		file.deleteOnExit();
+
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, file,
+				megabytes * 1024L * 1024);
+
+		boolean regex = true;
+
+		for (int count : COUNTS) {
+			StringBuilder literals = new StringBuilder();
+			StringBuilder groups = new StringBuilder();
+			Random random = new Random(count);
+
+			for (int i = 0; i < count; i++) {
+				String id = "id=" + (10000 + random.nextInt(90000));
+
+				literals.append(id).append('\n');
+				groups.append("(?:").append(id).append(")\n");
+			}
+
+			File literalFile = File.createTempFile("literals", ".txt");
+			File groupFile = File.createTempFile("groups", ".txt");
+			literalFile.deleteOnExit();
+			groupFile.deleteOnExit();
+
+			FileUtils.createDummyFile(literalFile, literals.toString());
+			FileUtils.createDummyFile(groupFile, groups.toString());
+
+			if (regex) {
+				regex = measure(count, "regex", groupFile, file, megabytes)
+						< REGEX_LIMIT_SECONDS;
+			}
+
+			measure(count, "literal", literalFile, file, megabytes);
+		}
+	}
+
+	private static double measure(int count, String kind, File patterns, File file,
+			int megabytes) throws IOException {
+		CapturedStream out = new CapturedStream();
+		long start = System.nanoTime();
+
+		new GREPTool(new String[] { "-c", "-f", patterns.getPath(), file.getPath() })
+				.execute(file.getParentFile(), null, out, out);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("%5d ids %-8s %10.1f ms %8.1f MB/s  %s lines",
+				count, kind, seconds * 1e3, megabytes / seconds, out.text));
+
+		return seconds;
+	}
+
+	private static class CapturedStream extends OutputStream {
+		private StringBuilder text = new StringBuilder();
+
+		@Override
+		public void write(int b) {
+			text.append((char) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep -r over a generated tree of small source-like files with 1, 2,
+ * 4... up to the number of processors searching files at the same time, and
+ * prints the files searched per second and the speedup over one thread.
+ *
+ * GrepRecursiveBenchmark [files] [max threads]
+ */
+public class GrepRecursiveBenchmark {
+
+	private static final int FILES_PER_DIRECTORY = 50;
+	private static final long FILE_SIZE = 8 * 1024;
+
+	public static void main(String[] args) throws IOException {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+				: Runtime.getRuntime().availableProcessors();
+		File root = createTree(files);
+
+		try {
+			double single = 0;
+
+			for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+				System.setProperty(GREPTool.THREADS_PROPERTY, String.valueOf(threads));
+
+				// the first run warms the page cache and the compiler
+				measure(root);
+				double seconds = measure(root);
+
+				if (threads == 1) {
+					single = seconds;
+				}
+
+				System.out.println(String.format("%3d threads %8.1f ms %10.0f files/s %5.2fx",
+						threads, seconds * 1e3, files / seconds, single / seconds));
+
+				if (threads == maxThreads) {
+					break;
+				}
+			}
+		} finally {
+			delete(root);
+		}
+	}
+
+	private static File createTree(int files) throws IOException {
+		File root = File.createTempFile("grep", "");
+		root.delete();
+
+		DataGenerator generator = new DataGenerator(DataGenerator.DEFAULT_SEED);
+
+		for (int i = 0; i < files; i++) {
+			File directory = new File(root, "d" + (i / FILES_PER_DIRECTORY / 10) + File.separator
+					+ "e" + (i / FILES_PER_DIRECTORY));
+			directory.mkdirs();
+			generator.generate(Shape.LOG, new File(directory, "f" + i + ".log"), FILE_SIZE);
+		}
+
+		return root;
+	}
+
+	private static double measure(File root) throws IOException {
+		long start = System.nanoTime();
+
+		new GREPTool(new String[] { "-r", "-c", "ERROR.*id=[0-9]+7" }).execute(root, null,
+				new NullStream(), new NullStream());
+
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+	private static class NullStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
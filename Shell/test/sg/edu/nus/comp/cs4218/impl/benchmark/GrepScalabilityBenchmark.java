@@ -0,0 +1,98 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+
+/**
+ * Runs grep over one generated log with 1, 2, 4... up to the number of
+ * processors searching chunks at the same time, and prints the throughput
+ * and the speedup over one thread for a regular expression, the same with
+ * context, and a count.
+ *
+ * GrepScalabilityBenchmark [megabytes] [max threads]
+ */
+public class GrepScalabilityBenchmark {
+
+	private static final String[][] COMMANDS = {
+		{ "w[aeiou]+rk.*id=1" },
+		{ "-C", "2", "w[aeiou]+rk.*id=1" },
+		{ "-c", "ERROR.*id=[0-9]+7" },
+	};
+
+	public static void main(String[] args) throws IOException {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+				: Runtime.getRuntime().availableProcessors();
+		File file = File.createTempFile("grep", ".log");
+		file.deleteOnExit();
+
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, file,
+				megabytes * 1024L * 1024);
+
+		List<Integer> counts = new ArrayList<Integer>();
+
+		for (int threads = 1; threads < maxThreads; threads *= 2) {
+			counts.add(threads);
+		}
+
+		counts.add(maxThreads);
+
+		for (String[] command : COMMANDS) {
+			double single = 0;
+
+			for (int threads : counts) {
+				System.setProperty(GREPTool.THREADS_PROPERTY, String.valueOf(threads));
+
+				double seconds = measure(command, file);
+
+				if (threads == 1) {
+					single = seconds;
+				}
+
+				System.out.println(String.format("%-32s %3d threads %8.1f ms %8.1f MB/s %5.2fx",
+						join(command), threads, seconds * 1e3, megabytes / seconds,
+						single / seconds));
+			}
+		}
+	}
+
+	private static double measure(String[] command, File file) throws IOException {
+		String[] args = new String[command.length + 1];
+
+		System.arraycopy(command, 0, args, 0, command.length);
+		args[command.length] = file.getPath();
+
+		long start = System.nanoTime();
+
+		new GREPTool(args).execute(file.getParentFile(), null, new NullStream(),
+				new NullStream());
+
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	private static String join(String[] words) {
+		StringBuilder joined = new StringBuilder();
+
+		for (String word : words) {
+			joined.append(joined.length() == 0 ? "" : " ").append(word);
+		}
+
+		return joined.toString();
+	}
+
+	private static class NullStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
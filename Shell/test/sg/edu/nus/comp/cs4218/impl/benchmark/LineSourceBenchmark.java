@@ -0,0 +1,81 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+
+/**
+ * Matches a pattern against every line of a generated ASCII log, read with
+ * BufferedReader.readLine and with {@link LineSource}, and reports the time
+ * and the bytes allocated by each.
+ * 
+ * LineSourceBenchmark [lines]
+ */
+public class LineSourceBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, count, text);
+
+		byte[] bytes = text.toByteArray();
+		Matcher m = Pattern.compile("ERROR").matcher("");
+
+		for (int round = 0; round < 5; round++) {
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			BufferedReader br = new BufferedReader(new InputStreamReader(
+					new ByteArrayInputStream(bytes), ATool.CHARSET));
+			int matches = 0;
+			String line;
+
+			while ((line = br.readLine()) != null) {
+				if (m.reset(line).find()) {
+					matches++;
+				}
+			}
+
+			report("readLine", start, allocated, matches, count);
+
+			allocated = allocatedBytes();
+			start = System.nanoTime();
+			LineSource lines = new LineSource(new ByteArrayInputStream(bytes));
+			matches = 0;
+
+			while (lines.next()) {
+				if (m.reset(lines.chars()).find()) {
+					matches++;
+				}
+			}
+
+			report("LineSource", start, allocated, matches, count);
+		}
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return 0;
+	}
+
+	private static void report(String name, long start, long allocated,
+			int matches, int count) {
+		System.out.println(String.format("%-12s %8.1f ms %10.1f bytes/line  %d matches",
+				name, (System.nanoTime() - start) / 1e6,
+				(double) (allocatedBytes() - allocated) / count, matches));
+	}
+}
@@ -0,0 +1,76 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.MappedFile;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+
+/**
+ * Compares reading every line of a generated log file into a String[] with
+ * {@link FileUtils#readFileLines(File)} against indexing it as a
+ * {@link MappedFile}, and against reading a few lines far into the file:
+ * time, and heap in use while the lines are held.
+ * 
+ * MappedFileBenchmark [lines]
+ */
+public class MappedFileBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		File file = File.createTempFile("mapped", ".txt");
+		file.deleteOnExit();
+
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+		new DataGenerator(DataGenerator.DEFAULT_SEED).generate(Shape.LOG, lines, output);
+		output.close();
+
+		for (int round = 0; round < 3; round++) {
+			long heap = usedHeap();
+			long start = System.nanoTime();
+			String[] all = FileUtils.readFileLines(file);
+			String middle = all[lines / 2];
+			long time = System.nanoTime() - start;
+			report("readFileLines", time, usedHeap() - heap, middle);
+
+			all = null;
+			heap = usedHeap();
+			start = System.nanoTime();
+			MappedFile mapped = MappedFile.open(file);
+			int count = mapped.getLineCount();
+			middle = mapped.getLine(count / 2);
+			time = System.nanoTime() - start;
+			report("MappedFile index", time, usedHeap() - heap, middle);
+			mapped.close();
+
+			mapped = null;
+
+			heap = usedHeap();
+			start = System.nanoTime();
+			mapped = MappedFile.open(file);
+			middle = mapped.getLine(1000);
+			time = System.nanoTime() - start;
+			report("MappedFile line 1000", time, usedHeap() - heap, middle);
+			mapped.close();
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void report(String name, long time, long heap, String line) {
+		System.out.println(String.format("%-22s %8.1f ms  heap %7.1f MB  (%s)",
+				name, time / 1e6, heap / 1e6, line.substring(0, 23)));
+	}
+}
@@ -0,0 +1,87 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.OutputSink;
+import sg.edu.nus.comp.cs4218.impl.OutputSink.FlushPolicy;
+import sg.edu.nus.comp.cs4218.impl.extended1.GREPTool;
+import sg.edu.nus.comp.cs4218.impl.fileutils.CATTool;
+
+/**
+ * Compares the time to first byte and the total time of cat and grep over a
+ * generated file, when the result is printed as one String after the tool is
+ * done and when the tool writes to an {@link OutputSink} with each policy.
+ * Output goes to a stream that discards it, so only the shell is measured.
+ * 
+ * OutputSinkBenchmark [lines]
+ */
+public class OutputSinkBenchmark {
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	public static void main(String[] args) throws IOException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		File file = File.createTempFile("sink", ".txt");
+		file.deleteOnExit();
+
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+
+		for (int i = 0; i < lines; i++) {
+			writer.write("line " + i + (i % 100 == 0 ? " ERROR" : " ok") + "\n");
+		}
+
+		writer.close();
+
+		String[][] commands = { { "cat", file.getPath() },
+				{ "grep", "ERROR", file.getPath() } };
+
+		for (int round = 0; round < 3; round++) {
+			for (String[] command : commands) {
+				measure(file, command);
+			}
+		}
+	}
+
+	private static void measure(File file, String[] command) throws IOException {
+		String[] args = new String[command.length - 1];
+		System.arraycopy(command, 1, args, 0, args.length);
+
+		// as ToolRunnable printed before: nothing until the String is complete
+		long start = System.nanoTime();
+		String output = create(command[0], args).execute(file.getParentFile(), "");
+		long firstByte = System.nanoTime() - start;
+		DISCARD.write(output.getBytes(ATool.CHARSET));
+		report(command[0], "String", firstByte, System.nanoTime() - start);
+
+		for (FlushPolicy policy : FlushPolicy.values()) {
+			start = System.nanoTime();
+			OutputSink sink = new OutputSink(DISCARD, policy);
+			create(command[0], args).execute(file.getParentFile(), null, sink, DISCARD);
+			sink.flush();
+			report(command[0], policy.toString(), sink.getTimeToFirstByte(),
+					System.nanoTime() - start);
+		}
+	}
+
+	private static ATool create(String command, String[] args) {
+		return command.equals("cat") ? new CATTool(args) : new GREPTool(args);
+	}
+
+	private static void report(String command, String mode, long firstByte, long total) {
+		System.out.println(String.format("%-5s %-7s first byte %9.3f ms   total %8.1f ms",
+				command, mode, firstByte / 1e6, total / 1e6));
+	}
+}
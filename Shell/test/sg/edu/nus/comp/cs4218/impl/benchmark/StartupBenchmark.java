@@ -0,0 +1,102 @@
+package sg.edu.nus.comp.cs4218.impl.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Measures the time to first prompt of the shell: a new JVM is started with
+ * the current class path, and the time until "$ " appears on its stdout is
+ * taken. The shell then runs one command and the number of classes it loaded
+ * from sg.edu.nus is counted with -verbose:class, to show that only the tools
+ * actually used are loaded.
+ * 
+ * StartupBenchmark [runs] [command]
+ */
+public class StartupBenchmark {
+
+	private static final String SHELL = "sg.edu.nus.comp.cs4218.impl.Shell";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		String command = args.length > 1 ? args[1] : "echo hello";
+		long[] times = new long[runs];
+		int loaded = 0;
+
+		for (int i = 0; i < runs; i++) {
+			Process shell = start();
+			long start = System.nanoTime();
+
+			int loadedAtPrompt = waitForPrompt(shell.getInputStream());
+			times[i] = System.nanoTime() - start;
+
+			OutputStream stdin = shell.getOutputStream();
+			stdin.write((command + "\n").getBytes());
+			stdin.close();
+
+			loaded = loadedAtPrompt + countShellClasses(shell.getInputStream());
+			shell.waitFor();
+		}
+
+		Arrays.sort(times);
+
+		System.out.println(String.format("time to first prompt: median %.1f ms, min %.1f ms (%d runs)",
+				times[runs / 2] / 1e6, times[0] / 1e6, runs));
+		System.out.println("classes loaded from sg.edu.nus after \"" + command + "\": " + loaded);
+	}
+
+	private static Process start() throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java";
+
+		return new ProcessBuilder(java, "-verbose:class", "-cp",
+				System.getProperty("java.class.path"), SHELL).redirectErrorStream(true).start();
+	}
+
+	/**
+	 * read the output of the shell up to the first prompt
+	 * 
+	 * @return number of classes loaded from sg.edu.nus so far
+	 */
+	private static int waitForPrompt(InputStream out) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int count = 0;
+		int current;
+
+		while ((current = out.read()) != -1) {
+			if (current == '\n') {
+				count += line.indexOf("sg.edu.nus.") >= 0 ? 1 : 0;
+				line.setLength(0);
+			} else if (current == ' ' && line.toString().endsWith("$")) {
+				return count;
+			} else {
+				line.append((char) current);
+			}
+		}
+
+		throw new IOException("Error: The shell exited before the prompt");
+	}
+
+	/**
+	 * read the rest of the output of the shell
+	 * 
+	 * @return number of classes loaded from sg.edu.nus
+	 */
+	private static int countShellClasses(InputStream out) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(out));
+		int count = 0;
+		String line;
+
+		while ((line = reader.readLine()) != null) {
+			if (line.contains("sg.edu.nus.")) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
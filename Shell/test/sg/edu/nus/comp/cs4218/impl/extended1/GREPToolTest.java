@@ -2,8 +2,15 @@ package sg.edu.nus.comp.cs4218.impl.extended1;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -11,7 +18,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
 import sg.edu.nus.comp.cs4218.impl.FileUtils;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
 
 public class GREPToolTest {
 	
@@ -41,6 +52,8 @@ public class GREPToolTest {
 	@After
 	public void tearDown() throws Exception {
 		grep = null;
+		System.clearProperty(GREPTool.THREADS_PROPERTY);
+		System.clearProperty(GREPTool.CHUNK_SIZE_PROPERTY);
 	}
 	
 	@Test
@@ -152,7 +165,8 @@ public class GREPToolTest {
 		String stdout = grep.execute(null, null);
 
 		assertEquals(0, grep.getStatusCode());
-		assertTrue(stdout.matches("^Command Format -(.|\n)+OPTIONS(.|\n)+$"));
+		// (?s) rather than (.|\n)+, which recurses once per character
+		assertTrue(stdout.matches("(?s)^Command Format -.+OPTIONS.+$"));
 	}
 
 	@Test
@@ -228,4 +242,416 @@ public class GREPToolTest {
 		assertEquals("3", stdout);
 	}
 
+	@Test
+	public void testExecuteWithCombinedOptions() {
+		String[][] cases = {
+			{ "-v -c test", "6" },
+			{ "-c -v test", "6" },
+			{ "-o -c test", "3" },
+			{ "-v -o test", "" },
+			{ "-A 1 -B 1 test", "testtest\ntest world\n123\nhello\nhello test\nyahoo" },
+			{ "-v -A 1 hello", "testtest\ntest world\n123\n789\n0123\nhello\nyahoo\nk09lk" },
+			{ "-C 1 -A 0 hello", "0123\nhello\nhello test" },
+			{ "-B 0 test", matchOutput },
+			{ "-C 0 test", matchOutput },
+		};
+
+		for (String[] c : cases) {
+			grep = new GREPTool(c[0].split(" "));
+			assertEquals(c[0], c[1], grep.execute(null, input));
+			assertEquals(0, grep.getStatusCode());
+		}
+	}
+
+	/**
+	 * the buffer of leading context grows and reuses its lines
+	 */
+	@Test
+	public void testLeadingContextOfLongLines() {
+		StringBuilder text = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+
+		for (int i = 0; i < 40; i++) {
+			String line = i + "\u00e9" + new String(new char[(i * 37) % 300]).replace('\0', 'x');
+			text.append(line).append('\n');
+
+			if (i >= 10) {
+				expected.append(line).append('\n');
+			}
+		}
+
+		text.append("match");
+		expected.append("match");
+
+		assertEquals(expected.toString(),
+				grep.getMatchingLinesWithLeadingContext(30, "match", text.toString()));
+	}
+
+	@Test
+	public void testCancelStopsLargeSearchQuickly() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final byte[] line = "line 9 of an endless input\n".getBytes(ATool.CHARSET);
+
+		// never ends, so only the cancellation can stop the search
+		final InputStream endless = new InputStream() {
+			private int position = 0;
+
+			@Override
+			public int read() {
+				started.countDown();
+				int b = line[position];
+				position = (position + 1) % line.length;
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				for (int i = 0; i < len; i++) {
+					b[off + i] = (byte) read();
+				}
+
+				return len;
+			}
+		};
+		final OutputStream discard = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+
+		final CancellationToken token = new CancellationToken();
+		grep = new GREPTool(new String[] { "(l|i|n|e)+ [0-9]*9 of" });
+		grep.setCancellationToken(token);
+
+		Thread search = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					grep.execute(null, endless, discard, discard);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		search.start();
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		token.cancel();
+		search.join(5000);
+		long latency = System.nanoTime() - token.getCancelTime();
+
+		assertFalse(search.isAlive());
+		assertTrue("cancel-to-stop took " + latency / 1000000 + "ms",
+				latency < 500L * 1000000);
+		assertEquals(ATool.STATUS_CANCELLED, grep.getStatusCode());
+	}
+
+	@Test
+	public void testStreamWritesMatchesBeforeInputEnds() throws IOException {
+		final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		final StringBuilder seen = new StringBuilder();
+		InputStream rest = new InputStream() {
+			@Override
+			public int read() {
+				// the first chunk has been searched by now
+				seen.append(stdout.toString());
+				return -1;
+			}
+		};
+		InputStream stdin = new SequenceInputStream(
+				new ByteArrayInputStream("test1\nno\ntest2\n".getBytes(ATool.CHARSET)), rest);
+
+		grep = new GREPTool(new String[] { "test" });
+		grep.execute(null, stdin, stdout, new ByteArrayOutputStream());
+
+		assertEquals("test1\ntest2", seen.toString());
+		assertEquals("test1\ntest2", stdout.toString());
+		assertEquals(0, grep.getStatusCode());
+	}
+
+	@Test
+	public void testStreamMissingFile() throws IOException {
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		grep = new GREPTool(new String[] { "test", "missing" });
+		grep.execute(folder.getRoot(), null, stdout, stderr);
+
+		assertEquals("", stdout.toString());
+		assertEquals("Error: No such file or directory", stderr.toString());
+		assertEquals(1, grep.getStatusCode());
+	}
+
+	@Test
+	public void testGetLinesMatchingAny() {
+		String output = grep.getLinesMatchingAny(new String[] { "yahoo", "test", "^0" }, input);
+		assertEquals("testtest\ntest world\n0123\nhello test\nyahoo", output);
+	}
+
+	@Test
+	public void testExecuteWithSeveralPatterns() throws IOException {
+		File test = folder.newFile("test.txt");
+		FileUtils.createDummyFile(test, input);
+
+		grep = new GREPTool("-e 789 -e hello test.txt".split(" "));
+		String stdout = grep.execute(folder.getRoot(), null);
+		assertEquals("789\nhello\nhello test", stdout);
+		assertEquals(0, grep.getStatusCode());
+	}
+
+	@Test
+	public void testExecuteWithPatternFile() throws IOException {
+		File patterns = folder.newFile("ids.txt");
+		FileUtils.createDummyFile(patterns, "123\nyahoo\n");
+
+		grep = new GREPTool("-c -f ids.txt -e k09 -".split(" "));
+		String stdout = grep.execute(folder.getRoot(), input);
+		assertEquals("4", stdout);
+	}
+
+	@Test
+	public void testExecuteOnlyMatchingPartsOfSeveralPatterns() {
+		grep = new GREPTool("-o -e test -e world".split(" "));
+		String stdout = grep.execute(null, "test world\nhello");
+		assertEquals("test\nworld", stdout);
+	}
+
+	@Test
+	public void testExecuteWithMissingPatternFile() throws IOException {
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		grep = new GREPTool(new String[] { "-f", "missing" });
+		grep.execute(folder.getRoot(), null, stdout, stderr);
+
+		assertEquals("", stdout.toString());
+		assertNotEquals("", stderr.toString());
+		assertEquals(2, grep.getStatusCode());
+	}
+
+	/**
+	 * a file searched in many small chunks gives the same output as one
+	 * search, also for the context around matches at the cuts
+	 */
+	@Test
+	public void testChunkedSearchSameAsOnePass() throws IOException {
+		File test = folder.newFile("test.txt");
+		String text = new DataGenerator(5).setDuplicateRatio(0.05)
+				.generate(Shape.WORDS, 2000).replace("ab\n", "ab\r\n");
+		FileUtils.createDummyFile(test, text);
+
+		String[] options = { "", "-v", "-o", "-c", "-A 0", "-A 1", "-A 3", "-B 1", "-B 2",
+				"-C 1", "-C 2", "-C 5", "-v -c", "-v -C 2", "-A 1 -B 3", "-C 2 -B 4",
+				"-C 1 -A 0 -B 0" };
+		String[] patterns = { "ab", "[a-c]{4}", "zzzz", "e", "-e qu -e ur" };
+
+		for (String option : options) {
+			for (String pattern : patterns) {
+				String args = (option + " " + pattern + " test.txt").trim();
+
+				System.setProperty(GREPTool.THREADS_PROPERTY, "1");
+				String expected = new GREPTool(args.split(" ")).execute(folder.getRoot(), null);
+
+				for (String chunkSize : new String[] { "1", "100", "4096" }) {
+					System.setProperty(GREPTool.THREADS_PROPERTY, "4");
+					System.setProperty(GREPTool.CHUNK_SIZE_PROPERTY, chunkSize);
+					grep = new GREPTool(args.split(" "));
+
+					assertEquals(args + " in chunks of " + chunkSize, expected,
+							grep.execute(folder.getRoot(), null));
+					assertEquals(0, grep.getStatusCode());
+				}
+			}
+		}
+	}
+
+	private File createTree() throws IOException {
+		File root = folder.newFolder("tree");
+		new File(root, "b/c").mkdirs();
+		new File(root, "a").mkdirs();
+		FileUtils.createDummyFile(new File(root, "z.txt"), "hello z\nbye");
+		FileUtils.createDummyFile(new File(root, "a/x.java"), "hello x");
+		FileUtils.createDummyFile(new File(root, "b/c/y.txt"), "bye\nhello y");
+		FileUtils.createDummyFile(new File(root, "b/bin.dat"), "hello\u0000bin");
+		return root;
+	}
+
+	@Test
+	public void testExecuteRecursive() throws IOException {
+		createTree();
+		String sep = File.separator;
+		grep = new GREPTool(new String[] { "-r", "hello", "tree" });
+
+		assertEquals("tree" + sep + "a" + sep + "x.java:hello x\n"
+				+ "tree" + sep + "b" + sep + "c" + sep + "y.txt:hello y\n"
+				+ "tree" + sep + "z.txt:hello z", grep.execute(folder.getRoot(), null));
+		assertEquals(0, grep.getStatusCode());
+	}
+
+	@Test
+	public void testExecuteRecursiveInWorkingDir() throws IOException {
+		File root = createTree();
+		String sep = File.separator;
+		grep = new GREPTool(new String[] { "-r", "-c", "bye" });
+
+		assertEquals("a" + sep + "x.java:0\nb" + sep + "c" + sep + "y.txt:1\nz.txt:1",
+				grep.execute(root, null));
+	}
+
+	@Test
+	public void testExecuteRecursiveWithGlobs() throws IOException {
+		File root = createTree();
+		String sep = File.separator;
+
+		grep = new GREPTool(new String[] { "-r", "-include", "*.txt", "hello" });
+		assertEquals("b" + sep + "c" + sep + "y.txt:hello y\nz.txt:hello z",
+				grep.execute(root, null));
+
+		grep = new GREPTool(new String[] { "-r", "-exclude", "c", "-exclude", "*.java",
+				"hello" });
+		assertEquals("z.txt:hello z", grep.execute(root, null));
+	}
+
+	@Test
+	public void testExecuteRecursiveOnFile() throws IOException {
+		File root = createTree();
+		grep = new GREPTool(new String[] { "-r", "hello", "z.txt" });
+
+		assertEquals("hello z", grep.execute(root, null));
+	}
+
+	@Test
+	public void testExecuteRecursiveSameWithThreads() throws IOException {
+		File root = folder.newFolder("many");
+
+		for (int i = 0; i < 40; i++) {
+			File directory = new File(root, "d" + (i % 7));
+			directory.mkdirs();
+			FileUtils.createDummyFile(new File(directory, "f" + i),
+					new DataGenerator(i).generate(Shape.WORDS, 200));
+		}
+
+		System.setProperty(GREPTool.THREADS_PROPERTY, "1");
+		String expected = new GREPTool(new String[] { "-r", "-C", "1", "ab" }).execute(root,
+				null);
+
+		System.setProperty(GREPTool.THREADS_PROPERTY, "8");
+		assertEquals(expected,
+				new GREPTool(new String[] { "-r", "-C", "1", "ab" }).execute(root, null));
+	}
+
+	/**
+	 * input that never ends, "match" then "line" forever
+	 */
+	private static InputStream endlessInput() {
+		return new InputStream() {
+			private final byte[] first = "match\n".getBytes(ATool.CHARSET);
+			private final byte[] line = "line\n".getBytes(ATool.CHARSET);
+			private long position = 0;
+
+			@Override
+			public int read() {
+				int b = position < first.length ? first[(int) position]
+						: line[(int) ((position - first.length) % line.length)];
+				position++;
+				return b;
+			}
+		};
+	}
+
+	@Test(timeout = 10000)
+	public void testQuietStopsAtFirstMatch() throws IOException {
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		grep = new GREPTool(new String[] { "-q", "match" });
+		grep.execute(null, endlessInput(), stdout, stdout);
+
+		assertEquals(0, stdout.size());
+		assertEquals(0, grep.getStatusCode());
+	}
+
+	@Test(timeout = 10000)
+	public void testMaxCountStopsReading() throws IOException {
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		grep = new GREPTool(new String[] { "-m", "3", "-A", "1", "e" });
+		grep.execute(null, endlessInput(), stdout, stdout);
+
+		assertEquals("line\nline\nline\nline", stdout.toString("UTF-8"));
+		assertEquals(0, grep.getStatusCode());
+	}
+
+	@Test
+	public void testExecuteWithMaxCount() {
+		String[][] cases = {
+			{ "-m 2 test", "testtest\ntest world" },
+			{ "-m 2 -c test", "2" },
+			{ "-m 0 test", "" },
+			{ "-m 1 -v test", "123" },
+			{ "-m 1 -A 2 test", "testtest\ntest world\n123" },
+			{ "-m 1 -o test", "test\ntest" },
+		};
+
+		for (String[] c : cases) {
+			grep = new GREPTool(c[0].split(" "));
+			assertEquals(c[0], c[1], grep.execute(null, input));
+			assertEquals(0, grep.getStatusCode());
+		}
+	}
+
+	@Test
+	public void testExecuteQuiet() {
+		grep = new GREPTool("-q hello".split(" "));
+		assertEquals("", grep.execute(null, input));
+		assertEquals(0, grep.getStatusCode());
+
+		grep = new GREPTool("-q nothing".split(" "));
+		assertEquals("", grep.execute(null, input));
+		assertEquals(1, grep.getStatusCode());
+	}
+
+	@Test
+	public void testExecuteFilesWithMatches() throws IOException {
+		File test = folder.newFile("test.txt");
+		FileUtils.createDummyFile(test, input);
+
+		grep = new GREPTool("-l hello test.txt".split(" "));
+		assertEquals("test.txt", grep.execute(folder.getRoot(), null));
+
+		grep = new GREPTool("-l nothing test.txt".split(" "));
+		assertEquals("", grep.execute(folder.getRoot(), null));
+
+		grep = new GREPTool("-L nothing test.txt".split(" "));
+		assertEquals("test.txt", grep.execute(folder.getRoot(), null));
+
+		grep = new GREPTool("-L hello".split(" "));
+		assertEquals("", grep.execute(folder.getRoot(), input));
+
+		grep = new GREPTool("-l hello".split(" "));
+		assertEquals("(standard input)", grep.execute(folder.getRoot(), input));
+	}
+
+	@Test
+	public void testExecuteRecursiveFileNames() throws IOException {
+		File root = createTree();
+		String sep = File.separator;
+
+		grep = new GREPTool(new String[] { "-r", "-l", "bye" });
+		assertEquals("b" + sep + "c" + sep + "y.txt\nz.txt", grep.execute(root, null));
+
+		grep = new GREPTool(new String[] { "-r", "-L", "bye" });
+		assertEquals("a" + sep + "x.java", grep.execute(root, null));
+
+		grep = new GREPTool(new String[] { "-r", "-q", "bye" });
+		assertEquals("", grep.execute(root, null));
+		assertEquals(0, grep.getStatusCode());
+
+		grep = new GREPTool(new String[] { "-r", "-q", "nothing" });
+		assertEquals("", grep.execute(root, null));
+		assertEquals(1, grep.getStatusCode());
+	}
 }
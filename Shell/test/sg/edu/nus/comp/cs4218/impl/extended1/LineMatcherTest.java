@@ -0,0 +1,173 @@
+package sg.edu.nus.comp.cs4218.impl.extended1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+import sg.edu.nus.comp.cs4218.impl.LineSource;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator;
+import sg.edu.nus.comp.cs4218.impl.benchmark.DataGenerator.Shape;
+
+public class LineMatcherTest {
+
+	@Test
+	public void testToLiteral() {
+		assertEquals("req-1234", LineMatcher.toLiteral("req-1234"));
+		assertEquals("a.b", LineMatcher.toLiteral("a\\.b"));
+		assertEquals("1+1=2", LineMatcher.toLiteral("1\\+1=2"));
+		assertEquals("no space", LineMatcher.toLiteral("no space"));
+		assertNull(LineMatcher.toLiteral("a.b"));
+		assertNull(LineMatcher.toLiteral("^start"));
+		assertNull(LineMatcher.toLiteral("\\d+"));
+		assertNull(LineMatcher.toLiteral("end\\"));
+		assertNull(LineMatcher.toLiteral(""));
+	}
+
+	@Test
+	public void testLiteralOrRegex() {
+		assertTrue(LineMatcher.compile("ERROR").isLiteral());
+		assertFalse(LineMatcher.compile("ERR.R").isLiteral());
+	}
+
+	@Test
+	public void testOccurrencesInLine() throws IOException {
+		LineSource lines = LineSource.of("abab ab");
+		LineMatcher m = LineMatcher.compile("ab");
+		int count = 0;
+
+		lines.next();
+		m.reset(lines);
+
+		while (m.find()) {
+			assertEquals("ab", m.group());
+			count++;
+		}
+
+		assertEquals(3, count);
+	}
+
+	/**
+	 * the bulk search selects the same lines, with the same line numbers, as
+	 * a regular expression tried on every line, also when lines and
+	 * occurrences span refills of a small buffer
+	 */
+	@Test
+	public void testLiteralSelectsSameLinesAsRegex() throws IOException {
+		String text = new DataGenerator(1).setUnicodeRatio(0.1)
+				.setDuplicateRatio(0.1).generate(Shape.LOG, 3000)
+				.replace("INFO ", "INFO\r\n").replace("WARN", "WARN\r");
+		String[] patterns = { "ERROR", "worker-1]", "id=4", "a", "\u00e9", "zzzzzzzz" };
+
+		for (String pattern : patterns) {
+			for (int bufferSize : new int[] { 7, 64, 65536 }) {
+				// the group makes a regular expression of the same string
+				LineMatcher regex = LineMatcher.compile("(?:" + Pattern.quote(pattern) + ")");
+
+				assertEquals(pattern + " " + bufferSize, select(regex, text, bufferSize),
+						select(LineMatcher.compile(pattern), text, bufferSize));
+			}
+		}
+	}
+
+	/**
+	 * a set of strings selects the same lines as the regular expression of
+	 * their alternatives
+	 */
+	@Test
+	public void testLiteralSetSelectsSameLinesAsRegex() throws IOException {
+		String text = new DataGenerator(3).setUnicodeRatio(0.1)
+				.generate(Shape.LOG, 3000).replace("WARN", "WARN\r");
+		List<String> patterns = Arrays.asList("ERROR", "worker-1", "id=4", "\u00e9", "zzzz");
+		StringBuilder alternatives = new StringBuilder();
+
+		for (String pattern : patterns) {
+			alternatives.append(alternatives.length() == 0 ? "" : "|")
+					.append(Pattern.quote(pattern));
+		}
+
+		LineMatcher set = LineMatcher.compile(patterns);
+
+		assertTrue(set.isLiteral());
+
+		for (int bufferSize : new int[] { 7, 64, 65536 }) {
+			assertEquals(select(LineMatcher.compile(alternatives.toString()), text, bufferSize),
+					select(set, text, bufferSize));
+		}
+	}
+
+	@Test
+	public void testPatternListWithRegex() throws IOException {
+		LineMatcher m = LineMatcher.compile(Arrays.asList("a\\.c", "x+y", "[0-9]"));
+		String text = "a.c\nabc\nxxy\nxy+\n7\nnone";
+
+		assertFalse(m.isLiteral());
+		assertEquals(Arrays.asList("1:a.c", "3:xxy", "4:xy+", "5:7"), select(m, text, 64));
+	}
+
+	@Test
+	public void testOccurrencesOfSetInLine() throws IOException {
+		LineSource lines = LineSource.of("id=42 req-7 id=4");
+		LineMatcher m = LineMatcher.compile(Arrays.asList("id=4", "id=42", "req-"));
+		List<String> found = new ArrayList<String>();
+
+		lines.next();
+		m.reset(lines);
+
+		while (m.find()) {
+			found.add(m.group());
+		}
+
+		assertEquals(Arrays.asList("id=42", "req-", "id=4"), found);
+	}
+
+	@Test
+	public void testEmptyPatternList() throws IOException {
+		LineMatcher m = LineMatcher.compile(Collections.<String> emptyList());
+
+		assertEquals(0, select(m, "a\n\nb", 64).size());
+	}
+
+	@Test
+	public void testEmptyPatternInListMatchesEveryLine() throws IOException {
+		LineMatcher m = LineMatcher.compile(Arrays.asList("abc", ""));
+
+		assertEquals(3, select(m, "a\n\nb", 64).size());
+	}
+
+	private static List<String> select(LineMatcher m, String text, int bufferSize)
+			throws IOException {
+		LineSource lines = new LineSource(new ByteArrayInputStream(
+				text.getBytes(ATool.CHARSET)), bufferSize);
+		List<String> selected = new ArrayList<String>();
+
+		while (m.nextMatchingLine(lines, CancellationToken.NONE)) {
+			selected.add(lines.getLineNumber() + ":" + lines.decode());
+		}
+
+		return selected;
+	}
+
+	@Test
+	public void testCancelledSearchStops() throws IOException {
+		CancellationToken token = new CancellationToken();
+		LineSource lines = new LineSource(new ByteArrayInputStream(
+				new DataGenerator(2).generate(Shape.WORDS, 1000).getBytes(ATool.CHARSET)), 64);
+
+		token.cancel();
+
+		assertFalse(LineMatcher.compile("no such words").nextMatchingLine(lines, token));
+	}
+}
@@ -2,13 +2,22 @@ package sg.edu.nus.comp.cs4218.impl.extended1;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+
 public class PIPINGToolTest {
 
     @Rule
@@ -120,4 +129,162 @@ public class PIPINGToolTest {
 		
 		assertNotEquals(0, pipe.getStatusCode());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testStreamExecutePipeThreeTools() throws IOException {
+		folder.newFolder("testFolder");
+		
+		PIPINGTool pipe = new PIPINGTool("ls | cat - | cat".split(" "));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+		
+		pipe.execute(folder.getRoot(), null, stdout, stderr);
+		
+		assertEquals("testFolder", stdout.toString("UTF-8"));
+		assertEquals(0, stderr.size());
+		assertEquals(0, pipe.getStatusCode());
+	}
+
+	@Test
+	public void testStreamExecuteLargeInput() throws IOException {
+		File file = folder.newFile("big.txt");
+		StringBuilder content = new StringBuilder();
+		
+		for (int i = 0; i < 20000; i++) {
+			content.append("line ").append(i).append(i % 10 == 0 ? " match\n" : "\n");
+		}
+		
+		FileUtils.createDummyFile(file, content.toString());
+		
+		PIPINGTool pipe = new PIPINGTool("cat big.txt | cat - | grep match -".split(" "));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		
+		pipe.execute(folder.getRoot(), null, stdout, stdout);
+		
+		String[] lines = stdout.toString("UTF-8").split("\n");
+		assertEquals(2000, lines.length);
+		assertEquals("line 19990 match", lines[1999]);
+		assertEquals(0, pipe.getStatusCode());
+	}
+
+	@Test
+	public void testStreamExecuteFailingStageWritesStderr() throws IOException {
+		folder.newFolder("testFolder");
+		
+		PIPINGTool pipe = new PIPINGTool("ls | cat -G -".split(" "));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+		
+		pipe.execute(folder.getRoot(), null, stdout, stderr);
+		
+		assertEquals(0, stdout.size());
+		assertNotEquals(0, stderr.size());
+		assertNotEquals(0, pipe.getStatusCode());
+	}
+
+	@Test
+	public void testStreamExecuteWithNoExistsTool() throws IOException {
+		PIPINGTool pipe = new PIPINGTool("ls | omg".split(" "));
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+		
+		pipe.execute(folder.getRoot(), null, new ByteArrayOutputStream(), stderr);
+		
+		assertEquals("Error: Command Not Found 'omg'", stderr.toString("UTF-8"));
+		assertNotEquals(0, pipe.getStatusCode());
+	}
+
+	@Test(timeout = 10000)
+	public void testStreamExecuteStopsEarlierStages() throws IOException {
+		// writes one line, then would run until it is cancelled
+		ATool endless = new ATool(null) {
+			@Override
+			public String execute(File workingDir, String stdin) {
+				return null;
+			}
+
+			@Override
+			public void execute(File workingDir, InputStream stdin, OutputStream stdout,
+					OutputStream stderr) throws IOException {
+				stdout.write("match\n".getBytes(CHARSET));
+
+				while (!isCancelled()) {
+					Thread.yield();
+				}
+			}
+		};
+
+		PIPINGTool pipe = new PIPINGTool(Arrays.asList(endless,
+				new GREPTool(new String[] { "-q", "match" })));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		pipe.execute(folder.getRoot(), null, stdout, stdout);
+
+		assertEquals(0, stdout.size());
+		assertEquals(ATool.STATUS_CANCELLED, endless.getStatusCode());
+		assertEquals(0, pipe.getStatusCode());
+	}
+
+	@Test(timeout = 10000)
+	public void testStreamExecuteQuietGrepOnLargeInput() throws IOException {
+		File file = folder.newFile("big.txt");
+		StringBuilder content = new StringBuilder();
+
+		for (int i = 0; i < 200000; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+
+		FileUtils.createDummyFile(file, content.toString());
+
+		PIPINGTool pipe = new PIPINGTool("cat big.txt | grep -q line".split(" "));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		pipe.execute(folder.getRoot(), null, stdout, stdout);
+
+		assertEquals(0, stdout.size());
+		assertEquals(0, pipe.getStatusCode());
+	}
+
+	@Test(timeout = 10000)
+	public void testStreamExecuteWaitsForStagesAfterFailure() throws IOException {
+		ATool failing = new ATool(null) {
+			@Override
+			public String execute(File workingDir, String stdin) {
+				throw new IllegalStateException("broken");
+			}
+		};
+
+		// still writing when the stage before it has already failed
+		ATool slow = new ATool(null) {
+			@Override
+			public String execute(File workingDir, String stdin) {
+				return null;
+			}
+
+			@Override
+			public void execute(File workingDir, InputStream stdin, OutputStream stdout,
+					OutputStream stderr) throws IOException {
+				FileUtils.readStreamContent(stdin);
+
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				stdout.write("late".getBytes(CHARSET));
+			}
+		};
+
+		PIPINGTool pipe = new PIPINGTool(Arrays.asList(failing, slow));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		try {
+			pipe.execute(folder.getRoot(), null, stdout, new ByteArrayOutputStream());
+			fail("the failure of a stage was not reported");
+		} catch (IOException e) {
+			assertEquals("Error: broken", e.getMessage());
+		}
+
+		assertEquals("late", stdout.toString("UTF-8"));
+	}
+}
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -158,6 +160,47 @@ public class CATToolTest {
 		assertNotEquals(0, cattool.getStatusCode());
 	}
 	
+	@Test
+	public void testStreamExecuteWithFile() throws IOException {
+		String content = "abc\ncde\nfgh\t\nijk\r\n!@#$%^&*()";
+		createFile("test.txt", content);
+
+		CATTool tool = new CATTool(new String[] { "test.txt" });
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		tool.execute(folder.getRoot(), null, stdout, stderr);
+
+		assertEquals(content, stdout.toString("UTF-8"));
+		assertEquals(0, stderr.size());
+		assertEquals(0, tool.getStatusCode());
+	}
+
+	@Test
+	public void testStreamExecuteWithStdIn() throws IOException {
+		CATTool tool = new CATTool(new String[] { "-" });
+		ByteArrayInputStream stdin = new ByteArrayInputStream("hello".getBytes("UTF-8"));
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+		tool.execute(folder.getRoot(), stdin, stdout, stdout);
+
+		assertEquals("hello", stdout.toString("UTF-8"));
+		assertEquals(0, tool.getStatusCode());
+	}
+
+	@Test
+	public void testStreamExecuteWithUnexistsFileWritesStderr() throws IOException {
+		CATTool tool = new CATTool(new String[] { "noExists" });
+		ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+		tool.execute(folder.getRoot(), null, stdout, stderr);
+
+		assertEquals(0, stdout.size());
+		assertEquals("Error: No such file or directory", stderr.toString("UTF-8"));
+		assertNotEquals(0, tool.getStatusCode());
+	}
+	
 	private File createFile(String filename, String content) throws IOException {
 		File file = folder.newFile(filename);
 
@@ -0,0 +1,88 @@
+package sg.edu.nus.comp.cs4218.impl.fileutils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
+
+public class CMPToolTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createFile(String name, String content) throws IOException {
+		File file = folder.newFile(name);
+		FileUtils.createDummyFile(file, content);
+		return file;
+	}
+
+	private CMPTool cmp(String... args) {
+		return new CMPTool(args);
+	}
+
+	@Test
+	public void testIdenticalFiles() throws IOException {
+		createFile("a.txt", "line 1\nline 2\n");
+		createFile("b.txt", "line 1\nline 2\n");
+		CMPTool tool = cmp("a.txt", "b.txt");
+
+		assertEquals("", tool.execute(folder.getRoot(), null));
+		assertEquals(0, tool.getStatusCode());
+	}
+
+	@Test
+	public void testFirstDifferenceReportsByteAndLine() throws IOException {
+		createFile("a.txt", "line 1\nline 2\n");
+		createFile("b.txt", "line 1\nlinE 2\n");
+		CMPTool tool = cmp("a.txt", "b.txt");
+
+		assertEquals("a.txt b.txt differ: byte 11, line 2",
+				tool.execute(folder.getRoot(), null));
+		assertEquals(CMPTool.STATUS_DIFFERENT, tool.getStatusCode());
+	}
+
+	@Test
+	public void testPrefixReportsEof() throws IOException {
+		createFile("a.txt", "abc");
+		createFile("b.txt", "abcdef");
+		CMPTool tool = cmp("b.txt", "a.txt");
+
+		assertEquals("cmp: EOF on a.txt after byte 3",
+				tool.execute(folder.getRoot(), null));
+		assertEquals(CMPTool.STATUS_DIFFERENT, tool.getStatusCode());
+	}
+
+	@Test
+	public void testSilentOption() throws IOException {
+		createFile("a.txt", "abc");
+		createFile("b.txt", "abd");
+		CMPTool tool = cmp("-s", "a.txt", "b.txt");
+
+		assertEquals("", tool.execute(folder.getRoot(), null));
+		assertEquals(CMPTool.STATUS_DIFFERENT, tool.getStatusCode());
+	}
+
+	@Test
+	public void testMissingFile() throws IOException {
+		createFile("a.txt", "abc");
+		CMPTool tool = cmp("a.txt", "missing.txt");
+
+		assertEquals("Error: No such file or directory",
+				tool.execute(folder.getRoot(), null));
+		assertEquals(CMPTool.STATUS_ERROR, tool.getStatusCode());
+	}
+
+	@Test
+	public void testWrongNumberOfParams() {
+		CMPTool tool = cmp("a.txt");
+
+		tool.execute(folder.getRoot(), null);
+		assertEquals(CMPTool.STATUS_ERROR, tool.getStatusCode());
+	}
+}
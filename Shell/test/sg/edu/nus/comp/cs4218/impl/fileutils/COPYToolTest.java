@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 import org.junit.After;
 import org.junit.Before;
@@ -15,6 +16,9 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import sg.edu.nus.comp.cs4218.fileutils.ICopyTool;
+import sg.edu.nus.comp.cs4218.impl.ATool;
+import sg.edu.nus.comp.cs4218.impl.CancellationToken;
+import sg.edu.nus.comp.cs4218.impl.FileUtils;
 import sg.edu.nus.comp.cs4218.impl.PathUtils;
 
 public class COPYToolTest {
@@ -156,4 +160,100 @@ public class COPYToolTest {
 		iCopyTool.execute(folder.getRoot(), null);
 		assertNotEquals(0, iCopyTool.getStatusCode());
 	}
+
+	@Test
+	public void testCopyCancelledLeavesNoTarget() throws IOException {
+		File origin = folder.newFile("originForCopy.txt");
+		FileUtils.createDummyFile(origin, 1024);
+		File target = new File(PathUtils.pathResolver(folder.getRoot(),
+				"test.txt"));
+
+		COPYTool copyTool = new COPYTool(null);
+		CancellationToken token = new CancellationToken();
+		copyTool.setCancellationToken(token);
+		token.cancel();
+
+		assertFalse(copyTool.copy(origin, target));
+		assertEquals(ATool.STATUS_CANCELLED, copyTool.getStatusCode());
+		assertFalse(target.exists());
+	}
+
+	@Test
+	public void testCopyInterruptedIsCancelled() throws IOException {
+		File origin = folder.newFile("originForCopy.txt");
+		FileUtils.createDummyFile(origin, 1024);
+		File target = new File(PathUtils.pathResolver(folder.getRoot(),
+				"test.txt"));
+
+		// cancelled and interrupted after the first check, as the shell does
+		CancellationToken token = new CancellationToken() {
+			private boolean checked = false;
+
+			@Override
+			public boolean isCancelled() {
+				if (!checked) {
+					checked = true;
+					cancel();
+					Thread.currentThread().interrupt();
+					return false;
+				}
+
+				return super.isCancelled();
+			}
+		};
+
+		COPYTool copyTool = new COPYTool(new String[] { origin.getName(),
+				target.getName() });
+		copyTool.setCancellationToken(token);
+		String result;
+
+		try {
+			result = copyTool.execute(folder.getRoot(), null);
+		} finally {
+			Thread.interrupted();
+		}
+
+		assertEquals("Error: copy of originForCopy.txt cancelled", result);
+		assertEquals(ATool.STATUS_CANCELLED, copyTool.getStatusCode());
+		assertFalse(target.exists());
+	}
+
+	@Test
+	public void testCopyOfShrinkingSourceFails() throws IOException {
+		final File origin = folder.newFile("originForCopy.txt");
+		FileUtils.createDummyFile(origin, 1024);
+		File target = new File(PathUtils.pathResolver(folder.getRoot(),
+				"test.txt"));
+
+		// the source is emptied after its size was read, never cancelled
+		CancellationToken token = new CancellationToken() {
+			private boolean checked = false;
+
+			@Override
+			public boolean isCancelled() {
+				if (!checked) {
+					checked = true;
+
+					try {
+						RandomAccessFile file = new RandomAccessFile(origin, "rw");
+						file.setLength(0);
+						file.close();
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+
+				return false;
+			}
+		};
+
+		COPYTool copyTool = new COPYTool(new String[] { origin.getName(),
+				target.getName() });
+		copyTool.setCancellationToken(token);
+
+		assertEquals("Error: originForCopy.txt changed while being copied",
+				copyTool.execute(folder.getRoot(), null));
+		assertEquals(7, copyTool.getStatusCode());
+		assertFalse(target.exists());
+	}
 }
@@ -0,0 +1,103 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.ArgList;
+
+public class CommandLineParserTest {
+
+	private static List<String> words(String line) {
+		List<String> words = new ArrayList<String>();
+		ArgList.splitWords(line, words);
+		return words;
+	}
+
+	private static Node parse(String line) {
+		return CommandLineParser.parse(words(line));
+	}
+
+	private static void assertParseError(String line, String near) {
+		try {
+			parse(line);
+			fail("no parse error for " + line);
+		} catch (IllegalArgumentException e) {
+			assertEquals("Error: Parse Error Near '" + near + "'", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHasOperator() {
+		assertTrue(CommandLineParser.hasOperator(words("echo a ; echo b")));
+		assertTrue(CommandLineParser.hasOperator(words("echo a > f")));
+		assertFalse(CommandLineParser.hasOperator(words("echo a | cat")));
+		assertFalse(CommandLineParser.hasOperator(words("echo \";\" a\\>b")));
+	}
+
+	@Test
+	public void testSingleCommandWithRedirections() {
+		CommandNode node = (CommandNode) parse("grep ERR < in.log -v > out.txt");
+
+		assertEquals("grep", node.getCommand());
+		assertArrayEquals(new String[] { "ERR", "-v" }, node.getArguments());
+		assertEquals("in.log", node.getInputFile());
+		assertEquals("out.txt", node.getOutputFile());
+		assertFalse(node.isAppend());
+	}
+
+	@Test
+	public void testAppendToQuotedFile() {
+		CommandNode node = (CommandNode) parse("echo a >> \"my file\"");
+
+		assertEquals("my file", node.getOutputFile());
+		assertTrue(node.isAppend());
+		assertNull(node.getInputFile());
+	}
+
+	@Test
+	public void testPrecedence() {
+		// a | b && c ; d  ==  ((a | b) && c) ; d
+		SequenceNode sequence = (SequenceNode) parse("cat f | sort && echo ok ; pwd");
+
+		assertEquals(2, sequence.getNodes().size());
+		ConditionalNode and = (ConditionalNode) sequence.getNodes().get(0);
+		assertEquals(ConditionalNode.AND, and.getOperator());
+		assertEquals(2, ((PipelineNode) and.getLeft()).getCommands().size());
+		assertEquals("echo", ((CommandNode) and.getRight()).getCommand());
+		assertEquals("pwd", ((CommandNode) sequence.getNodes().get(1)).getCommand());
+	}
+
+	@Test
+	public void testConditionalsAreLeftAssociative() {
+		ConditionalNode or = (ConditionalNode) parse("a && b || c");
+
+		assertEquals(ConditionalNode.OR, or.getOperator());
+		assertEquals(ConditionalNode.AND, ((ConditionalNode) or.getLeft()).getOperator());
+	}
+
+	@Test
+	public void testTrailingSemicolon() {
+		assertEquals("echo", ((CommandNode) parse("echo a ;")).getCommand());
+	}
+
+	@Test
+	public void testParseErrors() {
+		assertParseError("; echo a", ";");
+		assertParseError("echo a &&", "&&");
+		assertParseError("echo a || ; echo b", ";");
+		assertParseError("echo a >", ">");
+		assertParseError("echo a > ; echo b", ";");
+		assertParseError("echo a < > f", ">");
+		assertParseError("echo a ; ; echo b", ";");
+		assertParseError("> f", ">");
+	}
+}
@@ -0,0 +1,162 @@
+package sg.edu.nus.comp.cs4218.impl.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import sg.edu.nus.comp.cs4218.impl.ArgList;
+import sg.edu.nus.comp.cs4218.impl.CommandPlan;
+
+public class CommandLineToolTest {
+
+	File workingDir;
+	ByteArrayOutputStream stdout;
+	ByteArrayOutputStream stderr;
+	CommandLineTool tool;
+
+	@Before
+	public void setUp() throws IOException {
+		workingDir = Files.createTempDirectory("cmdline").toFile();
+		stdout = new ByteArrayOutputStream();
+		stderr = new ByteArrayOutputStream();
+	}
+
+	@After
+	public void tearDown() {
+		delete(workingDir);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+	private int run(String line) throws IOException {
+		List<String> words = new ArrayList<String>();
+		ArgList.splitWords(line, words);
+		tool = new CommandLineTool(CommandLineParser.parse(words));
+		tool.execute(workingDir, new ByteArrayInputStream(new byte[0]), stdout, stderr);
+
+		return tool.getStatusCode();
+	}
+
+	private String read(String name) throws IOException {
+		return new String(Files.readAllBytes(new File(workingDir, name).toPath()),
+				StandardCharsets.UTF_8);
+	}
+
+	private void write(String name, String content) throws IOException {
+		Files.write(new File(workingDir, name).toPath(),
+				content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testSequenceRunsEveryCommand() throws IOException {
+		int status = run("echo a ; nosuchcmd ; echo b");
+
+		assertEquals(0, status);
+		assertEquals("a\nb\n", stdout.toString());
+		assertEquals("Command not found: nosuchcmd\n", stderr.toString());
+	}
+
+	@Test
+	public void testAndOr() throws IOException {
+		assertEquals(127, run("nosuchcmd && echo skipped"));
+		assertEquals(0, run("nosuchcmd || echo recovered"));
+		assertEquals(0, run("echo a && echo b || echo skipped"));
+
+		assertEquals("recovered\na\nb\n", stdout.toString());
+	}
+
+	@Test
+	public void testRedirectOutputTruncatesAndAppends() throws IOException {
+		write("out.txt", "old content that is longer\n");
+
+		assertEquals(0, run("echo one > out.txt ; echo two >> out.txt"));
+		assertEquals("", stdout.toString());
+		assertEquals("one\ntwo\n", read("out.txt"));
+	}
+
+	@Test
+	public void testRedirectInput() throws IOException {
+		write("in.txt", "b\na\nc\n");
+
+		assertEquals(0, run("cat < in.txt > copy.txt"));
+		assertEquals("b\na\nc\n", read("copy.txt"));
+	}
+
+	@Test
+	public void testPipeWithRedirections() throws IOException {
+		write("in.txt", "x1\ny\nx2\n");
+
+		assertEquals(0, run("cat < in.txt | grep x > out.txt && echo done"));
+		// grep separates its lines, it does not terminate them
+		assertEquals("x1\nx2", read("out.txt"));
+		assertEquals("done\n", stdout.toString());
+	}
+
+	/**
+	 * grep -q ends before cat has written its file, which stops cat quietly
+	 */
+	@Test(timeout = 10000)
+	public void testPipeStoppedByEarlyExit() throws IOException {
+		StringBuilder content = new StringBuilder();
+
+		for (int i = 0; i < 200000; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+
+		write("big.txt", content.toString());
+
+		assertEquals(0, run("cat big.txt | grep -q line ; echo done"));
+		assertEquals("done\n", stdout.toString());
+		assertEquals("", stderr.toString());
+	}
+
+	@Test
+	public void testMissingInputFile() throws IOException {
+		int status = run("cat < missing.txt || echo handled");
+
+		assertEquals(0, status);
+		assertEquals("handled\n", stdout.toString());
+		assertEquals("Error: No such file or directory\n", stderr.toString());
+	}
+
+	@Test
+	public void testCdChangesDirectoryOfLaterCommands() throws IOException {
+		assertTrue(new File(workingDir, "sub").mkdir());
+
+		assertEquals(0, run("cd sub ; echo inside > f.txt"));
+		assertEquals("inside\n", read("sub/f.txt"));
+		assertEquals(new File(workingDir, "sub").getCanonicalFile(),
+				tool.getWorkingDirectory().getCanonicalFile());
+	}
+
+	@Test
+	public void testPlanOfLineWithOperators() {
+		CommandPlan plan = CommandPlan.parse("echo a ; echo b");
+
+		assertTrue(plan.isFound());
+		assertTrue(plan.createTool() instanceof CommandLineTool);
+		assertEquals("a\nb\n", plan.createTool().execute(workingDir, ""));
+	}
+}